@@ -168,13 +168,7 @@ class BubbleService() : LifecycleService(), SavedStateRegistryOwner {
         initConstraintSetLTR()
         initConstraintSetRTL()
         val floatingViewListener = object : FloatingViewListener {
-            override fun onTouchStarted() {
-                try {
-                    fabManager.addTrashView()
-                } catch (e: WindowManager.BadTokenException) {
-                    stopSelf()
-                }
-            }
+            override fun onTouchStarted() {}
 
             override fun onFinishFloatingView() {
                 stopSelf()
@@ -183,7 +177,6 @@ class BubbleService() : LifecycleService(), SavedStateRegistryOwner {
             override fun onTouchFinished(isFinishing: Boolean, x: Int, y: Int) {
                 recordBubbleXPosition = x
                 recordBubbleYPosition = y
-                fabManager.removeTrashView()
             }
         }
         fabManager = FloatingViewManager(this@BubbleService, floatingViewListener)
@@ -191,6 +184,8 @@ class BubbleService() : LifecycleService(), SavedStateRegistryOwner {
         fabManager.setActionTrashIconImage(R.drawable.ic_trash_action)
         fabManager.setSafeInsetRect(safeArea)
         fabManager.isTrashViewEnabled = true
+        // keep the trash window attached so that a touch does not create a window
+        fabManager.isTrashViewPersistent = true
         fabManager.setDisplayMode(FloatingViewManager.DISPLAY_MODE_SHOW_ALWAYS)
 
 
@@ -251,8 +246,6 @@ class BubbleService() : LifecycleService(), SavedStateRegistryOwner {
                     }
 
                 }
-
-            fabManager.removeTrashView()
         } catch (ex: Exception) {
             AppUtil.logcat(tag = tag, message = "exception = ${ex.message}")
             ex.printStackTrace()
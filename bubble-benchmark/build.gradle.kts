@@ -0,0 +1,25 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    jmh(project(":bubble-core"))
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh.get())
+    // gc reports the allocation rate (gc.alloc.rate.norm is bytes per op)
+    profilers.add("gc")
+    benchmarkMode.add("avgt")
+    timeUnit.set("ns")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of the goal position selection and the repositioning after a screen change.
+ */
+@State(Scope.Thread)
+public class BubbleGeometryBenchmark {
+
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 2340;
+    private static final int VIEW_SIZE = 168;
+
+    /**
+     * MOVE_DIRECTION_DEFAULT, LEFT, RIGHT, NONE, NEAREST, THROWN
+     */
+    @Param({"0", "1", "2", "3", "4", "5"})
+    public int moveDirection;
+
+    private int mStartX;
+    private int mStartY;
+    private float mXVelocity;
+
+    /**
+     * Move the start point every call so that every branch is taken.
+     */
+    private void nextStart() {
+        mStartX = (mStartX + 37) % SCREEN_WIDTH;
+        mStartY = (mStartY + 53) % SCREEN_HEIGHT;
+        mXVelocity = mXVelocity > 0 ? -mXVelocity - 250 : -mXVelocity + 250;
+        if (mXVelocity > 8000) {
+            mXVelocity = 0;
+        }
+    }
+
+    @Benchmark
+    public int goalPositionX() {
+        nextStart();
+        return BubbleGeometry.goalPositionX(moveDirection, mStartX, mStartY,
+                0, 0, SCREEN_WIDTH - VIEW_SIZE, SCREEN_HEIGHT - VIEW_SIZE,
+                SCREEN_WIDTH, VIEW_SIZE, mXVelocity, 2000f);
+    }
+
+    @Benchmark
+    public int goalPositionY() {
+        nextStart();
+        return BubbleGeometry.goalPositionY(moveDirection, mStartX, mStartY,
+                0, 0, SCREEN_WIDTH - VIEW_SIZE, SCREEN_HEIGHT - VIEW_SIZE,
+                SCREEN_HEIGHT, VIEW_SIZE);
+    }
+
+    @Benchmark
+    public int rescalePosition() {
+        nextStart();
+        // portrait to landscape
+        return BubbleGeometry.rescalePosition(mStartX, SCREEN_WIDTH - VIEW_SIZE, SCREEN_HEIGHT - VIEW_SIZE, 0, SCREEN_HEIGHT - VIEW_SIZE);
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of one tracking frame of FloatingAnimationHandler.
+ */
+@State(Scope.Thread)
+public class TrackingCurveBenchmark {
+
+    /**
+     * Time rate advanced per call(one 16ms frame of the 300ms capture)
+     */
+    private static final float TIME_RATE_STEP = 16f / 300f;
+
+    private final TrackingCurve mPiecewise = new PiecewiseTrackingCurve();
+    private final TrackingCurve mLookupTable = new LookupTableTrackingCurve(new PiecewiseTrackingCurve(), 128);
+    private final TrackingCurve mCriticallyDamped = new CriticallyDampedTrackingCurve(8f);
+
+    private float mTimeRate;
+
+    private float nextTimeRate() {
+        mTimeRate += TIME_RATE_STEP;
+        if (mTimeRate > 1) {
+            mTimeRate -= 1;
+        }
+        return mTimeRate;
+    }
+
+    @Benchmark
+    public float piecewise() {
+        return mPiecewise.getPosition(nextTimeRate());
+    }
+
+    @Benchmark
+    public float lookupTable() {
+        return mLookupTable.getPosition(nextTimeRate());
+    }
+
+    @Benchmark
+    public float criticallyDamped() {
+        return mCriticallyDamped.getPosition(nextTimeRate());
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of the trash icon position following the dragged bubble(one open animation frame).
+ */
+@State(Scope.Thread)
+public class TrashGeometryBenchmark {
+
+    private static final float SCREEN_WIDTH = 1080;
+    private static final float SCREEN_HEIGHT = 2340;
+    private static final float TARGET_SIZE = 168;
+
+    private float mTargetX;
+    private float mTargetY;
+    private float mProgress;
+
+    private void nextTarget() {
+        mTargetX = (mTargetX + 37) % SCREEN_WIDTH;
+        mTargetY = (mTargetY + 53) % SCREEN_HEIGHT;
+        mProgress = (mProgress + 0.05f) % 1.2f;
+    }
+
+    @Benchmark
+    public float stickyTranslationX() {
+        nextTarget();
+        return TrashGeometry.stickyTranslationX(0, mTargetX, TARGET_SIZE, SCREEN_WIDTH, -120, 240);
+    }
+
+    @Benchmark
+    public float stickyTranslationY() {
+        nextTarget();
+        return TrashGeometry.stickyTranslationY(mTargetY, TARGET_SIZE, SCREEN_HEIGHT, 60, 300, 300, mProgress);
+    }
+}
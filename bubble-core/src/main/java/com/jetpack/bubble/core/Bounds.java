@@ -0,0 +1,62 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * Mutable integer rectangle(same layout as android.graphics.Rect) used by the platform-free geometry.
+ */
+public final class Bounds {
+
+    public int left;
+    public int top;
+    public int right;
+    public int bottom;
+
+    /**
+     * Set all edges.
+     */
+    public void set(int left, int top, int right, int bottom) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    public int width() {
+        return right - left;
+    }
+
+    public int height() {
+        return bottom - top;
+    }
+
+    /**
+     * @param x X coordinate
+     * @return x limited to [left, right]
+     */
+    public int clampX(int x) {
+        return Math.min(Math.max(left, x), right);
+    }
+
+    /**
+     * @param y Y coordinate
+     * @return y limited to [top, bottom]
+     */
+    public int clampY(int y) {
+        return Math.min(Math.max(top, y), bottom);
+    }
+}
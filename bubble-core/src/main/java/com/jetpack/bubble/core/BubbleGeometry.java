@@ -0,0 +1,162 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * Position math of FloatingView with primitive inputs and outputs.<br/>
+ * The limit rect is the range of the window position(FloatingView#mPositionLimitRect).
+ */
+public final class BubbleGeometry {
+
+    /**
+     * 左右の近い方向に移動
+     */
+    public static final int MOVE_DIRECTION_DEFAULT = 0;
+
+    /**
+     * 常に左に移動
+     */
+    public static final int MOVE_DIRECTION_LEFT = 1;
+
+    /**
+     * 常に右に移動
+     */
+    public static final int MOVE_DIRECTION_RIGHT = 2;
+
+    /**
+     * 移動しない
+     */
+    public static final int MOVE_DIRECTION_NONE = 3;
+
+    /**
+     * 側に近づく方向に移動します
+     */
+    public static final int MOVE_DIRECTION_NEAREST = 4;
+
+    /**
+     * Goes in the direction in which it is thrown
+     */
+    public static final int MOVE_DIRECTION_THROWN = 5;
+
+    private BubbleGeometry() {
+    }
+
+    /**
+     * Get the final point of movement (X coordinate)
+     *
+     * @param moveDirection  MOVE_DIRECTION_XXX
+     * @param startX         Initial value of X coordinate
+     * @param startY         Initial value of Y coordinate
+     * @param limitLeft      left of the limit rect
+     * @param limitTop       top of the limit rect
+     * @param limitRight     right of the limit rect
+     * @param limitBottom    bottom of the limit rect
+     * @param screenWidth    width of the screen
+     * @param viewWidth      width of the FloatingView
+     * @param xVelocity      X velocity of the release(0 if unknown)
+     * @param throwThreshold velocity to regard the release as a throw
+     * @return End point of X coordinate
+     */
+    public static int goalPositionX(int moveDirection, int startX, int startY,
+                             int limitLeft, int limitTop, int limitRight, int limitBottom,
+                             int screenWidth, int viewWidth, float xVelocity, float throwThreshold) {
+        int goalPositionX = startX;
+
+        // Move to left or right edges
+        if (moveDirection == MOVE_DIRECTION_DEFAULT) {
+            final boolean isMoveRightEdge = startX > (screenWidth - viewWidth) / 2;
+            goalPositionX = isMoveRightEdge ? limitRight : limitLeft;
+        }
+        // Move to left edges
+        else if (moveDirection == MOVE_DIRECTION_LEFT) {
+            goalPositionX = limitLeft;
+        }
+        // Move to right edges
+        else if (moveDirection == MOVE_DIRECTION_RIGHT) {
+            goalPositionX = limitRight;
+        }
+        // Move to top/bottom/left/right edges
+        else if (moveDirection == MOVE_DIRECTION_NEAREST) {
+            final int distLeftRight = Math.min(startX, (limitRight - limitLeft) - startX);
+            final int distTopBottom = Math.min(startY, (limitBottom - limitTop) - startY);
+            if (distLeftRight < distTopBottom) {
+                final boolean isMoveRightEdge = startX > (screenWidth - viewWidth) / 2;
+                goalPositionX = isMoveRightEdge ? limitRight : limitLeft;
+            }
+        }
+        // Move in the direction in which it is thrown
+        else if (moveDirection == MOVE_DIRECTION_THROWN) {
+            if (xVelocity > throwThreshold) {
+                goalPositionX = limitRight;
+            } else if (xVelocity < -throwThreshold) {
+                goalPositionX = limitLeft;
+            } else {
+                final boolean isMoveRightEdge = startX > (screenWidth - viewWidth) / 2;
+                goalPositionX = isMoveRightEdge ? limitRight : limitLeft;
+            }
+        }
+
+        return goalPositionX;
+    }
+
+    /**
+     * Get the final point of movement (Y coordinate)
+     *
+     * @param moveDirection MOVE_DIRECTION_XXX
+     * @param startX        Initial value of X coordinate
+     * @param startY        Initial value of Y coordinate
+     * @param limitLeft     left of the limit rect
+     * @param limitTop      top of the limit rect
+     * @param limitRight    right of the limit rect
+     * @param limitBottom   bottom of the limit rect
+     * @param screenHeight  height of the screen
+     * @param viewHeight    height of the FloatingView
+     * @return End point of Y coordinate
+     */
+    public static int goalPositionY(int moveDirection, int startX, int startY,
+                             int limitLeft, int limitTop, int limitRight, int limitBottom,
+                             int screenHeight, int viewHeight) {
+        int goalPositionY = startY;
+
+        // Move to top/bottom/left/right edges
+        if (moveDirection == MOVE_DIRECTION_NEAREST) {
+            final int distLeftRight = Math.min(startX, (limitRight - limitLeft) - startX);
+            final int distTopBottom = Math.min(startY, (limitBottom - limitTop) - startY);
+            if (distLeftRight >= distTopBottom) {
+                final boolean isMoveTopEdge = startY < (screenHeight - viewHeight) / 2;
+                goalPositionY = isMoveTopEdge ? limitTop : limitBottom;
+            }
+        }
+
+        return goalPositionY;
+    }
+
+    /**
+     * Keep the relative position in the limit range when its size changes(e.g. screen rotation).
+     *
+     * @param position current position
+     * @param oldSize  size of the limit range before the change
+     * @param newSize  size of the limit range after the change
+     * @param min      lower limit after the change
+     * @param max      upper limit after the change
+     * @return new position
+     */
+    public static int rescalePosition(int position, int oldSize, int newSize, int min, int max) {
+        final int newPosition = (int) (position * newSize / (float) oldSize + 0.5f);
+        return Math.min(Math.max(min, newPosition), max);
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * Source of the current time. The Android adapter reads SystemClock.uptimeMillis(),
+ * the simulator uses {@link VirtualTimeline}.
+ */
+public interface Clock {
+
+    /**
+     * @return milliseconds since an arbitrary origin(same time base as the frame times)
+     */
+    long uptimeMillis();
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * Tracking curve of a critically damped spring. It approaches the target without overshooting.<br/>
+ * The curve is scaled so that it reaches the target exactly at time rate 1.
+ */
+public final class CriticallyDampedTrackingCurve implements TrackingCurve {
+
+    /**
+     * Natural frequency of the spring multiplied by the duration of the tracking
+     */
+    private final float mOmega;
+
+    /**
+     * Scale so that the position is 1 at time rate 1
+     */
+    private final float mScale;
+
+    /**
+     * コンストラクタ
+     *
+     * @param omega natural frequency of the spring multiplied by the duration of the tracking
+     */
+    public CriticallyDampedTrackingCurve(float omega) {
+        mOmega = omega;
+        mScale = 1 / (float) (1 - (1 + omega) * Math.exp(-omega));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float getPosition(float timeRate) {
+        if (timeRate >= 1) {
+            return 1;
+        }
+        final float t = mOmega * Math.max(timeRate, 0);
+        // x(t) = 1 - (1 + ωt)e^(-ωt)
+        return (1 - (1 + t) * (float) Math.exp(-t)) * mScale;
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * Source of display frames and delayed tasks(Choreographer and the main Looper on a device,
+ * {@link VirtualTimeline} in the simulator).
+ */
+public interface FrameSource {
+
+    /**
+     * Run the callback once in the next frame. Posting a posted callback again does nothing.
+     *
+     * @param callback {@link FrameCallback}
+     */
+    void postFrameCallback(FrameCallback callback);
+
+    /**
+     * Remove a callback posted by {@link #postFrameCallback(FrameCallback)}.
+     *
+     * @param callback {@link FrameCallback}
+     */
+    void removeFrameCallback(FrameCallback callback);
+
+    /**
+     * Run the task after the delay on the thread of the frames(same as Handler#postDelayed).
+     *
+     * @param task        task
+     * @param delayMillis delay(ms, on the time base of {@link Clock#uptimeMillis()})
+     */
+    void postDelayed(Runnable task, long delayMillis);
+
+    /**
+     * Remove the pending runs of a task posted by {@link #postDelayed(Runnable, long)}.
+     *
+     * @param task task
+     */
+    void removeCallbacks(Runnable task);
+
+    /**
+     * Callback of a display frame.
+     */
+    interface FrameCallback {
+
+        /**
+         * @param frameTimeNanos time of the frame(ns, same time base as {@link Clock#uptimeMillis()})
+         */
+        void doFrame(long frameTimeNanos);
+    }
+}
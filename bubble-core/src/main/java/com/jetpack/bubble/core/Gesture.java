@@ -0,0 +1,104 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * Synthetic touch gesture in screen coordinates(top-left origin) for a simulated session.<br/>
+ * The first sample is the down, the last one is the up.
+ */
+public final class Gesture {
+
+    /**
+     * Interval of the touch samples(120Hz input)
+     */
+    public static final long SAMPLE_INTERVAL_MILLIS = 8L;
+
+    private final float[] mX;
+    private final float[] mY;
+    private final long[] mTime;
+
+    private Gesture(int sampleCount) {
+        mX = new float[sampleCount];
+        mY = new float[sampleCount];
+        mTime = new long[sampleCount];
+    }
+
+    /**
+     * Straight drag that rests on the end point before the release.
+     *
+     * @param fromX          down X coordinate
+     * @param fromY          down Y coordinate
+     * @param toX            up X coordinate
+     * @param toY            up Y coordinate
+     * @param durationMillis duration of the move(ms)
+     * @param holdMillis     time resting on the end point(ms)
+     * @return {@link Gesture}
+     */
+    public static Gesture drag(float fromX, float fromY, float toX, float toY, long durationMillis, long holdMillis) {
+        final int moveSamples = (int) Math.max(durationMillis / SAMPLE_INTERVAL_MILLIS, 1);
+        final int holdSamples = (int) (holdMillis / SAMPLE_INTERVAL_MILLIS);
+        final Gesture gesture = new Gesture(moveSamples + holdSamples + 1);
+        for (int i = 0; i <= moveSamples; i++) {
+            final float rate = i / (float) moveSamples;
+            gesture.set(i, fromX + (toX - fromX) * rate, fromY + (toY - fromY) * rate, i * SAMPLE_INTERVAL_MILLIS);
+        }
+        for (int i = 1; i <= holdSamples; i++) {
+            gesture.set(moveSamples + i, toX, toY, (moveSamples + i) * SAMPLE_INTERVAL_MILLIS);
+        }
+        return gesture;
+    }
+
+    /**
+     * Short drag released while moving at a constant velocity.
+     *
+     * @param fromX          down X coordinate
+     * @param fromY          down Y coordinate
+     * @param velocityX      X velocity(px/s)
+     * @param velocityY      Y velocity(px/s)
+     * @param durationMillis duration of the move(ms)
+     * @return {@link Gesture}
+     */
+    public static Gesture fling(float fromX, float fromY, float velocityX, float velocityY, long durationMillis) {
+        return drag(fromX, fromY, fromX + velocityX * durationMillis / 1000f, fromY + velocityY * durationMillis / 1000f, durationMillis, 0);
+    }
+
+    private void set(int index, float x, float y, long timeMillis) {
+        mX[index] = x;
+        mY[index] = y;
+        mTime[index] = timeMillis;
+    }
+
+    public int getSampleCount() {
+        return mX.length;
+    }
+
+    public float getX(int index) {
+        return mX[index];
+    }
+
+    public float getY(int index) {
+        return mY[index];
+    }
+
+    /**
+     * @param index sample index
+     * @return time of the sample relative to the down(ms)
+     */
+    public long getTimeMillis(int index) {
+        return mTime[index];
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * Tracking curve sampled into a table. Each call is a table read and a linear interpolation.
+ */
+public final class LookupTableTrackingCurve implements TrackingCurve {
+
+    /**
+     * Sampled positions(size + 1 values from time rate 0 to 1)
+     */
+    private final float[] mTable;
+
+    /**
+     * Number of intervals of the table
+     */
+    private final int mSize;
+
+    /**
+     * コンストラクタ
+     *
+     * @param source curve to sample
+     * @param size   number of intervals between time rate 0 and 1
+     */
+    public LookupTableTrackingCurve(TrackingCurve source, int size) {
+        mSize = size;
+        mTable = new float[size + 1];
+        for (int i = 0; i <= size; i++) {
+            mTable[i] = source.getPosition(i / (float) size);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float getPosition(float timeRate) {
+        if (timeRate <= 0) {
+            return mTable[0];
+        }
+        if (timeRate >= 1) {
+            return mTable[mSize];
+        }
+        final float position = timeRate * mSize;
+        final int index = (int) position;
+        final float fraction = position - index;
+        final float from = mTable[index];
+        return from + (mTable[index + 1] - from) * fraction;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * Low-pass filter whose cutoff frequency rises with the speed of the signal(One Euro filter).<br/>
+ * A resting finger is smoothed strongly, and a moving finger is followed with little lag.
+ * The output never lags the input by more than the max deviation, so it settles even if the input stops arriving.
+ */
+public final class OneEuroFilter {
+
+    /**
+     * Cutoff frequency of the speed(Hz)
+     */
+    private static final float DERIVATE_CUTOFF = 1f;
+
+    /**
+     * Cutoff frequency when the signal is still(Hz)
+     */
+    private final float mMinCutoff;
+
+    /**
+     * Increase of the cutoff frequency per speed(Hz per px/s)
+     */
+    private final float mBeta;
+
+    /**
+     * Largest distance between the input and the output
+     */
+    private final float mMaxDeviation;
+
+    private boolean mHasValue;
+    private float mValue;
+    private float mSpeed;
+    private long mLastTimeMillis;
+
+    /**
+     * コンストラクタ
+     *
+     * @param minCutoff    cutoff frequency when the signal is still(Hz)
+     * @param beta         increase of the cutoff frequency per speed(Hz per px/s)
+     * @param maxDeviation largest distance between the input and the output
+     */
+    public OneEuroFilter(float minCutoff, float beta, float maxDeviation) {
+        mMinCutoff = minCutoff;
+        mBeta = beta;
+        mMaxDeviation = maxDeviation;
+    }
+
+    /**
+     * Filter a new sample.
+     *
+     * @param value      sample
+     * @param timeMillis time of the sample(ms)
+     * @return filtered value
+     */
+    public float filter(float value, long timeMillis) {
+        if (!mHasValue) {
+            mHasValue = true;
+            mValue = value;
+            mSpeed = 0;
+            mLastTimeMillis = timeMillis;
+            return mValue;
+        }
+        final float deltaSeconds = (timeMillis - mLastTimeMillis) / 1000f;
+        mLastTimeMillis = timeMillis;
+        // Samples with the same time are treated as one frame apart
+        final float dt = deltaSeconds > 0 ? deltaSeconds : 1 / 60f;
+
+        final float speed = (value - mValue) / dt;
+        mSpeed += alpha(DERIVATE_CUTOFF, dt) * (speed - mSpeed);
+        final float cutoff = mMinCutoff + mBeta * Math.abs(mSpeed);
+        mValue += alpha(cutoff, dt) * (value - mValue);
+        mValue = Math.min(Math.max(mValue, value - mMaxDeviation), value + mMaxDeviation);
+        return mValue;
+    }
+
+    /**
+     * @return true if at least one sample has been filtered since {@link #reset()}
+     */
+    public boolean hasValue() {
+        return mHasValue;
+    }
+
+    /**
+     * @return last filtered value
+     */
+    public float getValue() {
+        return mValue;
+    }
+
+    /**
+     * Forget the samples.
+     */
+    public void reset() {
+        mHasValue = false;
+    }
+
+    /**
+     * Smoothing factor of an exponential filter with the cutoff frequency.
+     */
+    private static float alpha(float cutoff, float dt) {
+        final float tau = (float) (1 / (2 * Math.PI * cutoff));
+        return 1 / (1 + tau / dt);
+    }
+}
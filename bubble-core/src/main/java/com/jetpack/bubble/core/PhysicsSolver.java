@@ -0,0 +1,324 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * 2D spring/fling solver that steps both axes at once.<br/>
+ * The equations and the end conditions are the same as SpringAnimation and FlingAnimation of androidx.dynamicanimation,
+ * but the instance is reusable and stepping it does not allocate.
+ */
+public final class PhysicsSolver {
+
+    /**
+     * Friction multiplier of FlingAnimation
+     */
+    private static final float UNIT_FRICTION = -4.2f;
+
+    /**
+     * Value threshold multiplier of DynamicAnimation
+     */
+    private static final float THRESHOLD_MULTIPLIER = 0.75f;
+
+    /**
+     * Velocity threshold multiplier of DynamicAnimation(per second)
+     */
+    private static final float VELOCITY_THRESHOLD_MULTIPLIER = 1000f / 16f;
+
+    /**
+     * Start velocities closer than this share the same key(px/s)
+     */
+    private static final float KEY_VELOCITY_QUANTUM = 20f;
+
+    /**
+     * Size of the key written by {@link #writeKey(int[])}
+     */
+    public static final int KEY_SIZE = Axis.KEY_SIZE * 2;
+
+    /**
+     * X coordinate
+     */
+    private final Axis mX;
+
+    /**
+     * Y coordinate
+     */
+    private final Axis mY;
+
+    /**
+     * コンストラクタ
+     *
+     * @param minimumVisibleChange Minimum visible change of the value(px)
+     */
+    public PhysicsSolver(float minimumVisibleChange) {
+        final float valueThreshold = minimumVisibleChange * THRESHOLD_MULTIPLIER;
+        final float velocityThreshold = valueThreshold * VELOCITY_THRESHOLD_MULTIPLIER;
+        mX = new Axis(valueThreshold, velocityThreshold);
+        mY = new Axis(valueThreshold, velocityThreshold);
+    }
+
+    /**
+     * Start spring animation(X coordinate)
+     *
+     * @param value         start value
+     * @param velocity      start velocity(px/s)
+     * @param finalPosition rest position of the spring
+     * @param stiffness     stiffness of the spring
+     * @param dampingRatio  damping ratio of the spring
+     */
+    public void startSpringX(float value, float velocity, float finalPosition, float stiffness, float dampingRatio) {
+        mX.startSpring(value, velocity, finalPosition, stiffness, dampingRatio);
+    }
+
+    /**
+     * Start spring animation(Y coordinate)
+     *
+     * @see #startSpringX(float, float, float, float, float)
+     */
+    public void startSpringY(float value, float velocity, float finalPosition, float stiffness, float dampingRatio) {
+        mY.startSpring(value, velocity, finalPosition, stiffness, dampingRatio);
+    }
+
+    /**
+     * Start fling animation(X coordinate)
+     *
+     * @param value    start value
+     * @param velocity start velocity(px/s)
+     * @param friction friction of the fling
+     * @param minValue lower limit of the value
+     * @param maxValue upper limit of the value
+     */
+    public void startFlingX(float value, float velocity, float friction, float minValue, float maxValue) {
+        mX.startFling(value, velocity, friction, minValue, maxValue);
+    }
+
+    /**
+     * Start fling animation(Y coordinate)
+     *
+     * @see #startFlingX(float, float, float, float, float)
+     */
+    public void startFlingY(float value, float velocity, float friction, float minValue, float maxValue) {
+        mY.startFling(value, velocity, friction, minValue, maxValue);
+    }
+
+    /**
+     * Advance both axes.
+     *
+     * @param deltaMillis elapsed time since the last step(ms)
+     * @return true if at least one axis is still moving
+     */
+    public boolean step(long deltaMillis) {
+        mX.step(deltaMillis);
+        mY.step(deltaMillis);
+        return isRunning();
+    }
+
+    /**
+     * Stop both axes at the current position.
+     */
+    public void cancel() {
+        mX.mMode = Axis.MODE_NONE;
+        mY.mMode = Axis.MODE_NONE;
+    }
+
+    /**
+     * @return true if at least one axis is moving
+     */
+    public boolean isRunning() {
+        return mX.mMode != Axis.MODE_NONE || mY.mMode != Axis.MODE_NONE;
+    }
+
+    /**
+     * Write the start conditions of both axes. Two solvers started with the same key move along the same path.
+     *
+     * @param key array of {@link #KEY_SIZE}
+     */
+    public void writeKey(int[] key) {
+        mX.writeKey(key, 0);
+        mY.writeKey(key, Axis.KEY_SIZE);
+    }
+
+    public float getX() {
+        return mX.mValue;
+    }
+
+    public float getY() {
+        return mY.mValue;
+    }
+
+    public float getVelocityX() {
+        return mX.mVelocity;
+    }
+
+    public float getVelocityY() {
+        return mY.mVelocity;
+    }
+
+    /**
+     * State of one axis.
+     */
+    private static final class Axis {
+
+        static final int MODE_NONE = 0;
+        static final int MODE_SPRING = 1;
+        static final int MODE_FLING = 2;
+
+        static final int KEY_SIZE = 6;
+
+        /**
+         * Threshold to regard the spring as settled(px)
+         */
+        private final float mValueThreshold;
+
+        /**
+         * Threshold to regard the motion as stopped(px/s)
+         */
+        private final float mVelocityThreshold;
+
+        int mMode;
+        float mValue;
+        float mVelocity;
+
+        /**
+         * Spring parameters
+         */
+        private float mFinalPosition;
+        private double mNaturalFreq;
+        private double mDampingRatio;
+
+        /**
+         * Fling parameters
+         */
+        private float mFriction;
+        private float mMinValue;
+        private float mMaxValue;
+
+        Axis(float valueThreshold, float velocityThreshold) {
+            mValueThreshold = valueThreshold;
+            mVelocityThreshold = velocityThreshold;
+        }
+
+        void startSpring(float value, float velocity, float finalPosition, float stiffness, float dampingRatio) {
+            mMode = MODE_SPRING;
+            mValue = value;
+            mVelocity = velocity;
+            mFinalPosition = finalPosition;
+            mNaturalFreq = Math.sqrt(stiffness);
+            mDampingRatio = dampingRatio;
+        }
+
+        void startFling(float value, float velocity, float friction, float minValue, float maxValue) {
+            mMode = MODE_FLING;
+            mValue = value;
+            mVelocity = velocity;
+            mFriction = friction * UNIT_FRICTION;
+            mMinValue = minValue;
+            mMaxValue = maxValue;
+        }
+
+        void writeKey(int[] key, int offset) {
+            key[offset] = mMode;
+            key[offset + 1] = Math.round(mValue);
+            key[offset + 2] = Math.round(mVelocity / KEY_VELOCITY_QUANTUM);
+            if (mMode == MODE_SPRING) {
+                key[offset + 3] = Float.floatToIntBits(mFinalPosition);
+                key[offset + 4] = Float.floatToIntBits((float) mNaturalFreq);
+                key[offset + 5] = Float.floatToIntBits((float) mDampingRatio);
+            } else if (mMode == MODE_FLING) {
+                key[offset + 3] = Float.floatToIntBits(mFriction);
+                key[offset + 4] = Float.floatToIntBits(mMinValue);
+                key[offset + 5] = Float.floatToIntBits(mMaxValue);
+            } else {
+                key[offset + 3] = 0;
+                key[offset + 4] = 0;
+                key[offset + 5] = 0;
+            }
+        }
+
+        void step(long deltaMillis) {
+            if (mMode == MODE_SPRING) {
+                stepSpring(deltaMillis / 1000.0);
+            } else if (mMode == MODE_FLING) {
+                stepFling(deltaMillis / 1000.0);
+            }
+        }
+
+        /**
+         * Closed-form damped harmonic oscillator(same as SpringForce#updateValues)
+         */
+        private void stepSpring(double deltaT) {
+            final double omega = mNaturalFreq;
+            final double zeta = mDampingRatio;
+            final double lastDisplacement = mValue - mFinalPosition;
+            final double lastVelocity = mVelocity;
+            final double displacement;
+            final double currentVelocity;
+            if (zeta > 1) {
+                // Overdamped
+                final double root = omega * Math.sqrt(zeta * zeta - 1);
+                final double gammaPlus = -zeta * omega + root;
+                final double gammaMinus = -zeta * omega - root;
+                final double coeffB = (gammaMinus * lastDisplacement - lastVelocity) / (gammaMinus - gammaPlus);
+                final double coeffA = lastDisplacement - coeffB;
+                final double expMinus = Math.exp(gammaMinus * deltaT);
+                final double expPlus = Math.exp(gammaPlus * deltaT);
+                displacement = coeffA * expMinus + coeffB * expPlus;
+                currentVelocity = coeffA * gammaMinus * expMinus + coeffB * gammaPlus * expPlus;
+            } else if (zeta == 1) {
+                // Critically damped
+                final double coeffA = lastDisplacement;
+                final double coeffB = lastVelocity + omega * lastDisplacement;
+                final double exp = Math.exp(-omega * deltaT);
+                displacement = (coeffA + coeffB * deltaT) * exp;
+                currentVelocity = displacement * -omega + coeffB * exp;
+            } else {
+                // Underdamped
+                final double dampedFreq = omega * Math.sqrt(1 - zeta * zeta);
+                final double cosCoeff = lastDisplacement;
+                final double sinCoeff = (zeta * omega * lastDisplacement + lastVelocity) / dampedFreq;
+                final double exp = Math.exp(-zeta * omega * deltaT);
+                final double cos = Math.cos(dampedFreq * deltaT);
+                final double sin = Math.sin(dampedFreq * deltaT);
+                displacement = exp * (cosCoeff * cos + sinCoeff * sin);
+                currentVelocity = displacement * -omega * zeta + exp * (-dampedFreq * cosCoeff * sin + dampedFreq * sinCoeff * cos);
+            }
+            mValue = (float) (displacement + mFinalPosition);
+            mVelocity = (float) currentVelocity;
+
+            if (Math.abs(mVelocity) < mVelocityThreshold && Math.abs(mValue - mFinalPosition) < mValueThreshold) {
+                mValue = mFinalPosition;
+                mVelocity = 0;
+                mMode = MODE_NONE;
+            }
+        }
+
+        /**
+         * Exponential decay with friction(same as FlingAnimation.DragForce)
+         */
+        private void stepFling(double deltaT) {
+            final double velocity = mVelocity;
+            final double decay = Math.exp(mFriction * deltaT);
+            mVelocity = (float) (velocity * decay);
+            mValue = (float) (mValue - velocity / mFriction + velocity / mFriction * decay);
+            mValue = Math.min(Math.max(mValue, mMinValue), mMaxValue);
+
+            if (mValue <= mMinValue || mValue >= mMaxValue || Math.abs(mVelocity) < mVelocityThreshold) {
+                mVelocity = 0;
+                mMode = MODE_NONE;
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * Original tracking curve of FloatingView.<br/>
+ * It overshoots the target a little and comes back. This is the reference of the other curves.
+ */
+public final class PiecewiseTrackingCurve implements TrackingCurve {
+
+    /**
+     * アニメーション時間から求められる位置を計算します。
+     *
+     * @param timeRate 時間比率
+     * @return ベースとなる係数(0.0から1.0 ＋ α)
+     */
+    @Override
+    public float getPosition(float timeRate) {
+        final float position;
+        // y=0.55sin(8.0564x-π/2)+0.55
+        if (timeRate <= 0.4) {
+            position = (float) (0.55 * Math.sin(8.0564 * timeRate - Math.PI / 2) + 0.55);
+        }
+        // y=4(0.417x-0.341)^2-4(0.417-0.341)^2+1
+        else {
+            position = (float) (4 * Math.pow(0.417 * timeRate - 0.341, 2) - 4 * Math.pow(0.417 - 0.341, 2) + 1);
+        }
+        return position;
+    }
+}
@@ -0,0 +1,312 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * Status bar and navigation bar offsets of the screen, and the limits of the bubble derived from them.<br/>
+ * All inputs are primitives read from the platform by the caller.
+ */
+public final class ScreenLayout {
+
+    /**
+     * Height of the status bar in portrait(px)
+     */
+    private final int mBaseStatusBarHeight;
+
+    /**
+     * Height of the status bar in landscape(px)
+     */
+    private final int mBaseStatusBarRotatedHeight;
+
+    /**
+     * Height of the navigation bar in portrait(px, 0 if there is no software navigation bar)
+     */
+    private final int mBaseNavigationBarHeight;
+
+    /**
+     * Height(tablet) or width(phone) of the navigation bar in landscape(px, 0 if there is no software navigation bar)
+     */
+    private final int mBaseNavigationBarRotatedHeight;
+
+    /**
+     * True if the device is a tablet(navigation bar stays at the bottom in landscape)
+     */
+    private final boolean mIsTablet;
+
+    private int mStatusBarHeight;
+    private int mNavigationBarVerticalOffset;
+    private int mNavigationBarHorizontalOffset;
+    private int mTouchXOffset;
+    private int mTouchYOffset;
+
+    /**
+     * コンストラクタ
+     *
+     * @param baseStatusBarHeight            height of the status bar in portrait(px)
+     * @param baseStatusBarRotatedHeight     height of the status bar in landscape(px)
+     * @param baseNavigationBarHeight        height of the navigation bar in portrait(px)
+     * @param baseNavigationBarRotatedHeight height(tablet) or width(phone) of the navigation bar in landscape(px)
+     * @param isTablet                       true if the device is a tablet
+     */
+    public ScreenLayout(int baseStatusBarHeight, int baseStatusBarRotatedHeight,
+                        int baseNavigationBarHeight, int baseNavigationBarRotatedHeight, boolean isTablet) {
+        mBaseStatusBarHeight = baseStatusBarHeight;
+        mBaseStatusBarRotatedHeight = baseStatusBarRotatedHeight;
+        mBaseNavigationBarHeight = baseNavigationBarHeight;
+        mBaseNavigationBarRotatedHeight = baseNavigationBarRotatedHeight;
+        mIsTablet = isTablet;
+    }
+
+    /**
+     * Update the offsets after the layout of the system has changed.
+     *
+     * @param isHideStatusBar            If true, the status bar is hidden
+     * @param isHideNavigationBar        If true, the navigation bar is hidden
+     * @param isPortrait                 If true, the device orientation is portrait
+     * @param hasSoftNavigationBar       If true, there is a software navigation bar
+     * @param safeInsetTop               top of the display cutout safe inset(px)
+     * @param safeInsetBottom            bottom of the display cutout safe inset(px)
+     * @param windowLeft                 left side offset of the system window(px)
+     * @param currentNavigationBarHeight real display height minus the bottom of the system window(px)
+     * @param currentNavigationBarWidth  real display width minus the window width(px)
+     */
+    public void update(boolean isHideStatusBar, boolean isHideNavigationBar, boolean isPortrait, boolean hasSoftNavigationBar,
+                       int safeInsetTop, int safeInsetBottom, int windowLeft,
+                       int currentNavigationBarHeight, int currentNavigationBarWidth) {
+        updateStatusBarHeight(isHideStatusBar, isPortrait, safeInsetTop);
+        updateTouchXOffset(isHideNavigationBar, windowLeft, safeInsetBottom);
+        // touch Y offset(support Cutout)
+        mTouchYOffset = isPortrait ? safeInsetTop : 0;
+        updateNavigationBarOffset(isHideNavigationBar, isPortrait, hasSoftNavigationBar, currentNavigationBarHeight, currentNavigationBarWidth);
+    }
+
+    /**
+     * Update the offsets from the exact insets of the system bars(Android 11 and later).<br/>
+     * Unlike {@link #update}, nothing is inferred from the base dimensions or the difference of the display sizes.
+     *
+     * @param isHideStatusBar          If true, the status bar is hidden
+     * @param isHideNavigationBar      If true, the navigation bar is hidden
+     * @param isPortrait               If true, the device orientation is portrait
+     * @param safeInsetTop             top of the display cutout safe inset(px)
+     * @param windowLeft               left side offset of the system window(px)
+     * @param statusBarInsetTop        top inset of the status bar regardless of its visibility(px)
+     * @param navigationBarInsetLeft   left inset of the navigation bar regardless of its visibility(px)
+     * @param navigationBarInsetRight  right inset of the navigation bar regardless of its visibility(px)
+     * @param navigationBarInsetBottom bottom inset of the navigation bar regardless of its visibility(px)
+     */
+    public void updateFromInsets(boolean isHideStatusBar, boolean isHideNavigationBar, boolean isPortrait,
+                                 int safeInsetTop, int windowLeft, int statusBarInsetTop,
+                                 int navigationBarInsetLeft, int navigationBarInsetRight, int navigationBarInsetBottom) {
+        // The status bar is not included in the display height when there is a top cutout in portrait
+        mStatusBarHeight = isHideStatusBar || isPortrait && safeInsetTop != 0 ? 0 : statusBarInsetTop;
+        // The visible frame starts right of the navigation bar or the cutout on the left side
+        mTouchXOffset = windowLeft;
+        mTouchYOffset = isPortrait ? safeInsetTop : 0;
+        // A hidden navigation bar gives its area to the bubble
+        if (isHideNavigationBar) {
+            mNavigationBarVerticalOffset = navigationBarInsetBottom;
+            mNavigationBarHorizontalOffset = Math.max(navigationBarInsetLeft, navigationBarInsetRight);
+        } else {
+            mNavigationBarVerticalOffset = 0;
+            mNavigationBarHorizontalOffset = 0;
+        }
+    }
+
+    /**
+     * Update height of StatusBar.
+     */
+    private void updateStatusBarHeight(boolean isHideStatusBar, boolean isPortrait, int safeInsetTop) {
+        if (isHideStatusBar) {
+            // 1.(No Cutout)No StatusBar(=0)
+            // 2.(Has Cutout)StatusBar is not included in the display height (=0)
+            mStatusBarHeight = 0;
+            return;
+        }
+
+        // Has Cutout
+        final boolean hasTopCutout = safeInsetTop != 0;
+        if (hasTopCutout) {
+            if (isPortrait) {
+                mStatusBarHeight = 0;
+            } else {
+                mStatusBarHeight = mBaseStatusBarRotatedHeight;
+            }
+            return;
+        }
+
+        // No cutout
+        if (isPortrait) {
+            mStatusBarHeight = mBaseStatusBarHeight;
+        } else {
+            mStatusBarHeight = mBaseStatusBarRotatedHeight;
+        }
+    }
+
+    /**
+     * Update of touch X coordinate
+     */
+    private void updateTouchXOffset(boolean isHideNavigationBar, int windowLeftOffset, int safeInsetBottom) {
+        final boolean hasBottomCutout = safeInsetBottom != 0;
+        if (hasBottomCutout) {
+            mTouchXOffset = windowLeftOffset;
+            return;
+        }
+
+        // No cutout
+        // touch X offset(navigation bar is displayed and it is on the left side of the device)
+        mTouchXOffset = !isHideNavigationBar && windowLeftOffset > 0 ? mBaseNavigationBarRotatedHeight : 0;
+    }
+
+    /**
+     * Update offset of NavigationBar.
+     */
+    private void updateNavigationBarOffset(boolean isHideNavigationBar, boolean isPortrait, boolean hasSoftNavigationBar,
+                                           int currentNavigationBarHeight, int currentNavigationBarWidth) {
+        final int navigationBarVerticalDiff = mBaseNavigationBarHeight - currentNavigationBarHeight;
+
+        if (!isHideNavigationBar) {
+            // auto hide navigation bar
+            // 他デバイスとの矛盾をもとに推測する
+            // 1.デバイスに組み込まれたナビゲーションバー（mBaseNavigationBarHeight == 0）はシステムの状態によって高さに差が発生しない
+            // 2.デバイスに組み込まれたナビゲーションバー(!hasSoftNavigationBar)は意図的にBaseを0にしているので、矛盾している
+            if (navigationBarVerticalDiff != 0 && mBaseNavigationBarHeight == 0 ||
+                    !hasSoftNavigationBar && mBaseNavigationBarHeight != 0) {
+                if (hasSoftNavigationBar) {
+                    // 1.auto hide mode -> show mode
+                    // 2.show mode -> auto hide mode -> home
+                    mNavigationBarVerticalOffset = 0;
+                } else {
+                    // show mode -> home
+                    mNavigationBarVerticalOffset = -currentNavigationBarHeight;
+                }
+            } else {
+                // normal device
+                mNavigationBarVerticalOffset = 0;
+            }
+
+            mNavigationBarHorizontalOffset = 0;
+            return;
+        }
+
+        // If the portrait, is displayed at the bottom of the screen
+        if (isPortrait) {
+            // auto hide navigation bar
+            if (!hasSoftNavigationBar && mBaseNavigationBarHeight != 0) {
+                mNavigationBarVerticalOffset = 0;
+            } else {
+                mNavigationBarVerticalOffset = mBaseNavigationBarHeight;
+            }
+            mNavigationBarHorizontalOffset = 0;
+            return;
+        }
+
+        // If it is a Tablet, it will appear at the bottom of the screen.
+        // If it is Phone, it will appear on the side of the screen
+        if (mIsTablet) {
+            mNavigationBarVerticalOffset = mBaseNavigationBarRotatedHeight;
+            mNavigationBarHorizontalOffset = 0;
+        } else {
+            mNavigationBarVerticalOffset = 0;
+            // auto hide navigation bar
+            // 他デバイスとの矛盾をもとに推測する
+            // 1.デバイスに組み込まれたナビゲーションバー(!hasSoftNavigationBar)は、意図的にBaseを0にしているので、矛盾している
+            if (!hasSoftNavigationBar && mBaseNavigationBarRotatedHeight != 0) {
+                mNavigationBarHorizontalOffset = 0;
+            } else if (hasSoftNavigationBar && mBaseNavigationBarRotatedHeight == 0) {
+                // 2.ソフトナビゲーションバーの場合、Baseが設定されるため矛盾している
+                mNavigationBarHorizontalOffset = currentNavigationBarWidth;
+            } else {
+                mNavigationBarHorizontalOffset = mBaseNavigationBarRotatedHeight;
+            }
+        }
+    }
+
+    /**
+     * Range the bubble may be dragged to(it may go off the screen).
+     *
+     * @param out          result
+     * @param screenWidth  width of the display(px)
+     * @param screenHeight height of the display(px)
+     * @param viewWidth    width of the bubble(px)
+     * @param viewHeight   height of the bubble(px)
+     */
+    public void computeMoveLimit(Bounds out, int screenWidth, int screenHeight, int viewWidth, int viewHeight) {
+        out.set(-viewWidth, -viewHeight * 2,
+                screenWidth + viewWidth + mNavigationBarHorizontalOffset,
+                screenHeight + viewHeight + mNavigationBarVerticalOffset);
+    }
+
+    /**
+     * Range the bubble may rest in.
+     *
+     * @param out          result
+     * @param screenWidth  width of the display(px)
+     * @param screenHeight height of the display(px)
+     * @param viewWidth    width of the bubble(px)
+     * @param viewHeight   height of the bubble(px)
+     * @param overMargin   margin the bubble may go beyond the left and right edges(px)
+     */
+    public void computePositionLimit(Bounds out, int screenWidth, int screenHeight, int viewWidth, int viewHeight, int overMargin) {
+        out.set(-overMargin, 0,
+                screenWidth - viewWidth + overMargin + mNavigationBarHorizontalOffset,
+                screenHeight - mStatusBarHeight - viewHeight + mNavigationBarVerticalOffset);
+    }
+
+    /**
+     * Window X coordinate of the bubble under the finger.
+     *
+     * @param screenTouchX touch X coordinate on the screen
+     * @param localTouchX  touch X coordinate in the bubble
+     * @return X coordinate of the window
+     */
+    public float windowXByTouch(float screenTouchX, float localTouchX) {
+        return screenTouchX - localTouchX - mTouchXOffset;
+    }
+
+    /**
+     * Window Y coordinate(from the bottom) of the bubble under the finger.
+     *
+     * @param screenTouchY touch Y coordinate on the screen
+     * @param localTouchY  touch Y coordinate in the bubble
+     * @param screenHeight height of the display(px)
+     * @param viewHeight   height of the bubble(px)
+     * @return Y coordinate of the window
+     */
+    public float windowYByTouch(float screenTouchY, float localTouchY, int screenHeight, int viewHeight) {
+        return screenHeight + mNavigationBarVerticalOffset - (screenTouchY - localTouchY + viewHeight - mTouchYOffset);
+    }
+
+    public int getStatusBarHeight() {
+        return mStatusBarHeight;
+    }
+
+    public int getNavigationBarVerticalOffset() {
+        return mNavigationBarVerticalOffset;
+    }
+
+    public int getNavigationBarHorizontalOffset() {
+        return mNavigationBarHorizontalOffset;
+    }
+
+    public int getTouchXOffset() {
+        return mTouchXOffset;
+    }
+
+    public int getTouchYOffset() {
+        return mTouchYOffset;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * Result of one simulated session(a gesture replayed on a {@link VirtualTimeline} and the animations after the release).
+ */
+public final class SimulationReport {
+
+    private final long mFrameCount;
+    private final long mCommitCount;
+    private final long mSettleMillis;
+    private final int mPeakPendingCount;
+    private final boolean mIsDropped;
+    private final int mFinalX;
+    private final int mFinalY;
+
+    /**
+     * コンストラクタ
+     */
+    public SimulationReport(long frameCount, long commitCount, long settleMillis, int peakPendingCount,
+                     boolean isDropped, int finalX, int finalY) {
+        mFrameCount = frameCount;
+        mCommitCount = commitCount;
+        mSettleMillis = settleMillis;
+        mPeakPendingCount = peakPendingCount;
+        mIsDropped = isDropped;
+        mFinalX = finalX;
+        mFinalY = finalY;
+    }
+
+    /**
+     * @return number of frames that ran at least one callback
+     */
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * @return number of window layouts sent(at most one per frame)
+     */
+    public long getCommitCount() {
+        return mCommitCount;
+    }
+
+    /**
+     * @return time from the release until no frame and no message is pending(ms), -1 if it never settled
+     */
+    public long getSettleMillis() {
+        return mSettleMillis;
+    }
+
+    /**
+     * @return largest number of frame callbacks and messages waiting at the same time
+     */
+    public int getPeakPendingCount() {
+        return mPeakPendingCount;
+    }
+
+    /**
+     * @return true if the bubble was released on the trash
+     */
+    public boolean isDropped() {
+        return mIsDropped;
+    }
+
+    /**
+     * @return window X coordinate at the end
+     */
+    public int getFinalX() {
+        return mFinalX;
+    }
+
+    /**
+     * @return window Y coordinate(bottom-left origin) at the end
+     */
+    public int getFinalY() {
+        return mFinalY;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationReport{frames=" + mFrameCount
+                + ", commits=" + mCommitCount
+                + ", settleMillis=" + mSettleMillis
+                + ", peakPending=" + mPeakPendingCount
+                + ", dropped=" + mIsDropped
+                + ", final=(" + mFinalX + ", " + mFinalY + ")}";
+    }
+}
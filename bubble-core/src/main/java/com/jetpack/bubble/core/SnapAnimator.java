@@ -0,0 +1,168 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * Overshoot curve from a start point to a goal point, computed with primitives only.<br/>
+ * The curve is the same as OvershootInterpolator. A start velocity is added with a Hermite term that is 0 at both ends,
+ * so a snap retargeted while moving continues smoothly and still stops exactly on the goal.
+ */
+public final class SnapAnimator {
+
+    /**
+     * Overshoot tension(same as OvershootInterpolator)
+     */
+    private final float mTension;
+
+    /**
+     * Duration of the snap(ms)
+     */
+    private final float mDuration;
+
+    private float mFromX;
+    private float mFromY;
+    private float mToX;
+    private float mToY;
+
+    /**
+     * Coefficient of the start velocity term(px)
+     */
+    private float mVelocityCoefX;
+    private float mVelocityCoefY;
+
+    /**
+     * Values at the last {@link #update(float)}
+     */
+    private float mX;
+    private float mY;
+    private float mVelocityX;
+    private float mVelocityY;
+
+    /**
+     * True while the snap is running
+     */
+    private boolean mIsRunning;
+
+    /**
+     * コンストラクタ
+     *
+     * @param durationMillis duration of the snap(ms)
+     * @param tension        overshoot tension
+     */
+    public SnapAnimator(long durationMillis, float tension) {
+        mDuration = durationMillis;
+        mTension = tension;
+    }
+
+    /**
+     * Start a snap.
+     *
+     * @param fromX     start X coordinate
+     * @param fromY     start Y coordinate
+     * @param toX       goal X coordinate
+     * @param toY       goal Y coordinate
+     * @param velocityX start velocity of X coordinate(px/ms)
+     * @param velocityY start velocity of Y coordinate(px/ms)
+     */
+    public void start(float fromX, float fromY, float toX, float toY, float velocityX, float velocityY) {
+        mFromX = fromX;
+        mFromY = fromY;
+        mToX = toX;
+        mToY = toY;
+        // The overshoot curve starts with the slope (tension + 3), the Hermite term makes up the rest
+        final float curveSlope = mTension + 3;
+        mVelocityCoefX = velocityX * mDuration - (toX - fromX) * curveSlope;
+        mVelocityCoefY = velocityY * mDuration - (toY - fromY) * curveSlope;
+        mX = fromX;
+        mY = fromY;
+        mVelocityX = velocityX;
+        mVelocityY = velocityY;
+        mIsRunning = true;
+    }
+
+    /**
+     * Compute the position and the velocity at the elapsed time.
+     *
+     * @param elapsedMillis time since the start(ms)
+     * @return true if the snap is still running
+     */
+    public boolean update(float elapsedMillis) {
+        if (!mIsRunning) {
+            return false;
+        }
+        final float u = Math.min(Math.max(elapsedMillis / mDuration, 0), 1);
+        final float v = u - 1;
+        // OvershootInterpolator: (u-1)^2((T+1)(u-1)+T)+1
+        final float curve = v * v * ((mTension + 1) * v + mTension) + 1;
+        final float curveSlope = v * (3 * (mTension + 1) * v + 2 * mTension);
+        // Hermite basis of the start velocity: u(1-u)^2
+        final float hermite = u * v * v;
+        final float hermiteSlope = v * (3 * u - 1);
+
+        mX = mFromX + (mToX - mFromX) * curve + mVelocityCoefX * hermite;
+        mY = mFromY + (mToY - mFromY) * curve + mVelocityCoefY * hermite;
+        mVelocityX = ((mToX - mFromX) * curveSlope + mVelocityCoefX * hermiteSlope) / mDuration;
+        mVelocityY = ((mToY - mFromY) * curveSlope + mVelocityCoefY * hermiteSlope) / mDuration;
+
+        if (u >= 1) {
+            mX = mToX;
+            mY = mToY;
+            mVelocityX = 0;
+            mVelocityY = 0;
+            mIsRunning = false;
+        }
+        return mIsRunning;
+    }
+
+    /**
+     * Stop the snap at the last computed position.
+     */
+    public void cancel() {
+        mIsRunning = false;
+    }
+
+    /**
+     * @return true while the snap is running
+     */
+    public boolean isRunning() {
+        return mIsRunning;
+    }
+
+    public float getX() {
+        return mX;
+    }
+
+    public float getY() {
+        return mY;
+    }
+
+    public float getVelocityX() {
+        return mVelocityX;
+    }
+
+    public float getVelocityY() {
+        return mVelocityY;
+    }
+
+    public float getToX() {
+        return mToX;
+    }
+
+    public float getToY() {
+        return mToY;
+    }
+}
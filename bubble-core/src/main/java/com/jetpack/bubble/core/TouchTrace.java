@@ -0,0 +1,233 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Ring buffer of the touch samples delivered to a bubble, kept as primitives so that recording does not allocate.<br/>
+ * Each sample holds the masked action, the raw(screen) coordinates and the event time.
+ * Historical samples of a batched event are recorded before the sample of the event itself and are flagged.
+ * When the buffer is full the oldest samples are overwritten, so a trace may start in the middle of a gesture.
+ */
+public final class TouchTrace {
+
+    /**
+     * Magic number of the binary format("BTRC")
+     */
+    private static final int MAGIC = 0x42545243;
+
+    /**
+     * Version of the binary format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Flag of the historical samples in the action byte
+     */
+    private static final int FLAG_HISTORICAL = 0x80;
+
+    /**
+     * Mask of the action in the action byte
+     */
+    private static final int ACTION_MASK = 0x7F;
+
+    private final byte[] mActions;
+    private final float[] mX;
+    private final float[] mY;
+    private final long[] mTime;
+
+    /**
+     * Index of the oldest sample
+     */
+    private int mStart;
+
+    /**
+     * Number of the recorded samples
+     */
+    private int mSize;
+
+    /**
+     * コンストラクタ
+     *
+     * @param capacity maximum number of samples
+     */
+    public TouchTrace(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        mActions = new byte[capacity];
+        mX = new float[capacity];
+        mY = new float[capacity];
+        mTime = new long[capacity];
+    }
+
+    /**
+     * Record a sample.
+     *
+     * @param action       masked action of the event(MotionEvent#getActionMasked)
+     * @param rawX         X coordinate on the screen
+     * @param rawY         Y coordinate on the screen
+     * @param timeMillis   time of the sample(ms)
+     * @param isHistorical true if the sample is a historical sample of the event
+     */
+    public void record(int action, float rawX, float rawY, long timeMillis, boolean isHistorical) {
+        final int capacity = mActions.length;
+        final int index;
+        if (mSize < capacity) {
+            index = (mStart + mSize) % capacity;
+            mSize++;
+        } else {
+            index = mStart;
+            mStart = (mStart + 1) % capacity;
+        }
+        mActions[index] = (byte) ((action & ACTION_MASK) | (isHistorical ? FLAG_HISTORICAL : 0));
+        mX[index] = rawX;
+        mY[index] = rawY;
+        mTime[index] = timeMillis;
+    }
+
+    /**
+     * Remove all the samples.
+     */
+    public void clear() {
+        mStart = 0;
+        mSize = 0;
+    }
+
+    /**
+     * @return maximum number of samples
+     */
+    public int getCapacity() {
+        return mActions.length;
+    }
+
+    /**
+     * @return number of the recorded samples
+     */
+    public int getSize() {
+        return mSize;
+    }
+
+    /**
+     * @param i index from the oldest sample
+     * @return masked action of the sample
+     */
+    public int getAction(int i) {
+        return mActions[toIndex(i)] & ACTION_MASK;
+    }
+
+    /**
+     * @param i index from the oldest sample
+     * @return true if the sample is a historical sample
+     */
+    public boolean isHistorical(int i) {
+        return (mActions[toIndex(i)] & FLAG_HISTORICAL) != 0;
+    }
+
+    /**
+     * @param i index from the oldest sample
+     * @return X coordinate on the screen
+     */
+    public float getRawX(int i) {
+        return mX[toIndex(i)];
+    }
+
+    /**
+     * @param i index from the oldest sample
+     * @return Y coordinate on the screen
+     */
+    public float getRawY(int i) {
+        return mY[toIndex(i)];
+    }
+
+    /**
+     * @param i index from the oldest sample
+     * @return time of the sample(ms)
+     */
+    public long getTimeMillis(int i) {
+        return mTime[toIndex(i)];
+    }
+
+    /**
+     * Write the samples from the oldest one.<br/>
+     * Header: magic(int), version(byte), count(int), time of the first sample(long).
+     * Sample: action(byte), rawX(float), rawY(float), time from the first sample(int).
+     *
+     * @param out destination
+     * @throws IOException if the stream fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        final DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeInt(mSize);
+        final long baseTime = mSize == 0 ? 0 : getTimeMillis(0);
+        data.writeLong(baseTime);
+        for (int i = 0; i < mSize; i++) {
+            final int index = toIndex(i);
+            data.writeByte(mActions[index]);
+            data.writeFloat(mX[index]);
+            data.writeFloat(mY[index]);
+            data.writeInt((int) (mTime[index] - baseTime));
+        }
+        data.flush();
+    }
+
+    /**
+     * Read a trace written by {@link #writeTo(OutputStream)}.
+     *
+     * @param in source
+     * @return {@link TouchTrace} whose capacity is the number of the samples
+     * @throws IOException if the stream fails or is not a trace
+     */
+    public static TouchTrace readFrom(InputStream in) throws IOException {
+        final DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("not a touch trace");
+        }
+        final int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("unsupported touch trace version: " + version);
+        }
+        final int size = data.readInt();
+        if (size < 0) {
+            throw new IOException("invalid sample count: " + size);
+        }
+        final long baseTime = data.readLong();
+        final TouchTrace trace = new TouchTrace(Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            final int action = data.readUnsignedByte();
+            final float x = data.readFloat();
+            final float y = data.readFloat();
+            final long time = baseTime + data.readInt();
+            trace.record(action & ACTION_MASK, x, y, time, (action & FLAG_HISTORICAL) != 0);
+        }
+        return trace;
+    }
+
+    private int toIndex(int i) {
+        if (i < 0 || i >= mSize) {
+            throw new IndexOutOfBoundsException("index: " + i + ", size: " + mSize);
+        }
+        return (mStart + i) % mActions.length;
+    }
+}
@@ -0,0 +1,221 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * State machine of the dragged bubble: follows the finger(normal), is captured by the trash icon(intersecting),
+ * or stops(finishing).<br/>
+ * Every state change restarts the capture curve from the current position.
+ */
+public final class TrackingMotion {
+
+    /**
+     * 通常状態
+     */
+    public static final int STATE_NORMAL = 0;
+
+    /**
+     * 重なり状態
+     */
+    public static final int STATE_INTERSECTING = 1;
+
+    /**
+     * 終了状態
+     */
+    public static final int STATE_FINISHING = 2;
+
+    /**
+     * FloatingViewの吸着の着脱時間
+     */
+    public static final long CAPTURE_DURATION_MILLIS = 300L;
+
+    /**
+     * Curve toward the tracking target
+     */
+    private TrackingCurve mTrackingCurve;
+
+    /**
+     * アニメーション状態フラグ
+     */
+    private int mState;
+
+    /**
+     * True until the first frame after a state change
+     */
+    private boolean mIsChangeState;
+
+    /**
+     * アニメーションを開始した時間
+     */
+    private long mStartTime;
+
+    /**
+     * Position when the capture curve started
+     */
+    private float mStartX;
+    private float mStartY;
+
+    /**
+     * Window position under the finger
+     */
+    private float mTouchPositionX;
+    private float mTouchPositionY;
+
+    /**
+     * Center of the capturing target
+     */
+    private float mTargetPositionX;
+    private float mTargetPositionY;
+
+    /**
+     * Result of the last {@link #update}
+     */
+    private int mX;
+    private int mY;
+    private boolean mIsCaptured;
+
+    /**
+     * コンストラクタ
+     *
+     * @param trackingCurve curve toward the tracking target
+     */
+    public TrackingMotion(TrackingCurve trackingCurve) {
+        mTrackingCurve = trackingCurve;
+        mState = STATE_NORMAL;
+    }
+
+    /**
+     * Compute the position of the frame.
+     *
+     * @param frameTimeMillis time of the frame(ms)
+     * @param currentX        current window X coordinate
+     * @param currentY        current window Y coordinate
+     * @param viewWidth       width of the bubble
+     * @param viewHeight      height of the bubble
+     * @param moveLimit       range the bubble may be dragged to
+     * @return false in STATE_FINISHING(the position is not computed)
+     */
+    public boolean update(long frameTimeMillis, int currentX, int currentY, int viewWidth, int viewHeight, Bounds moveLimit) {
+        // 状態変更時のみアニメーション時間を使う
+        if (mIsChangeState) {
+            mStartTime = frameTimeMillis;
+            mStartX = currentX;
+            mStartY = currentY;
+            mIsChangeState = false;
+        }
+        final float elapsedTime = frameTimeMillis - mStartTime;
+        final float trackingTargetTimeRate = Math.min(elapsedTime / CAPTURE_DURATION_MILLIS, 1.0f);
+
+        final float targetPositionX;
+        final float targetPositionY;
+        // 重なっていない場合は画面外へのオーバーを認める
+        if (mState == STATE_NORMAL) {
+            targetPositionX = moveLimit.clampX((int) mTouchPositionX);
+            targetPositionY = moveLimit.clampY((int) mTouchPositionY);
+        }
+        // 重なった場合は追従対象の中心へ
+        else if (mState == STATE_INTERSECTING) {
+            targetPositionX = mTargetPositionX - viewWidth / 2;
+            targetPositionY = mTargetPositionY - viewHeight / 2;
+        }
+        // 終了状態では何もしない
+        else {
+            return false;
+        }
+
+        final float basePosition = mTrackingCurve.getPosition(trackingTargetTimeRate);
+        mX = (int) (mStartX + (targetPositionX - mStartX) * basePosition);
+        mY = (int) (mStartY + (targetPositionY - mStartY) * basePosition);
+        mIsCaptured = trackingTargetTimeRate >= 1.0f;
+        return true;
+    }
+
+    /**
+     * @param trackingCurve curve toward the tracking target
+     */
+    public void setTrackingCurve(TrackingCurve trackingCurve) {
+        mTrackingCurve = trackingCurve;
+    }
+
+    /**
+     * @param positionX window X coordinate under the finger
+     * @param positionY window Y coordinate under the finger
+     * @return true if the position has changed
+     */
+    public boolean setTouchPosition(float positionX, float positionY) {
+        final boolean isChanged = mTouchPositionX != positionX || mTouchPositionY != positionY;
+        mTouchPositionX = positionX;
+        mTouchPositionY = positionY;
+        return isChanged;
+    }
+
+    /**
+     * @param centerX center X coordinate of the capturing target
+     * @param centerY center Y coordinate of the capturing target
+     * @return true if the position has changed
+     */
+    public boolean setTargetPosition(float centerX, float centerY) {
+        final boolean isChanged = mTargetPositionX != centerX || mTargetPositionY != centerY;
+        mTargetPositionX = centerX;
+        mTargetPositionY = centerY;
+        return isChanged;
+    }
+
+    /**
+     * アニメーション状態を設定します。
+     *
+     * @param newState STATE_NORMAL or STATE_INTERSECTING or STATE_FINISHING
+     * @return true if the state has changed
+     */
+    public boolean setState(int newState) {
+        final boolean isChanged = mState != newState;
+        // 状態が異なった場合のみ状態を変更フラグを変える
+        if (isChanged) {
+            mIsChangeState = true;
+        }
+        mState = newState;
+        return isChanged;
+    }
+
+    /**
+     * @return STATE_NORMAL or STATE_INTERSECTING or STATE_FINISHING
+     */
+    public int getState() {
+        return mState;
+    }
+
+    /**
+     * @return window X coordinate computed by the last {@link #update}
+     */
+    public int getX() {
+        return mX;
+    }
+
+    /**
+     * @return window Y coordinate computed by the last {@link #update}
+     */
+    public int getY() {
+        return mY;
+    }
+
+    /**
+     * @return true if the capture curve of the last {@link #update} has finished(the bubble sits on the target)
+     */
+    public boolean isCaptured() {
+        return mIsCaptured;
+    }
+}
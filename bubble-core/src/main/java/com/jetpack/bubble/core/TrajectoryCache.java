@@ -0,0 +1,204 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+import java.util.Arrays;
+
+/**
+ * Bakes the whole path of a {@link PhysicsSolver} into keyframes and keeps the recently used paths.<br/>
+ * Playing back a path is a table read and a linear interpolation, so the frame callback does no physics.
+ */
+public final class TrajectoryCache {
+
+    /**
+     * Interval between two keyframes(ms)
+     */
+    public static final long KEYFRAME_INTERVAL_MILLIS = 16L;
+
+    /**
+     * Longest path that can be baked(ms). The path is cut at the last keyframe after that.
+     */
+    private static final long MAX_DURATION_MILLIS = 4000L;
+
+    /**
+     * Maximum number of keyframes of a path
+     */
+    private static final int MAX_KEYFRAMES = (int) (MAX_DURATION_MILLIS / KEYFRAME_INTERVAL_MILLIS) + 1;
+
+    /**
+     * Number of paths kept
+     */
+    private static final int CAPACITY = 4;
+
+    /**
+     * Paths(least recently used one is replaced)
+     */
+    private final Trajectory[] mTrajectories;
+
+    /**
+     * Key of the path being looked up
+     */
+    private final int[] mKey;
+
+    /**
+     * Counter used to find the least recently used path
+     */
+    private long mUseCount;
+
+    /**
+     * Number of paths that were found in the cache
+     */
+    private long mHitCount;
+
+    /**
+     * コンストラクタ
+     */
+    public TrajectoryCache() {
+        mTrajectories = new Trajectory[CAPACITY];
+        for (int i = 0; i < CAPACITY; i++) {
+            mTrajectories[i] = new Trajectory();
+        }
+        mKey = new int[PhysicsSolver.KEY_SIZE];
+    }
+
+    /**
+     * Get the path of a started solver, baking it if it is not cached.<br/>
+     * The solver is stepped to the end of the path when it is baked.
+     *
+     * @param solver solver whose spring/fling has been started
+     * @return keyframes of the path
+     */
+    public Trajectory obtain(PhysicsSolver solver) {
+        solver.writeKey(mKey);
+        mUseCount++;
+
+        Trajectory oldest = mTrajectories[0];
+        for (int i = 0; i < CAPACITY; i++) {
+            final Trajectory trajectory = mTrajectories[i];
+            if (trajectory.mKeyframeCount > 0 && Arrays.equals(trajectory.mKey, mKey)) {
+                trajectory.mLastUsed = mUseCount;
+                mHitCount++;
+                solver.cancel();
+                return trajectory;
+            }
+            if (trajectory.mLastUsed < oldest.mLastUsed) {
+                oldest = trajectory;
+            }
+        }
+
+        oldest.bake(solver, mKey);
+        oldest.mLastUsed = mUseCount;
+        return oldest;
+    }
+
+    /**
+     * Get the number of paths that were found in the cache.
+     *
+     * @return number of cache hits
+     */
+    public long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Keyframes of a baked path.
+     */
+    public static final class Trajectory {
+
+        /**
+         * Start conditions of the path
+         */
+        private final int[] mKey;
+
+        /**
+         * X and Y of each keyframe(x0, y0, x1, y1, ...)
+         */
+        private final float[] mKeyframes;
+
+        /**
+         * Number of keyframes
+         */
+        private int mKeyframeCount;
+
+        /**
+         * Value of the use counter when this path was last used
+         */
+        private long mLastUsed;
+
+        Trajectory() {
+            mKey = new int[PhysicsSolver.KEY_SIZE];
+            mKeyframes = new float[MAX_KEYFRAMES * 2];
+        }
+
+        private void bake(PhysicsSolver solver, int[] key) {
+            System.arraycopy(key, 0, mKey, 0, key.length);
+            int count = 0;
+            mKeyframes[0] = solver.getX();
+            mKeyframes[1] = solver.getY();
+            count++;
+            while (solver.isRunning() && count < MAX_KEYFRAMES) {
+                solver.step(KEYFRAME_INTERVAL_MILLIS);
+                mKeyframes[count * 2] = solver.getX();
+                mKeyframes[count * 2 + 1] = solver.getY();
+                count++;
+            }
+            solver.cancel();
+            mKeyframeCount = count;
+        }
+
+        /**
+         * Get the length of the path.
+         *
+         * @return duration(ms)
+         */
+        public long getDuration() {
+            return (mKeyframeCount - 1) * KEYFRAME_INTERVAL_MILLIS;
+        }
+
+        /**
+         * Get the X coordinate at the elapsed time.
+         *
+         * @param elapsedMillis time since the start of the path(ms)
+         * @return X coordinate
+         */
+        public float getX(float elapsedMillis) {
+            return interpolate(elapsedMillis, 0);
+        }
+
+        /**
+         * Get the Y coordinate at the elapsed time.
+         *
+         * @param elapsedMillis time since the start of the path(ms)
+         * @return Y coordinate
+         */
+        public float getY(float elapsedMillis) {
+            return interpolate(elapsedMillis, 1);
+        }
+
+        private float interpolate(float elapsedMillis, int axis) {
+            final float position = Math.max(elapsedMillis, 0) / KEYFRAME_INTERVAL_MILLIS;
+            final int index = (int) position;
+            if (index >= mKeyframeCount - 1) {
+                return mKeyframes[(mKeyframeCount - 1) * 2 + axis];
+            }
+            final float fraction = position - index;
+            final float from = mKeyframes[index * 2 + axis];
+            final float to = mKeyframes[(index + 1) * 2 + axis];
+            return from + (to - from) * fraction;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * Position math of the trash icon with primitive inputs and outputs.
+ */
+public final class TrashGeometry {
+
+    private TrashGeometry() {
+    }
+
+    /**
+     * X translation of the trash icon following the target.<br/>
+     * アイコンが左右に全部はみ出たらそれぞれ0%、100%の計算
+     *
+     * @param trashViewX  X coordinate of the TrashView window
+     * @param targetX     X coordinate of the target
+     * @param targetWidth width of the target
+     * @param screenWidth width of the screen
+     * @param limitLeft   left of the icon limit position
+     * @param limitWidth  width of the icon limit position
+     * @return X translation
+     */
+    public static float stickyTranslationX(float trashViewX, float targetX, float targetWidth, float screenWidth,
+                                    float limitLeft, float limitWidth) {
+        return trashViewX + (targetX + targetWidth) / (screenWidth + targetWidth) * limitWidth + limitLeft;
+    }
+
+    /**
+     * Y translation of the trash icon following the target（上方向がマイナス）.<br/>
+     * targetPositionYRateは、ターゲットのY座標が完全に画面外になると0%、画面の半分以降は100%
+     * stickyPositionYは移動限界の下端が原点で上端まで移動する。stickyRangeが追従の範囲
+     *
+     * @param targetY      Y coordinate of the target
+     * @param targetHeight height of the target
+     * @param screenHeight height of the screen
+     * @param stickyRange  range in which the icon follows the target
+     * @param limitHeight  height of the icon limit position
+     * @param limitBottom  bottom of the icon limit position
+     * @param progress     interpolated progress of the open animation
+     * @return Y translation
+     */
+    public static float stickyTranslationY(float targetY, float targetHeight, float screenHeight, float stickyRange,
+                                    float limitHeight, float limitBottom, float progress) {
+        final float targetPositionYRate = Math.min(2 * (targetY + targetHeight) / (screenHeight + targetHeight), 1.0f);
+        final float stickyPositionY = stickyRange * targetPositionYRate + limitHeight - stickyRange;
+        return limitBottom - stickyPositionY * progress;
+    }
+}
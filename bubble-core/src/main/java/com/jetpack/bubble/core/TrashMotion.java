@@ -0,0 +1,353 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * Timing of the trash open/close animations and the position of the trash icon.<br/>
+ * The caller feeds the clock and applies the computed alpha and translation to its views.
+ */
+public final class TrashMotion {
+
+    /**
+     * アニメーションなしの状態を表す定数
+     */
+    public static final int ANIMATION_NONE = 0;
+
+    /**
+     * 背景・削除アイコンなどを表示するアニメーションを表す定数
+     */
+    public static final int ANIMATION_OPEN = 1;
+
+    /**
+     * 背景・削除アイコンなどを消すアニメーションを表す定数
+     */
+    public static final int ANIMATION_CLOSE = 2;
+
+    /**
+     * 背景・削除アイコンなどを即時に消すことを表す定数
+     */
+    public static final int ANIMATION_FORCE_CLOSE = 3;
+
+    /**
+     * 背景のアニメーション時間
+     */
+    public static final long BACKGROUND_DURATION_MILLIS = 200L;
+
+    /**
+     * 削除アイコンのポップアニメーションの開始遅延時間
+     */
+    private static final long TRASH_OPEN_START_DELAY_MILLIS = 200L;
+
+    /**
+     * 削除アイコンのオープンアニメーション時間
+     */
+    private static final long TRASH_OPEN_DURATION_MILLIS = 400L;
+
+    /**
+     * 削除アイコンのクローズアニメーション時間
+     */
+    private static final long TRASH_CLOSE_DURATION_MILLIS = 200L;
+
+    /**
+     * Overshootアニメーションの係数
+     */
+    private static final float OVERSHOOT_TENSION = 1.0f;
+
+    /**
+     * Peak of the overshoot curve
+     */
+    private static final float OVERSHOOT_PEAK = overshootPeak(OVERSHOOT_TENSION);
+
+    /**
+     * 削除アイコンの移動限界X軸オフセット(dp)
+     */
+    private static final int TRASH_MOVE_LIMIT_OFFSET_X = 22;
+
+    /**
+     * 削除アイコンの移動限界Y軸オフセット(dp)
+     */
+    private static final int TRASH_MOVE_LIMIT_TOP_OFFSET = -4;
+
+    /**
+     * Y軸の追従の範囲(背景の高さに対する割合)
+     */
+    private static final float MOVE_STICKY_Y_RANGE_RATE = 0.20f;
+
+    /**
+     * アルファの最大値
+     */
+    public static final float MAX_ALPHA = 1.0f;
+
+    /**
+     * アルファの最小値
+     */
+    public static final float MIN_ALPHA = 0.0f;
+
+    /**
+     * アニメーションを開始した時間
+     */
+    private long mStartTime;
+
+    /**
+     * アニメーションを始めた時点のアルファ値
+     */
+    private float mStartAlpha;
+
+    /**
+     * アニメーションを始めた時点のTransitionY
+     */
+    private float mStartTranslationY;
+
+    /**
+     * 実行中のアニメーションのコード
+     */
+    private int mStartedCode;
+
+    /**
+     * 追従対象の位置と大きさ
+     */
+    private float mTargetPositionX;
+    private float mTargetPositionY;
+    private float mTargetWidth;
+    private float mTargetHeight;
+
+    /**
+     * 削除アイコンの移動限界位置
+     */
+    private final Bounds mTrashIconLimitPosition;
+
+    /**
+     * Y軸の追従の範囲
+     */
+    private float mMoveStickyYRange;
+
+    /**
+     * Values computed by the last update
+     */
+    private float mAlpha;
+    private float mTranslationX;
+    private float mTranslationY;
+    private boolean mIsIconMoved;
+
+    /**
+     * コンストラクタ
+     */
+    public TrashMotion() {
+        mStartedCode = ANIMATION_NONE;
+        mTrashIconLimitPosition = new Bounds();
+    }
+
+    /**
+     * Start an animation.
+     *
+     * @param animationCode     ANIMATION_OPEN,ANIMATION_CLOSE,ANIMATION_FORCE_CLOSE
+     * @param nowMillis         current time(ms)
+     * @param alpha             current alpha of the background
+     * @param translationY      current translation Y of the trash icon
+     */
+    public void start(int animationCode, long nowMillis, float alpha, float translationY) {
+        mStartTime = nowMillis;
+        mStartAlpha = alpha;
+        mStartTranslationY = translationY;
+        mStartedCode = animationCode;
+    }
+
+    /**
+     * Compute a frame of the open animation. The trash icon follows the target once the start delay has passed.
+     *
+     * @param nowMillis    current time(ms)
+     * @param currentAlpha current alpha of the background
+     * @param trashViewX   X coordinate of the trash window
+     * @param screenWidth  width of the display
+     * @param screenHeight height of the display
+     * @return true if the open animation has settled(the icon only moves with the target from now on)
+     */
+    public boolean updateOpen(long nowMillis, float currentAlpha, float trashViewX, float screenWidth, float screenHeight) {
+        final float elapsedTime = nowMillis - mStartTime;
+        mAlpha = currentAlpha;
+        // 最大のアルファ値に達していない場合
+        if (currentAlpha < MAX_ALPHA) {
+            final float alphaTimeRate = Math.min(elapsedTime / BACKGROUND_DURATION_MILLIS, 1.0f);
+            mAlpha = Math.min(mStartAlpha + alphaTimeRate, MAX_ALPHA);
+        }
+
+        // DelayTimeを超えていたらアニメーション開始
+        mIsIconMoved = elapsedTime >= TRASH_OPEN_START_DELAY_MILLIS;
+        if (mIsIconMoved) {
+            mTranslationX = TrashGeometry.stickyTranslationX(trashViewX, mTargetPositionX, mTargetWidth, screenWidth,
+                    mTrashIconLimitPosition.left, mTrashIconLimitPosition.width());
+            // 削除アイコンのY座標アニメーションと追従（上方向がマイナス）
+            final float translationYTimeRate = Math.min((elapsedTime - TRASH_OPEN_START_DELAY_MILLIS) / TRASH_OPEN_DURATION_MILLIS, 1.0f);
+            mTranslationY = TrashGeometry.stickyTranslationY(mTargetPositionY, mTargetHeight, screenHeight, mMoveStickyYRange,
+                    mTrashIconLimitPosition.height(), mTrashIconLimitPosition.bottom, overshoot(translationYTimeRate, OVERSHOOT_TENSION));
+        }
+
+        return mAlpha >= MAX_ALPHA && elapsedTime >= TRASH_OPEN_START_DELAY_MILLIS + TRASH_OPEN_DURATION_MILLIS;
+    }
+
+    /**
+     * Compute a frame of the close animation.
+     *
+     * @param nowMillis current time(ms)
+     * @return true if the close animation is still running
+     */
+    public boolean updateClose(long nowMillis) {
+        final float elapsedTime = nowMillis - mStartTime;
+        // アルファ値の計算
+        final float alphaElapseTimeRate = Math.min(elapsedTime / BACKGROUND_DURATION_MILLIS, 1.0f);
+        mAlpha = Math.max(mStartAlpha - alphaElapseTimeRate, MIN_ALPHA);
+
+        // 削除アイコンのY座標アニメーション
+        final float translationYTimeRate = Math.min(elapsedTime / TRASH_CLOSE_DURATION_MILLIS, 1.0f);
+        // アニメーションが最後まで到達していない場合
+        if (alphaElapseTimeRate < 1.0f || translationYTimeRate < 1.0f) {
+            mTranslationY = mStartTranslationY + mTrashIconLimitPosition.height() * translationYTimeRate;
+            return true;
+        }
+        // 位置を強制的に調整
+        mTranslationY = mTrashIconLimitPosition.bottom;
+        mStartedCode = ANIMATION_NONE;
+        return false;
+    }
+
+    /**
+     * Hide the background and the trash icon immediately.
+     */
+    public void forceClose() {
+        mAlpha = MIN_ALPHA;
+        mTranslationY = mTrashIconLimitPosition.bottom;
+        mStartedCode = ANIMATION_NONE;
+    }
+
+    /**
+     * 削除アイコンの移動限界を設定します。<br/>
+     * 左下原点（画面下端（パディング含む）：0、上方向：マイナス、下方向：プラス）で、Y軸上限は削除アイコンが背景の中心に来る位置、下限は削除アイコンが全部隠れる位置
+     *
+     * @param density          display density
+     * @param backgroundHeight height of the background
+     * @param trashIconHeight  height of the trash icon root
+     */
+    public void setIconLimit(float density, float backgroundHeight, int trashIconHeight) {
+        final float offsetX = TRASH_MOVE_LIMIT_OFFSET_X * density;
+        final int left = (int) -offsetX;
+        final int top = iconLimitTop(density, backgroundHeight, trashIconHeight);
+        final int right = (int) offsetX;
+        final int bottom = trashIconHeight;
+        mTrashIconLimitPosition.set(left, top, right, bottom);
+
+        // 背景の大きさをもとにY軸の追従範囲を設定
+        mMoveStickyYRange = backgroundHeight * MOVE_STICKY_Y_RANGE_RATE;
+    }
+
+    /**
+     * Highest point the top of the trash icon reaches above the bottom of the background, overshoot included.<br/>
+     * The trash window has to be at least this tall so that the icon is never clipped.
+     *
+     * @param density          display density
+     * @param backgroundHeight height of the background
+     * @param trashIconHeight  height of the trash icon root
+     * @return distance from the bottom(px)
+     */
+    public static float computeIconReach(float density, float backgroundHeight, int trashIconHeight) {
+        return (trashIconHeight - iconLimitTop(density, backgroundHeight, trashIconHeight)) * OVERSHOOT_PEAK;
+    }
+
+    /**
+     * Y軸の移動限界の上限（削除アイコンが背景の中心に来る位置）
+     */
+    private static int iconLimitTop(float density, float backgroundHeight, int trashIconHeight) {
+        return (int) ((trashIconHeight - backgroundHeight) / 2 - TRASH_MOVE_LIMIT_TOP_OFFSET * density);
+    }
+
+    /**
+     * 追従対象の位置情報を更新します。
+     *
+     * @param x 追従対象のX座標
+     * @param y 追従対象のY座標
+     * @return true if the position has changed
+     */
+    public boolean setTargetPosition(float x, float y) {
+        if (mTargetPositionX == x && mTargetPositionY == y) {
+            return false;
+        }
+        mTargetPositionX = x;
+        mTargetPositionY = y;
+        return true;
+    }
+
+    /**
+     * @param width  追従対象の幅
+     * @param height 追従対象の高さ
+     */
+    public void setTargetSize(float width, float height) {
+        mTargetWidth = width;
+        mTargetHeight = height;
+    }
+
+    /**
+     * @return ANIMATION_NONE or the code of the running animation
+     */
+    public int getStartedCode() {
+        return mStartedCode;
+    }
+
+    /**
+     * @return alpha of the background computed by the last update
+     */
+    public float getAlpha() {
+        return mAlpha;
+    }
+
+    /**
+     * @return translation X of the trash icon(valid if {@link #isIconMoved()} after an open frame)
+     */
+    public float getTranslationX() {
+        return mTranslationX;
+    }
+
+    /**
+     * @return translation Y of the trash icon
+     */
+    public float getTranslationY() {
+        return mTranslationY;
+    }
+
+    /**
+     * @return true if the last open frame moved the trash icon
+     */
+    public boolean isIconMoved() {
+        return mIsIconMoved;
+    }
+
+    /**
+     * Highest value of an OvershootInterpolator with the given tension(reached at t = 1 - 2T / 3(T + 1)).
+     *
+     * @param tension tension of the OvershootInterpolator
+     * @return peak of the curve
+     */
+    public static float overshootPeak(float tension) {
+        return overshoot(1.0f - 2 * tension / (3 * (tension + 1)), tension);
+    }
+
+    /**
+     * Same curve as OvershootInterpolator.
+     */
+    private static float overshoot(float t, float tension) {
+        t -= 1.0f;
+        return t * t * ((tension + 1) * t + tension) + 1.0f;
+    }
+}
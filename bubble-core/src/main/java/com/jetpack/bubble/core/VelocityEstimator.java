@@ -0,0 +1,198 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+/**
+ * Velocity estimator that keeps the touch samples in a ring buffer and is reused across gestures.<br/>
+ * The velocity is the slope of a quadratic least squares fit, same as the default strategy of VelocityTracker.
+ * The Android adapter feeds every historical sample batched in a MotionEvent.
+ */
+public final class VelocityEstimator {
+
+    /**
+     * Number of samples kept
+     */
+    private static final int CAPACITY = 20;
+
+    /**
+     * Only the samples within this time from the newest one are used(ms)
+     */
+    private static final long HORIZON_MILLIS = 100L;
+
+    /**
+     * The pointer is regarded as stopped if no sample came for this time(ms)
+     */
+    private static final long ASSUME_STOPPED_MILLIS = 40L;
+
+    private final float[] mX;
+    private final float[] mY;
+    private final long[] mTime;
+
+    /**
+     * Index of the newest sample
+     */
+    private int mHead;
+
+    /**
+     * Number of samples
+     */
+    private int mCount;
+
+    /**
+     * True between {@link #start()} and {@link #stop()}
+     */
+    private boolean mIsTracking;
+
+    private float mXVelocity;
+    private float mYVelocity;
+
+    /**
+     * コンストラクタ
+     */
+    public VelocityEstimator() {
+        mX = new float[CAPACITY];
+        mY = new float[CAPACITY];
+        mTime = new long[CAPACITY];
+        mHead = -1;
+    }
+
+    /**
+     * Start tracking a new gesture.
+     */
+    public void start() {
+        clear();
+        mIsTracking = true;
+    }
+
+    /**
+     * Stop tracking. The velocity is no longer available.
+     */
+    public void stop() {
+        clear();
+        mIsTracking = false;
+    }
+
+    /**
+     * @return true while a gesture is tracked
+     */
+    public boolean isTracking() {
+        return mIsTracking;
+    }
+
+    /**
+     * Add a sample.
+     *
+     * @param x          X coordinate
+     * @param y          Y coordinate
+     * @param timeMillis event time(ms)
+     */
+    public void addSample(float x, float y, long timeMillis) {
+        // A stopped pointer starts a new movement
+        if (mCount > 0 && timeMillis - mTime[mHead] > ASSUME_STOPPED_MILLIS) {
+            clear();
+        }
+        mHead = (mHead + 1) % CAPACITY;
+        mX[mHead] = x;
+        mY[mHead] = y;
+        mTime[mHead] = timeMillis;
+        mCount = Math.min(mCount + 1, CAPACITY);
+    }
+
+    /**
+     * Compute the velocity from the samples.
+     *
+     * @param units 1 for px/ms, 1000 for px/s
+     */
+    public void computeCurrentVelocity(int units) {
+        mXVelocity = (float) (estimateSlope(mX) * units);
+        mYVelocity = (float) (estimateSlope(mY) * units);
+    }
+
+    /**
+     * @return X velocity computed by {@link #computeCurrentVelocity(int)}
+     */
+    public float getXVelocity() {
+        return mXVelocity;
+    }
+
+    /**
+     * @return Y velocity computed by {@link #computeCurrentVelocity(int)}
+     */
+    public float getYVelocity() {
+        return mYVelocity;
+    }
+
+    /**
+     * Drop all samples.
+     */
+    public void clear() {
+        mHead = -1;
+        mCount = 0;
+        mXVelocity = 0;
+        mYVelocity = 0;
+    }
+
+    /**
+     * Fit value = a + b*t + c*t^2(t is relative to the newest sample) and return b.
+     *
+     * @param values mX or mY
+     * @return slope at the newest sample(px/ms)
+     */
+    private double estimateSlope(float[] values) {
+        if (mCount < 2) {
+            return 0;
+        }
+        final long newestTime = mTime[mHead];
+        // sums for the normal equations
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0, s4 = 0;
+        double sv = 0, stv = 0, st2v = 0;
+        int used = 0;
+        for (int i = 0; i < mCount; i++) {
+            final int index = (mHead - i + CAPACITY) % CAPACITY;
+            final double t = mTime[index] - newestTime;
+            if (-t > HORIZON_MILLIS) {
+                break;
+            }
+            final double v = values[index];
+            final double t2 = t * t;
+            s0 += 1;
+            s1 += t;
+            s2 += t2;
+            s3 += t2 * t;
+            s4 += t2 * t2;
+            sv += v;
+            stv += t * v;
+            st2v += t2 * v;
+            used++;
+        }
+
+        if (used >= 3) {
+            // Cramer's rule for the coefficient of t
+            final double det = s0 * (s2 * s4 - s3 * s3) - s1 * (s1 * s4 - s2 * s3) + s2 * (s1 * s3 - s2 * s2);
+            if (Math.abs(det) > 1e-9) {
+                final double detB = s0 * (stv * s4 - s3 * st2v) - sv * (s1 * s4 - s2 * s3) + s2 * (s1 * st2v - s2 * stv);
+                return detB / det;
+            }
+        }
+        // linear fit
+        final double denominator = s0 * s2 - s1 * s1;
+        if (used < 2 || Math.abs(denominator) < 1e-9) {
+            return 0;
+        }
+        return (s0 * stv - s1 * sv) / denominator;
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble.core;
+
+import java.util.ArrayList;
+
+/**
+ * Deterministic clock, frame source and message queue for headless runs.<br/>
+ * Time only moves in {@link #advanceFrame()}, so a simulated session takes no wall-clock time.
+ */
+public final class VirtualTimeline implements Clock, FrameSource {
+
+    /**
+     * Interval of the frames(60Hz)
+     */
+    public static final long FRAME_INTERVAL_NANOS = 16_666_667L;
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private long mNowNanos;
+
+    private ArrayList<FrameCallback> mFrameCallbacks;
+    private ArrayList<FrameCallback> mRunningFrameCallbacks;
+
+    /**
+     * Delayed messages, ordered by the time
+     */
+    private final ArrayList<Message> mMessages;
+
+    private long mFrameCount;
+    private int mPeakPendingCount;
+
+    /**
+     * コンストラクタ
+     *
+     * @param startMillis initial time(ms)
+     */
+    public VirtualTimeline(long startMillis) {
+        mNowNanos = startMillis * NANOS_PER_MILLI;
+        mFrameCallbacks = new ArrayList<>();
+        mRunningFrameCallbacks = new ArrayList<>();
+        mMessages = new ArrayList<>();
+    }
+
+    @Override
+    public long uptimeMillis() {
+        return mNowNanos / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public void postFrameCallback(FrameCallback callback) {
+        if (!mFrameCallbacks.contains(callback)) {
+            mFrameCallbacks.add(callback);
+            updatePeak();
+        }
+    }
+
+    @Override
+    public void removeFrameCallback(FrameCallback callback) {
+        mFrameCallbacks.remove(callback);
+    }
+
+    @Override
+    public void postDelayed(Runnable task, long delayMillis) {
+        final long time = mNowNanos + Math.max(delayMillis, 0) * NANOS_PER_MILLI;
+        int index = mMessages.size();
+        while (index > 0 && mMessages.get(index - 1).timeNanos > time) {
+            index--;
+        }
+        mMessages.add(index, new Message(time, task));
+        updatePeak();
+    }
+
+    @Override
+    public void removeCallbacks(Runnable task) {
+        for (int i = mMessages.size() - 1; i >= 0; i--) {
+            if (mMessages.get(i).task == task) {
+                mMessages.remove(i);
+            }
+        }
+    }
+
+    /**
+     * @param task task
+     * @return true if the task is waiting in the queue
+     */
+    public boolean hasCallbacks(Runnable task) {
+        for (int i = 0; i < mMessages.size(); i++) {
+            if (mMessages.get(i).task == task) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Advance the time by one frame. The messages due in the interval run at their own time,
+     * then the frame callbacks run at the end of the interval.
+     *
+     * @return true if at least one frame callback ran
+     */
+    public boolean advanceFrame() {
+        final long frameTime = mNowNanos + FRAME_INTERVAL_NANOS;
+        while (!mMessages.isEmpty() && mMessages.get(0).timeNanos <= frameTime) {
+            final Message message = mMessages.remove(0);
+            mNowNanos = Math.max(mNowNanos, message.timeNanos);
+            message.task.run();
+        }
+        mNowNanos = frameTime;
+
+        // Callbacks posted while running are kept for the next frame
+        final ArrayList<FrameCallback> callbacks = mFrameCallbacks;
+        mFrameCallbacks = mRunningFrameCallbacks;
+        mRunningFrameCallbacks = callbacks;
+        final int size = callbacks.size();
+        for (int i = 0; i < size; i++) {
+            callbacks.get(i).doFrame(frameTime);
+        }
+        callbacks.clear();
+        if (size > 0) {
+            mFrameCount++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if no frame callback and no message is waiting
+     */
+    public boolean isIdle() {
+        return mFrameCallbacks.isEmpty() && mMessages.isEmpty();
+    }
+
+    /**
+     * @return number of waiting frame callbacks and messages
+     */
+    public int getPendingCount() {
+        return mFrameCallbacks.size() + mMessages.size();
+    }
+
+    /**
+     * @return largest {@link #getPendingCount()} seen so far
+     */
+    public int getPeakPendingCount() {
+        return mPeakPendingCount;
+    }
+
+    /**
+     * @return number of frames that ran at least one callback
+     */
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+
+    private void updatePeak() {
+        mPeakPendingCount = Math.max(mPeakPendingCount, getPendingCount());
+    }
+
+    /**
+     * Delayed message.
+     */
+    private static final class Message {
+        final long timeNanos;
+        final Runnable task;
+
+        Message(long timeNanos, Runnable task) {
+            this.timeNanos = timeNanos;
+            this.task = task;
+        }
+    }
+}
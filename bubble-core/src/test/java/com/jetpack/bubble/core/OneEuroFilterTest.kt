@@ -0,0 +1,53 @@
+package com.jetpack.bubble.core
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.math.abs
+
+class OneEuroFilterTest {
+
+    @Test
+    fun restingNoise_isSmoothedBelowOnePixel() {
+        val filter = OneEuroFilter(MIN_CUTOFF, BETA, MAX_DEVIATION)
+        var min = Float.MAX_VALUE
+        var max = -Float.MAX_VALUE
+        for (i in 0 until 120) {
+            // ±1 px of touch noise around 200 px
+            val value = filter.filter(200f + if (i % 2 == 0) 1f else -1f, i * FRAME_MILLIS)
+            if (i > 30) {
+                min = minOf(min, value)
+                max = maxOf(max, value)
+            }
+        }
+        assertTrue("range=${max - min}", max - min < 0.5f)
+    }
+
+    @Test
+    fun fastMotion_lagsLessThanMaxDeviation() {
+        val filter = OneEuroFilter(MIN_CUTOFF, BETA, MAX_DEVIATION)
+        var lastInput = 0f
+        var lastOutput = 0f
+        for (i in 0 until 60) {
+            // 2000 px/s
+            lastInput = i * 32f
+            lastOutput = filter.filter(lastInput, i * FRAME_MILLIS)
+        }
+        assertTrue(abs(lastInput - lastOutput) <= MAX_DEVIATION)
+    }
+
+    @Test
+    fun reset_startsFromNextSample() {
+        val filter = OneEuroFilter(MIN_CUTOFF, BETA, MAX_DEVIATION)
+        filter.filter(0f, 0)
+        filter.reset()
+        assertEquals(500f, filter.filter(500f, FRAME_MILLIS), 0f)
+    }
+
+    private companion object {
+        const val MIN_CUTOFF = 1.5f
+        const val BETA = 0.01f
+        const val MAX_DEVIATION = 3f
+        const val FRAME_MILLIS = 16L
+    }
+}
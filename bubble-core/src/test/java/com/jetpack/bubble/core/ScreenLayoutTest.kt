@@ -0,0 +1,131 @@
+package com.jetpack.bubble.core
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class ScreenLayoutTest {
+
+    @Test
+    fun portrait_limitsExcludeStatusBar() {
+        val layout = ScreenLayout(STATUS_BAR, STATUS_BAR_LANDSCAPE, NAVIGATION_BAR, NAVIGATION_BAR_LANDSCAPE, false)
+        layout.update(false, false, true, true, 0, 0, 0, NAVIGATION_BAR, 0)
+        val position = Bounds()
+        layout.computePositionLimit(position, SCREEN_WIDTH, SCREEN_HEIGHT, VIEW_SIZE, VIEW_SIZE, OVER_MARGIN)
+
+        assertEquals(STATUS_BAR, layout.statusBarHeight)
+        assertEquals(-OVER_MARGIN, position.left)
+        assertEquals(SCREEN_WIDTH - VIEW_SIZE + OVER_MARGIN, position.right)
+        assertEquals(SCREEN_HEIGHT - STATUS_BAR - VIEW_SIZE, position.bottom)
+    }
+
+    @Test
+    fun topCutoutInPortrait_movesStatusBarToTouchOffset() {
+        val layout = ScreenLayout(STATUS_BAR, STATUS_BAR_LANDSCAPE, NAVIGATION_BAR, NAVIGATION_BAR_LANDSCAPE, false)
+        layout.update(false, false, true, true, CUTOUT, 0, 0, NAVIGATION_BAR, 0)
+
+        assertEquals(0, layout.statusBarHeight)
+        assertEquals(CUTOUT, layout.touchYOffset)
+    }
+
+    @Test
+    fun phoneLandscapeWithHiddenNavigationBar_extendsLimitsHorizontally() {
+        val layout = ScreenLayout(STATUS_BAR, STATUS_BAR_LANDSCAPE, NAVIGATION_BAR, NAVIGATION_BAR_LANDSCAPE, false)
+        layout.update(false, true, false, true, 0, 0, 0, 0, NAVIGATION_BAR_LANDSCAPE)
+        val move = Bounds()
+        layout.computeMoveLimit(move, SCREEN_HEIGHT, SCREEN_WIDTH, VIEW_SIZE, VIEW_SIZE)
+
+        assertEquals(STATUS_BAR_LANDSCAPE, layout.statusBarHeight)
+        assertEquals(NAVIGATION_BAR_LANDSCAPE, layout.navigationBarHorizontalOffset)
+        assertEquals(0, layout.navigationBarVerticalOffset)
+        assertEquals(SCREEN_HEIGHT + VIEW_SIZE + NAVIGATION_BAR_LANDSCAPE, move.right)
+        assertEquals(-VIEW_SIZE * 2, move.top)
+    }
+
+    @Test
+    fun tabletLandscapeWithHiddenNavigationBar_extendsLimitsVertically() {
+        val layout = ScreenLayout(STATUS_BAR, STATUS_BAR_LANDSCAPE, NAVIGATION_BAR, NAVIGATION_BAR_LANDSCAPE, true)
+        layout.update(false, true, false, true, 0, 0, 0, 0, 0)
+
+        assertEquals(NAVIGATION_BAR_LANDSCAPE, layout.navigationBarVerticalOffset)
+        assertEquals(0, layout.navigationBarHorizontalOffset)
+    }
+
+    @Test
+    fun windowPositionByTouch_appliesOffsets() {
+        val layout = ScreenLayout(STATUS_BAR, STATUS_BAR_LANDSCAPE, NAVIGATION_BAR, NAVIGATION_BAR_LANDSCAPE, false)
+        layout.update(false, false, true, true, CUTOUT, 0, 0, NAVIGATION_BAR, 0)
+
+        assertEquals(400f, layout.windowXByTouch(450f, 50f), 0f)
+        // bottom-left origin: the window bottom sits at screen height - (top of the view + view height)
+        assertEquals((SCREEN_HEIGHT - (1000 - 50 + VIEW_SIZE - CUTOUT)).toFloat(),
+                layout.windowYByTouch(1000f, 50f, SCREEN_HEIGHT, VIEW_SIZE), 0f)
+    }
+
+    @Test
+    fun insets_matchTheHeuristicsOfAPhone() {
+        val heuristic = ScreenLayout(STATUS_BAR, STATUS_BAR_LANDSCAPE, NAVIGATION_BAR, NAVIGATION_BAR_LANDSCAPE, false)
+        val insets = ScreenLayout(0, 0, 0, 0, false)
+
+        // portrait, all bars visible
+        heuristic.update(false, false, true, true, 0, 0, 0, NAVIGATION_BAR, 0)
+        insets.updateFromInsets(false, false, true, 0, 0, STATUS_BAR, 0, 0, NAVIGATION_BAR)
+        assertSameOffsets(heuristic, insets)
+
+        // portrait, navigation bar hidden
+        heuristic.update(false, true, true, true, 0, 0, 0, 0, 0)
+        insets.updateFromInsets(false, true, true, 0, 0, STATUS_BAR, 0, 0, NAVIGATION_BAR)
+        assertSameOffsets(heuristic, insets)
+
+        // landscape, navigation bar hidden on the right
+        heuristic.update(false, true, false, true, 0, 0, 0, 0, NAVIGATION_BAR_LANDSCAPE)
+        insets.updateFromInsets(false, true, false, 0, 0, STATUS_BAR_LANDSCAPE, 0, NAVIGATION_BAR_LANDSCAPE, 0)
+        assertSameOffsets(heuristic, insets)
+
+        // portrait with a top cutout, status bar hidden
+        heuristic.update(true, false, true, true, CUTOUT, 0, 0, NAVIGATION_BAR, 0)
+        insets.updateFromInsets(true, false, true, CUTOUT, 0, STATUS_BAR, 0, 0, NAVIGATION_BAR)
+        assertSameOffsets(heuristic, insets)
+    }
+
+    @Test
+    fun insets_useTheExactNavigationBarSize() {
+        // gesture navigation: a thin navigation bar that no resource dimension describes
+        val layout = ScreenLayout(STATUS_BAR, STATUS_BAR_LANDSCAPE, NAVIGATION_BAR, NAVIGATION_BAR_LANDSCAPE, false)
+        layout.updateFromInsets(false, true, true, 0, 0, STATUS_BAR, 0, 0, GESTURE_NAVIGATION_BAR)
+        val position = Bounds()
+        layout.computePositionLimit(position, SCREEN_WIDTH, SCREEN_HEIGHT, VIEW_SIZE, VIEW_SIZE, OVER_MARGIN)
+
+        assertEquals(GESTURE_NAVIGATION_BAR, layout.navigationBarVerticalOffset)
+        assertEquals(SCREEN_HEIGHT - STATUS_BAR - VIEW_SIZE + GESTURE_NAVIGATION_BAR, position.bottom)
+    }
+
+    @Test
+    fun insets_leftNavigationBarOffsetsTouch() {
+        val layout = ScreenLayout(0, 0, 0, 0, false)
+        layout.updateFromInsets(false, false, false, 0, NAVIGATION_BAR_LANDSCAPE, STATUS_BAR_LANDSCAPE, NAVIGATION_BAR_LANDSCAPE, 0, 0)
+
+        assertEquals(NAVIGATION_BAR_LANDSCAPE, layout.touchXOffset)
+        assertEquals(0, layout.navigationBarHorizontalOffset)
+    }
+
+    private fun assertSameOffsets(expected: ScreenLayout, actual: ScreenLayout) {
+        assertEquals(expected.statusBarHeight, actual.statusBarHeight)
+        assertEquals(expected.navigationBarVerticalOffset, actual.navigationBarVerticalOffset)
+        assertEquals(expected.navigationBarHorizontalOffset, actual.navigationBarHorizontalOffset)
+        assertEquals(expected.touchXOffset, actual.touchXOffset)
+        assertEquals(expected.touchYOffset, actual.touchYOffset)
+    }
+
+    companion object {
+        private const val GESTURE_NAVIGATION_BAR = 48
+        private const val SCREEN_WIDTH = 1080
+        private const val SCREEN_HEIGHT = 2340
+        private const val VIEW_SIZE = 168
+        private const val OVER_MARGIN = 16
+        private const val STATUS_BAR = 72
+        private const val STATUS_BAR_LANDSCAPE = 60
+        private const val NAVIGATION_BAR = 126
+        private const val NAVIGATION_BAR_LANDSCAPE = 112
+        private const val CUTOUT = 90
+    }
+}
@@ -0,0 +1,60 @@
+package com.jetpack.bubble.core
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+
+class TouchTraceTest {
+
+    @Test
+    fun fullBuffer_overwritesTheOldestSamples() {
+        val trace = TouchTrace(3)
+        for (i in 0 until 5) {
+            trace.record(ACTION_MOVE, i.toFloat(), -i.toFloat(), 100L + i, false)
+        }
+
+        assertEquals(3, trace.size)
+        assertEquals(2f, trace.getRawX(0), 0f)
+        assertEquals(-4f, trace.getRawY(2), 0f)
+        assertEquals(104L, trace.getTimeMillis(2))
+    }
+
+    @Test
+    fun writeAndRead_keepsEverySample() {
+        val trace = TouchTrace(8)
+        trace.record(ACTION_DOWN, 10f, 20f, 5_000L, false)
+        trace.record(ACTION_MOVE, 11.5f, 21.25f, 5_004L, true)
+        trace.record(ACTION_MOVE, 13f, 22f, 5_008L, false)
+        trace.record(ACTION_UP, 13f, 22f, 5_030L, false)
+
+        val out = ByteArrayOutputStream()
+        trace.writeTo(out)
+        val read = TouchTrace.readFrom(ByteArrayInputStream(out.toByteArray()))
+
+        assertEquals(trace.size, read.size)
+        for (i in 0 until trace.size) {
+            assertEquals(trace.getAction(i), read.getAction(i))
+            assertEquals(trace.isHistorical(i), read.isHistorical(i))
+            assertEquals(trace.getRawX(i), read.getRawX(i), 0f)
+            assertEquals(trace.getRawY(i), read.getRawY(i), 0f)
+            assertEquals(trace.getTimeMillis(i), read.getTimeMillis(i))
+        }
+        assertTrue(read.isHistorical(1))
+        assertFalse(read.isHistorical(2))
+    }
+
+    @Test(expected = IOException::class)
+    fun readFrom_rejectsOtherData() {
+        TouchTrace.readFrom(ByteArrayInputStream(ByteArray(32)))
+    }
+
+    private companion object {
+        const val ACTION_DOWN = 0
+        const val ACTION_UP = 1
+        const val ACTION_MOVE = 2
+    }
+}
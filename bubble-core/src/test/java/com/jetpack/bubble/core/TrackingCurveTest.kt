@@ -0,0 +1,49 @@
+package com.jetpack.bubble.core
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.math.abs
+
+class TrackingCurveTest {
+
+    private val reference = PiecewiseTrackingCurve()
+
+    @Test
+    fun lookupTable_staysWithinErrorBoundOfReference() {
+        val table = LookupTableTrackingCurve(reference, TABLE_SIZE)
+        var maxError = 0f
+        for (i in 0..SAMPLES) {
+            val timeRate = i / SAMPLES.toFloat()
+            maxError = maxOf(maxError, abs(table.getPosition(timeRate) - reference.getPosition(timeRate)))
+        }
+        assertTrue("maxError=$maxError", maxError < MAX_TABLE_ERROR)
+    }
+
+    @Test
+    fun lookupTable_clampsOutsideTimeRange() {
+        val table = LookupTableTrackingCurve(reference, TABLE_SIZE)
+        assertEquals(reference.getPosition(0f), table.getPosition(-1f), 0f)
+        assertEquals(reference.getPosition(1f), table.getPosition(2f), 0f)
+    }
+
+    @Test
+    fun criticallyDamped_reachesTargetWithoutOvershoot() {
+        val spring = CriticallyDampedTrackingCurve(8f)
+        assertEquals(0f, spring.getPosition(0f), 1e-6f)
+        assertEquals(1f, spring.getPosition(1f), 0f)
+        var last = 0f
+        for (i in 1..SAMPLES) {
+            val position = spring.getPosition(i / SAMPLES.toFloat())
+            assertTrue(position >= last)
+            assertTrue(position <= 1f + 1e-6f)
+            last = position
+        }
+    }
+
+    private companion object {
+        const val TABLE_SIZE = 128
+        const val SAMPLES = 10_000
+        const val MAX_TABLE_ERROR = 1e-3f
+    }
+}
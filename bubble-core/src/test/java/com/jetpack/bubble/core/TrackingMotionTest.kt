@@ -0,0 +1,67 @@
+package com.jetpack.bubble.core
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class TrackingMotionTest {
+
+    private val moveLimit = Bounds().apply { set(-100, -200, 1180, 2440) }
+
+    @Test
+    fun normal_reachesTouchPositionAfterCaptureDuration() {
+        val motion = TrackingMotion(CURVE)
+        assertTrue(motion.setTouchPosition(500f, 800f))
+        assertFalse(motion.setTouchPosition(500f, 800f))
+        motion.setState(TrackingMotion.STATE_INTERSECTING)
+        motion.setState(TrackingMotion.STATE_NORMAL)
+
+        assertTrue(motion.update(START_MILLIS, 0, 0, VIEW_SIZE, VIEW_SIZE, moveLimit))
+        assertFalse(motion.isCaptured)
+        assertTrue(motion.update(START_MILLIS + TrackingMotion.CAPTURE_DURATION_MILLIS, 0, 0, VIEW_SIZE, VIEW_SIZE, moveLimit))
+        assertTrue(motion.isCaptured)
+        assertEquals(500, motion.x)
+        assertEquals(800, motion.y)
+    }
+
+    @Test
+    fun normal_isLimitedToMoveLimit() {
+        val motion = TrackingMotion(CURVE)
+        motion.setTouchPosition(-5000f, 5000f)
+
+        motion.update(START_MILLIS + TrackingMotion.CAPTURE_DURATION_MILLIS, moveLimit.left, moveLimit.bottom, VIEW_SIZE, VIEW_SIZE, moveLimit)
+
+        assertEquals(moveLimit.left, motion.x)
+        assertEquals(moveLimit.bottom, motion.y)
+    }
+
+    @Test
+    fun intersecting_centersOnTarget() {
+        val motion = TrackingMotion(CURVE)
+        assertTrue(motion.setTargetPosition(540f, 300f))
+        assertFalse(motion.setTargetPosition(540f, 300f))
+        assertTrue(motion.setState(TrackingMotion.STATE_INTERSECTING))
+        assertFalse(motion.setState(TrackingMotion.STATE_INTERSECTING))
+
+        motion.update(START_MILLIS, 100, 900, VIEW_SIZE, VIEW_SIZE, moveLimit)
+        motion.update(START_MILLIS + TrackingMotion.CAPTURE_DURATION_MILLIS, 0, 0, VIEW_SIZE, VIEW_SIZE, moveLimit)
+
+        assertEquals(540 - VIEW_SIZE / 2, motion.x)
+        assertEquals(300 - VIEW_SIZE / 2, motion.y)
+    }
+
+    @Test
+    fun finishing_computesNothing() {
+        val motion = TrackingMotion(CURVE)
+        motion.setState(TrackingMotion.STATE_FINISHING)
+
+        assertFalse(motion.update(START_MILLIS, 0, 0, VIEW_SIZE, VIEW_SIZE, moveLimit))
+    }
+
+    companion object {
+        private const val START_MILLIS = 10_000L
+        private const val VIEW_SIZE = 168
+        private val CURVE = CriticallyDampedTrackingCurve(8f)
+    }
+}
@@ -0,0 +1,104 @@
+package com.jetpack.bubble.core
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class TrashMotionTest {
+
+    private fun newMotion() = TrashMotion().apply {
+        setIconLimit(DENSITY, BACKGROUND_HEIGHT, ICON_HEIGHT)
+        setTargetSize(168f, 168f)
+        setTargetPosition(540f, 1200f)
+    }
+
+    @Test
+    fun open_settlesAfterDelayAndDuration() {
+        val motion = newMotion()
+        motion.start(TrashMotion.ANIMATION_OPEN, 0L, 0f, ICON_HEIGHT.toFloat())
+
+        assertFalse(motion.updateOpen(100L, 0f, 0f, SCREEN_WIDTH, SCREEN_HEIGHT))
+        assertFalse(motion.isIconMoved)
+        assertEquals(0.5f, motion.alpha, 1e-6f)
+
+        assertFalse(motion.updateOpen(300L, 1f, 0f, SCREEN_WIDTH, SCREEN_HEIGHT))
+        assertTrue(motion.isIconMoved)
+
+        assertTrue(motion.updateOpen(600L, 1f, 0f, SCREEN_WIDTH, SCREEN_HEIGHT))
+        assertEquals(TrashMotion.ANIMATION_OPEN, motion.startedCode)
+    }
+
+    @Test
+    fun close_endsHiddenBelowTheScreen() {
+        val motion = newMotion()
+        motion.start(TrashMotion.ANIMATION_CLOSE, 0L, 1f, 0f)
+
+        assertTrue(motion.updateClose(100L))
+        assertEquals(0.5f, motion.alpha, 1e-6f)
+        assertFalse(motion.updateClose(200L))
+        assertEquals(0f, motion.alpha, 0f)
+        assertEquals(ICON_HEIGHT.toFloat(), motion.translationY, 0f)
+        assertEquals(TrashMotion.ANIMATION_NONE, motion.startedCode)
+    }
+
+    @Test
+    fun forceClose_hidesImmediately() {
+        val motion = newMotion()
+        motion.start(TrashMotion.ANIMATION_OPEN, 0L, 1f, 0f)
+        motion.forceClose()
+
+        assertEquals(0f, motion.alpha, 0f)
+        assertEquals(ICON_HEIGHT.toFloat(), motion.translationY, 0f)
+        assertEquals(TrashMotion.ANIMATION_NONE, motion.startedCode)
+    }
+
+    @Test
+    fun setTargetPosition_reportsChangesOnly() {
+        val motion = newMotion()
+        assertFalse(motion.setTargetPosition(540f, 1200f))
+        assertTrue(motion.setTargetPosition(541f, 1200f))
+    }
+
+    @Test
+    fun iconReach_coversTheOvershootOfTheOpenAnimation() {
+        val motion = newMotion()
+        // a target at the bottom of the screen pulls the icon to the top of its range
+        motion.setTargetPosition(540f, SCREEN_HEIGHT)
+        motion.start(TrashMotion.ANIMATION_OPEN, 0L, 1f, ICON_HEIGHT.toFloat())
+        var highest = 0f
+        for (now in 0L..700L) {
+            motion.updateOpen(now, 1f, 0f, SCREEN_WIDTH, SCREEN_HEIGHT)
+            highest = maxOf(highest, ICON_HEIGHT - motion.translationY)
+        }
+        val reach = TrashMotion.computeIconReach(DENSITY, BACKGROUND_HEIGHT, ICON_HEIGHT)
+
+        assertTrue("highest=$highest reach=$reach", highest <= reach)
+        assertEquals(reach, highest, 1f)
+    }
+
+    @Test
+    fun overshootPeak_isTheHighestPointOfTheInterpolator() {
+        for (tension in floatArrayOf(1f, 2f, 3.5f)) {
+            // same curve as OvershootInterpolator
+            var highest = 0f
+            for (i in 0..SAMPLES) {
+                val t = i.toFloat() / SAMPLES - 1f
+                highest = maxOf(highest, t * t * ((tension + 1) * t + tension) + 1f)
+            }
+
+            assertEquals("tension=$tension", highest, TrashMotion.overshootPeak(tension), 1e-4f)
+        }
+        // the default tension of OvershootInterpolator
+        assertEquals(1.1317f, TrashMotion.overshootPeak(2f), 1e-4f)
+    }
+
+    companion object {
+        private const val DENSITY = 2.625f
+        private const val BACKGROUND_HEIGHT = 430f
+        private const val ICON_HEIGHT = 200
+        private const val SCREEN_WIDTH = 1080f
+        private const val SCREEN_HEIGHT = 2340f
+        private const val SAMPLES = 10000
+    }
+}
@@ -0,0 +1,48 @@
+package com.jetpack.bubble.core
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class VelocityEstimatorTest {
+
+    @Test
+    fun constantVelocity_isExact() {
+        val estimator = VelocityEstimator()
+        estimator.start()
+        // 2 px/ms to the right, 1 px/ms up, sampled every 4 ms like a 240 Hz panel
+        for (i in 0..20) {
+            estimator.addSample(100f + i * 8f, 500f - i * 4f, 1000L + i * 4L)
+        }
+        estimator.computeCurrentVelocity(1000)
+
+        assertEquals(2000f, estimator.xVelocity, 0.5f)
+        assertEquals(-1000f, estimator.yVelocity, 0.5f)
+    }
+
+    @Test
+    fun acceleratingPointer_usesSlopeAtNewestSample() {
+        val estimator = VelocityEstimator()
+        estimator.start()
+        // x = 0.01 * t^2, so the velocity at t = 80 ms is 1.6 px/ms
+        for (t in 0..80 step 8) {
+            estimator.addSample(0.01f * t * t, 0f, t.toLong())
+        }
+        estimator.computeCurrentVelocity(1000)
+
+        assertEquals(1600f, estimator.xVelocity, 1f)
+    }
+
+    @Test
+    fun stoppedPointer_dropsOldSamples() {
+        val estimator = VelocityEstimator()
+        estimator.start()
+        for (i in 0..5) {
+            estimator.addSample(i * 20f, 0f, i * 8L)
+        }
+        // the finger rested before moving again
+        estimator.addSample(100f, 0f, 200L)
+        estimator.computeCurrentVelocity(1000)
+
+        assertEquals(0f, estimator.xVelocity, 0f)
+    }
+}
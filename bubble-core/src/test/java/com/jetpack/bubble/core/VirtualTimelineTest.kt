@@ -0,0 +1,62 @@
+package com.jetpack.bubble.core
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class VirtualTimelineTest {
+
+    @Test
+    fun messages_runAtTheirOwnTimeBeforeTheFrame() {
+        val timeline = VirtualTimeline(1000L)
+        val log = ArrayList<String>()
+        timeline.postDelayed({ log.add("message@${timeline.uptimeMillis()}") }, 10L)
+        timeline.postFrameCallback { log.add("frame@${timeline.uptimeMillis()}") }
+
+        assertTrue(timeline.advanceFrame())
+
+        assertEquals(listOf("message@1010", "frame@1016"), log)
+        assertTrue(timeline.isIdle)
+        assertEquals(1L, timeline.frameCount)
+    }
+
+    @Test
+    fun callbackPostedInFrame_runsInNextFrame() {
+        val timeline = VirtualTimeline(0L)
+        var runs = 0
+        val callback = object : FrameSource.FrameCallback {
+            override fun doFrame(frameTimeNanos: Long) {
+                runs++
+                if (runs < 3) {
+                    timeline.postFrameCallback(this)
+                }
+            }
+        }
+        timeline.postFrameCallback(callback)
+        timeline.postFrameCallback(callback)
+
+        while (timeline.advanceFrame()) {
+            // run until idle
+        }
+
+        assertEquals(3, runs)
+        assertEquals(3L, timeline.frameCount)
+        assertEquals(1, timeline.peakPendingCount)
+    }
+
+    @Test
+    fun removedMessage_neverRuns() {
+        val timeline = VirtualTimeline(0L)
+        var isRun = false
+        val task = Runnable { isRun = true }
+        timeline.postDelayed(task, 5L)
+        assertTrue(timeline.hasCallbacks(task))
+
+        timeline.removeCallbacks(task)
+
+        assertFalse(timeline.advanceFrame())
+        assertFalse(isRun)
+        assertTrue(timeline.isIdle)
+    }
+}
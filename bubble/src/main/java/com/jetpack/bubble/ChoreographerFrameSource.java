@@ -0,0 +1,129 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import com.jetpack.bubble.core.FrameSource;
+
+import java.util.ArrayList;
+
+/**
+ * {@link FrameSource} driven by the vsync of {@link Choreographer}.<br/>
+ * All callbacks share one Choreographer callback, and the delayed tasks run on the main Looper.
+ */
+final class ChoreographerFrameSource implements FrameSource, Choreographer.FrameCallback {
+
+    /**
+     * Choreographer
+     */
+    private final Choreographer mChoreographer;
+
+    /**
+     * Handler of the main Looper
+     */
+    private final Handler mHandler;
+
+    /**
+     * Callbacks that run in the next frame
+     */
+    private ArrayList<FrameCallback> mCallbacks;
+
+    /**
+     * Callbacks running in the current frame
+     */
+    private ArrayList<FrameCallback> mRunningCallbacks;
+
+    /**
+     * True if the Choreographer callback is posted
+     */
+    private boolean mIsScheduled;
+
+    /**
+     * コンストラクタ
+     */
+    ChoreographerFrameSource() {
+        mChoreographer = Choreographer.getInstance();
+        mHandler = new Handler(Looper.getMainLooper());
+        mCallbacks = new ArrayList<>();
+        mRunningCallbacks = new ArrayList<>();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void postFrameCallback(FrameCallback callback) {
+        if (!mCallbacks.contains(callback)) {
+            mCallbacks.add(callback);
+        }
+        if (!mIsScheduled) {
+            mIsScheduled = true;
+            mChoreographer.postFrameCallback(this);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeFrameCallback(FrameCallback callback) {
+        mCallbacks.remove(callback);
+        final int index = mRunningCallbacks.indexOf(callback);
+        if (index != -1) {
+            mRunningCallbacks.set(index, null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void postDelayed(Runnable task, long delayMillis) {
+        mHandler.postDelayed(task, delayMillis);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeCallbacks(Runnable task) {
+        mHandler.removeCallbacks(task);
+    }
+
+    /**
+     * Run the posted callbacks.
+     */
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mIsScheduled = false;
+        // Callbacks posted while running are kept for the next frame
+        final ArrayList<FrameCallback> callbacks = mCallbacks;
+        mCallbacks = mRunningCallbacks;
+        mRunningCallbacks = callbacks;
+        final int size = callbacks.size();
+        for (int i = 0; i < size; i++) {
+            final FrameCallback callback = callbacks.get(i);
+            if (callback != null) {
+                callback.doFrame(frameTimeNanos);
+            }
+        }
+        callbacks.clear();
+    }
+}
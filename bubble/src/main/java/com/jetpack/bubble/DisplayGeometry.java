@@ -0,0 +1,400 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Insets;
+import android.graphics.Rect;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.DisplayMetrics;
+import android.view.Display;
+import android.view.KeyCharacterMap;
+import android.view.KeyEvent;
+import android.view.ViewConfiguration;
+import android.view.WindowInsets;
+import android.view.WindowManager;
+import android.view.WindowMetrics;
+
+/**
+ * Process-wide cache of the display geometry shared by the overlay views.<br/>
+ * The display metrics and the system bar dimensions are read once per configuration or display change,
+ * and every view gets the same immutable {@link Snapshot} until then.
+ */
+final class DisplayGeometry implements DisplayManager.DisplayListener {
+
+    /**
+     * Instance of the process(bound to the application context)
+     */
+    private static DisplayGeometry sInstance;
+
+    /**
+     * Application context
+     */
+    private final Context mContext;
+
+    /**
+     * WindowManager
+     */
+    private final WindowManager mWindowManager;
+
+    /**
+     * DisplayManager(null if not available)
+     */
+    private final DisplayManager mDisplayManager;
+
+    /**
+     * Configuration the snapshot was built from
+     */
+    private final Configuration mConfiguration;
+
+    /**
+     * Current snapshot(null if invalidated)
+     */
+    private Snapshot mSnapshot;
+
+    /**
+     * Number of snapshots built
+     */
+    private int mSnapshotCount;
+
+    /**
+     * Number of users that keep the display listener registered
+     */
+    private int mUserCount;
+
+    /**
+     * Get the instance shared by the process.
+     *
+     * @param context {@link Context}
+     * @return {@link DisplayGeometry}
+     */
+    static DisplayGeometry getInstance(Context context) {
+        final Context applicationContext = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+        if (sInstance == null || sInstance.mContext != applicationContext) {
+            if (sInstance != null) {
+                sInstance.unregister();
+            }
+            sInstance = new DisplayGeometry(applicationContext);
+        }
+        return sInstance;
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param context application context
+     */
+    private DisplayGeometry(Context context) {
+        mContext = context;
+        mWindowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        mDisplayManager = (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
+        mConfiguration = new Configuration();
+    }
+
+    /**
+     * Start listening to the display changes for a user(e.g. {@link FloatingViewManager} while its views are attached).<br/>
+     * The listener is registered by the first user only.
+     */
+    void acquire() {
+        mUserCount++;
+        if (mUserCount == 1) {
+            // the display may have changed while nobody was listening
+            invalidate();
+            if (mDisplayManager != null) {
+                mDisplayManager.registerDisplayListener(this, new Handler(Looper.getMainLooper()));
+            }
+        }
+    }
+
+    /**
+     * Stop listening to the display changes for a user. The listener is unregistered with the last user.
+     */
+    void release() {
+        if (mUserCount == 0) {
+            return;
+        }
+        mUserCount--;
+        if (mUserCount == 0) {
+            unregister();
+        }
+    }
+
+    /**
+     * @return true if the display listener is registered
+     */
+    boolean isListening() {
+        return mUserCount > 0;
+    }
+
+    /**
+     * Get the geometry of the current configuration and display. The snapshot is rebuilt only after a change.
+     *
+     * @return {@link Snapshot}
+     */
+    Snapshot getSnapshot() {
+        final Configuration configuration = mContext.getResources().getConfiguration();
+        if (mSnapshot == null || mConfiguration.diff(configuration) != 0) {
+            mConfiguration.setTo(configuration);
+            mSnapshot = new Snapshot(mContext, mWindowManager);
+            mSnapshotCount++;
+        }
+        return mSnapshot;
+    }
+
+    /**
+     * Drop the snapshot so that the next {@link #getSnapshot()} reads the display again.
+     */
+    void invalidate() {
+        mSnapshot = null;
+    }
+
+    /**
+     * @return number of snapshots built
+     */
+    int getSnapshotCount() {
+        return mSnapshotCount;
+    }
+
+    /**
+     * Stop listening to the display.
+     */
+    private void unregister() {
+        if (mDisplayManager != null) {
+            mDisplayManager.unregisterDisplayListener(this);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onDisplayAdded(int displayId) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onDisplayRemoved(int displayId) {
+    }
+
+    /**
+     * Rotations by 180 degrees and resolution changes do not always change the configuration.
+     */
+    @Override
+    public void onDisplayChanged(int displayId) {
+        if (displayId == Display.DEFAULT_DISPLAY) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Immutable geometry of the display at a point in time.
+     */
+    static final class Snapshot {
+
+        /**
+         * Size of the application area(px)
+         */
+        final int widthPixels;
+        final int heightPixels;
+
+        /**
+         * Size of the whole display including the system bars(px)
+         */
+        final int realWidthPixels;
+        final int realHeightPixels;
+
+        /**
+         * Logical density of the display
+         */
+        final float density;
+
+        /**
+         * Surface.ROTATION_*
+         */
+        final int rotation;
+
+        /**
+         * True if the screen size is large or more
+         */
+        final boolean isTablet;
+
+        /**
+         * True if there is a software navigation bar
+         */
+        final boolean hasSoftNavigationBar;
+
+        /**
+         * Height of the status bar in portrait and rotated(px)
+         */
+        final int statusBarHeight;
+        final int statusBarRotatedHeight;
+
+        /**
+         * Height of the navigation bar in portrait and rotated(0 without a software navigation bar)
+         */
+        final int navigationBarHeight;
+        final int navigationBarRotatedHeight;
+
+        /**
+         * True if the insets below were read from {@link WindowMetrics}(Android 11 and later).<br/>
+         * Otherwise the bar dimensions above come from the system resources and the insets are 0.
+         */
+        final boolean hasExactInsets;
+
+        /**
+         * Insets of the status bar and the navigation bar in the current rotation, regardless of their visibility(px)
+         */
+        final int statusBarInsetTop;
+        final int navigationBarInsetLeft;
+        final int navigationBarInsetRight;
+        final int navigationBarInsetBottom;
+
+        /**
+         * コンストラクタ
+         *
+         * @param context       application context
+         * @param windowManager {@link WindowManager} of the application context
+         */
+        Snapshot(Context context, WindowManager windowManager) {
+            final Display display = windowManager.getDefaultDisplay();
+            rotation = display.getRotation();
+            final Resources resources = context.getResources();
+            isTablet = (resources.getConfiguration().screenLayout & Configuration.SCREENLAYOUT_SIZE_MASK) >= Configuration.SCREENLAYOUT_SIZE_LARGE;
+
+            final WindowInsets windowInsets;
+            final Rect bounds;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                final WindowMetrics windowMetrics = windowManager.getCurrentWindowMetrics();
+                windowInsets = windowMetrics.getWindowInsets();
+                bounds = windowMetrics.getBounds();
+            } else {
+                windowInsets = null;
+                bounds = null;
+            }
+            hasExactInsets = windowInsets != null && bounds != null;
+            if (!hasExactInsets) {
+                // compatibility path
+                final DisplayMetrics metrics = new DisplayMetrics();
+                display.getMetrics(metrics);
+                widthPixels = metrics.widthPixels;
+                heightPixels = metrics.heightPixels;
+                density = metrics.density;
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+                    display.getRealMetrics(metrics);
+                }
+                realWidthPixels = metrics.widthPixels;
+                realHeightPixels = metrics.heightPixels;
+                hasSoftNavigationBar = hasSoftNavigationBar(context, realWidthPixels, realHeightPixels, widthPixels, heightPixels);
+                statusBarHeight = getSystemUiDimensionPixelSize(resources, "status_bar_height");
+                statusBarRotatedHeight = getStatusBarRotatedHeight(resources, statusBarHeight);
+                if (hasSoftNavigationBar) {
+                    navigationBarHeight = getSystemUiDimensionPixelSize(resources, "navigation_bar_height");
+                    final String resName = isTablet ? "navigation_bar_height_landscape" : "navigation_bar_width";
+                    navigationBarRotatedHeight = getSystemUiDimensionPixelSize(resources, resName);
+                } else {
+                    navigationBarHeight = 0;
+                    navigationBarRotatedHeight = 0;
+                }
+                statusBarInsetTop = 0;
+                navigationBarInsetLeft = 0;
+                navigationBarInsetRight = 0;
+                navigationBarInsetBottom = 0;
+                return;
+            }
+
+            // Android 11 and later: one WindowMetrics query gives the sizes and the exact insets
+            final Insets statusBars = windowInsets.getInsetsIgnoringVisibility(WindowInsets.Type.statusBars());
+            final Insets navigationBars = windowInsets.getInsetsIgnoringVisibility(WindowInsets.Type.navigationBars());
+            final Insets decor = windowInsets.getInsetsIgnoringVisibility(WindowInsets.Type.navigationBars() | WindowInsets.Type.displayCutout());
+            realWidthPixels = bounds.width();
+            realHeightPixels = bounds.height();
+            // Same area as Display#getMetrics(the navigation bar and the cutout are excluded)
+            widthPixels = realWidthPixels - decor.left - decor.right;
+            heightPixels = realHeightPixels - decor.top - decor.bottom;
+            density = resources.getDisplayMetrics().density;
+            statusBarInsetTop = statusBars.top;
+            navigationBarInsetLeft = navigationBars.left;
+            navigationBarInsetRight = navigationBars.right;
+            navigationBarInsetBottom = navigationBars.bottom;
+            hasSoftNavigationBar = navigationBarInsetLeft != 0 || navigationBarInsetRight != 0 || navigationBarInsetBottom != 0;
+            // Only the current rotation is known
+            statusBarHeight = statusBarInsetTop;
+            statusBarRotatedHeight = statusBarInsetTop;
+            navigationBarHeight = navigationBarInsetBottom;
+            navigationBarRotatedHeight = isTablet ? navigationBarInsetBottom : Math.max(navigationBarInsetLeft, navigationBarInsetRight);
+        }
+
+        /**
+         * Get the height of the status bar in landscape.
+         *
+         * @param resources       {@link Resources}
+         * @param statusBarHeight height of the status bar in portrait
+         * @return pixel size
+         */
+        private static int getStatusBarRotatedHeight(Resources resources, int statusBarHeight) {
+            // Check landscape resource id
+            final int statusBarLandscapeResId = resources.getIdentifier("status_bar_height_landscape", "dimen", "android");
+            if (statusBarLandscapeResId > 0) {
+                return resources.getDimensionPixelSize(statusBarLandscapeResId);
+            }
+            return statusBarHeight;
+        }
+
+        /**
+         * Check if there is a software navigation bar(including the navigation bar in the screen).
+         *
+         * @return True if there is a software navigation bar
+         */
+        private static boolean hasSoftNavigationBar(Context context, int realWidth, int realHeight, int width, int height) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+                return realHeight > height || realWidth > width;
+            }
+
+            // old device check flow
+            // Navigation bar exists (config_showNavigationBar is true, or both the menu key and the back key are not exists)
+            final Resources resources = context.getResources();
+            final boolean hasMenuKey = ViewConfiguration.get(context).hasPermanentMenuKey();
+            final boolean hasBackKey = KeyCharacterMap.deviceHasKey(KeyEvent.KEYCODE_BACK);
+            final int showNavigationBarResId = resources.getIdentifier("config_showNavigationBar", "bool", "android");
+            final boolean hasNavigationBarConfig = showNavigationBarResId != 0 && resources.getBoolean(showNavigationBarResId);
+            return hasNavigationBarConfig || (!hasMenuKey && !hasBackKey);
+        }
+
+        /**
+         * Get the System ui dimension(pixel)
+         *
+         * @param resources {@link Resources}
+         * @param resName   dimension resource name
+         * @return pixel size
+         */
+        private static int getSystemUiDimensionPixelSize(Resources resources, String resName) {
+            int pixelSize = 0;
+            final int resId = resources.getIdentifier(resName, "dimen", "android");
+            if (resId > 0) {
+                pixelSize = resources.getDimensionPixelSize(resId);
+            }
+            return pixelSize;
+        }
+    }
+}
@@ -16,42 +16,43 @@
 
 package com.jetpack.bubble;
 
-import android.animation.TimeInterpolator;
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.Configuration;
-import android.content.res.Resources;
 import android.graphics.PixelFormat;
 import android.graphics.Rect;
 import android.os.Build;
-import android.os.Handler;
-import android.os.Message;
-import android.os.SystemClock;
-import androidx.dynamicanimation.animation.DynamicAnimation;
-import androidx.dynamicanimation.animation.FlingAnimation;
-import androidx.dynamicanimation.animation.FloatValueHolder;
-import androidx.dynamicanimation.animation.SpringAnimation;
-import androidx.dynamicanimation.animation.SpringForce;
 import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
-import androidx.core.view.ViewCompat;
-import android.util.DisplayMetrics;
+import androidx.annotation.Nullable;
 import android.view.Gravity;
-import android.view.KeyCharacterMap;
-import android.view.KeyEvent;
 import android.view.MotionEvent;
-import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
 import android.view.WindowManager;
-import android.view.animation.OvershootInterpolator;
 import android.widget.FrameLayout;
 
+import com.jetpack.bubble.core.Bounds;
+import com.jetpack.bubble.core.BubbleGeometry;
+import com.jetpack.bubble.core.CriticallyDampedTrackingCurve;
+import com.jetpack.bubble.core.FrameSource;
+import com.jetpack.bubble.core.LookupTableTrackingCurve;
+import com.jetpack.bubble.core.OneEuroFilter;
+import com.jetpack.bubble.core.PhysicsSolver;
+import com.jetpack.bubble.core.PiecewiseTrackingCurve;
+import com.jetpack.bubble.core.ScreenLayout;
+import com.jetpack.bubble.core.SnapAnimator;
+import com.jetpack.bubble.core.TrackingCurve;
+import com.jetpack.bubble.core.TouchTrace;
+import com.jetpack.bubble.core.TrackingMotion;
+import com.jetpack.bubble.core.TrajectoryCache;
+import com.jetpack.bubble.core.VelocityEstimator;
+
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
 
 /**
  * フローティングViewを表すクラスです。
@@ -73,7 +74,7 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
     /**
      * 画面端移動アニメーションの時間
      */
-    private static final long MOVE_TO_EDGE_DURATION = 450L;
+    static final long MOVE_TO_EDGE_DURATION = 450L;
 
     /**
      * 画面端移動アニメーションの係数
@@ -90,6 +91,21 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
      */
     private static final float ANIMATION_SPRING_X_STIFFNESS = 350f;
 
+    /**
+     * Damping ratio constant for spring animation (Y coordinate)
+     */
+    private static final float ANIMATION_SPRING_Y_DAMPING_RATIO = 0.75f;
+
+    /**
+     * Stiffness constant for spring animation (Y coordinate)
+     */
+    private static final float ANIMATION_SPRING_Y_STIFFNESS = 200f;
+
+    /**
+     * Minimum visible change of the physics-based animation(px)
+     */
+    private static final float ANIMATION_MIN_VISIBLE_CHANGE = 1f;
+
     /**
      * Friction constant for fling animation (X coordinate)
      */
@@ -105,20 +121,70 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
      */
     private static final int CURRENT_VELOCITY_UNITS = 1000;
 
+    /**
+     * Longest time the finger position is predicted ahead in low-latency drag mode(ms)
+     */
+    private static final long PREDICTION_HORIZON_MILLIS = 16L;
+
+    /**
+     * Longest distance the finger position is predicted ahead in low-latency drag mode(dp)
+     */
+    private static final float PREDICTION_MAX_DISTANCE_DP = 24f;
+
+    /**
+     * Cutoff frequency of the drag filter when the finger is still(Hz)
+     */
+    private static final float TOUCH_FILTER_MIN_CUTOFF = 1.5f;
+
+    /**
+     * Increase of the drag filter cutoff frequency per finger speed(Hz per px/s)
+     */
+    private static final float TOUCH_FILTER_BETA = 0.01f;
+
+    /**
+     * Largest distance between the finger and the filtered drag position(dp)
+     */
+    private static final float TOUCH_FILTER_MAX_DEVIATION_DP = 3f;
+
+    /**
+     * Smallest move committed while the bubble follows the finger(dp)
+     */
+    private static final float MIN_TRACKING_COMMIT_DELTA_DP = 1f;
+
+    /**
+     * Number of intervals of the tracking curve table
+     */
+    private static final int TRACKING_CURVE_TABLE_SIZE = 128;
+
+    /**
+     * Stiffness of the spring tracking curve(natural frequency multiplied by the capture duration)
+     */
+    private static final float TRACKING_CURVE_SPRING_OMEGA = 8f;
+
+    /**
+     * Original tracking curve sampled into a table(shared by every FloatingView)
+     */
+    private static final TrackingCurve DEFAULT_TRACKING_CURVE = new LookupTableTrackingCurve(new PiecewiseTrackingCurve(), TRACKING_CURVE_TABLE_SIZE);
+
+    /**
+     * Critically damped tracking curve(shared by every FloatingView)
+     */
+    private static final TrackingCurve SPRING_TRACKING_CURVE = new CriticallyDampedTrackingCurve(TRACKING_CURVE_SPRING_OMEGA);
+
     /**
      * 通常状態
      */
-    static final int STATE_NORMAL = 0;
+    static final int STATE_NORMAL = TrackingMotion.STATE_NORMAL;
 
     /**
      * 重なり状態
      */
-    static final int STATE_INTERSECTING = 1;
+    static final int STATE_INTERSECTING = TrackingMotion.STATE_INTERSECTING;
 
     /**
      * 終了状態
      */
-    static final int STATE_FINISHING = 2;
+    static final int STATE_FINISHING = TrackingMotion.STATE_FINISHING;
 
     /**
      * AnimationState
@@ -174,19 +240,19 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
     private static final int OVERLAY_TYPE;
 
     /**
-     * WindowManager
+     * LayoutParams
      */
-    private final WindowManager mWindowManager;
+    private final WindowManager.LayoutParams mParams;
 
     /**
-     * LayoutParams
+     * Commits the LayoutParams once per frame
      */
-    private final WindowManager.LayoutParams mParams;
+    private final WindowLayoutCommitter mLayoutCommitter;
 
     /**
-     * VelocityTracker
+     * Velocity of the drag(reused across gestures)
      */
-    private VelocityTracker mVelocityTracker;
+    private final VelocityEstimator mVelocityEstimator;
 
     /**
      * {@link ViewConfiguration}
@@ -219,9 +285,14 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
     private float mThrowMoveThreshold;
 
     /**
-     * DisplayMetrics
+     * Display geometry shared by the overlay views
      */
-    private final DisplayMetrics mMetrics;
+    private final DisplayGeometry mDisplayGeometry;
+
+    /**
+     * Geometry of the display used by the current layout
+     */
+    private DisplayGeometry.Snapshot mDisplay;
 
     /**
      * 押下処理を通過しているかチェックするための時間
@@ -277,76 +348,49 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
     private boolean mAnimateInitialMove;
 
     /**
-     * status bar's height
-     */
-    private final int mBaseStatusBarHeight;
-
-    /**
-     * status bar's height(landscape)
-     */
-    private final int mBaseStatusBarRotatedHeight;
-
-    /**
-     * Current status bar's height
-     */
-    private int mStatusBarHeight;
-
-    /**
-     * Navigation bar's height(portrait)
+     * Status bar and navigation bar offsets
      */
-    private final int mBaseNavigationBarHeight;
+    private final ScreenLayout mScreenLayout;
 
     /**
-     * Navigation bar's height
-     * Placed bottom on the screen(tablet)
-     * Or placed vertically on the screen(phone)
-     */
-    private final int mBaseNavigationBarRotatedHeight;
-
-    /**
-     * Current Navigation bar's vertical size
-     */
-    private int mNavigationBarVerticalOffset;
-
-    /**
-     * Current Navigation bar's horizontal size
+     * 左・右端に寄せるアニメーション
      */
-    private int mNavigationBarHorizontalOffset;
+    private final SnapAnimationHandler mSnapAnimationHandler;
 
     /**
-     * Offset of touch X coordinate
+     * Physics-based animation(X and Y coordinate)
      */
-    private int mTouchXOffset;
+    private final PhysicsAnimationHandler mPhysicsAnimationHandler;
 
     /**
-     * Offset of touch Y coordinate
+     * 移動限界を表すRect
      */
-    private int mTouchYOffset;
+    private final Bounds mMoveLimitRect;
 
     /**
-     * 左・右端に寄せるアニメーション
+     * 表示位置（画面端）の限界を表すRect
      */
-    private ValueAnimator mMoveEdgeAnimator;
+    private final Bounds mPositionLimitRect;
 
     /**
-     * Interpolator
+     * ドラッグ可能フラグ
      */
-    private final TimeInterpolator mMoveEdgeInterpolator;
+    private boolean mIsDraggable;
 
     /**
-     * 移動限界を表すRect
+     * Event being dispatched that has already been processed(null outside of dispatchTouchEvent)
      */
-    private final Rect mMoveLimitRect;
+    private MotionEvent mProcessedEvent;
 
     /**
-     * 表示位置（画面端）の限界を表すRect
+     * Result of onInterceptTouchEvent for the processed event
      */
-    private final Rect mPositionLimitRect;
+    private boolean mInterceptTouchResult;
 
     /**
-     * ドラッグ可能フラグ
+     * Result of onTouchEvent for the processed event
      */
-    private boolean mIsDraggable;
+    private boolean mTouchEventResult;
 
     /**
      * 形を表す係数
@@ -363,6 +407,16 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
      */
     private final LongPressHandler mLongPressHandler;
 
+    /**
+     * Applies the screen changes notified in a frame as one transaction
+     */
+    private final GeometryRefreshHandler mGeometryRefreshHandler;
+
+    /**
+     * Number of times the limit rects have been recomputed
+     */
+    private int mLimitRefreshCount;
+
     /**
      * 画面端をオーバーするマージン
      */
@@ -378,6 +432,11 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
      */
     private boolean mIsLongPressed;
 
+    /**
+     * True if the press stopped a spring or fling release
+     */
+    private boolean mIsPhysicsInterrupted;
+
     /**
      * 移動方向
      */
@@ -389,9 +448,37 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
     private boolean mUsePhysics;
 
     /**
-     * If true, it's a tablet. If false, it's a phone
+     * Request unbuffered input and track the predicted finger position while dragging
+     */
+    private boolean mIsLowLatencyDrag;
+
+    /**
+     * Recorder of the delivered touch events(null if not recording)
+     */
+    private TouchTrace mTouchTrace;
+
+    /**
+     * Predicted finger movement until the next frame(screen coordinates)
+     */
+    private float mPredictionX;
+    private float mPredictionY;
+
+    /**
+     * Filters that remove the touch noise from the tracking position
+     */
+    private final OneEuroFilter mTouchFilterX;
+    private final OneEuroFilter mTouchFilterY;
+
+    /**
+     * Smallest move committed while the bubble follows the finger(px)
+     */
+    private final int mMinTrackingCommitDelta;
+
+    /**
+     * Sum and number of the distances between the finger and the bubble while dragging(px)
      */
-    private final boolean mIsTablet;
+    private double mDragLagSum;
+    private long mDragLagCount;
 
     /**
      * Surface.ROTATION_XXX
@@ -414,14 +501,16 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
     /**
      * コンストラクタ
      *
-     * @param context {@link Context}
+     * @param context         {@link Context}
+     * @param layoutCommitter {@link WindowLayoutCommitter}
      */
-    FloatingView(final Context context) {
+    FloatingView(final Context context, WindowLayoutCommitter layoutCommitter) {
         super(context);
-        mWindowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        mLayoutCommitter = layoutCommitter;
         mParams = new WindowManager.LayoutParams();
-        mMetrics = new DisplayMetrics();
-        mWindowManager.getDefaultDisplay().getMetrics(mMetrics);
+        mDisplayGeometry = DisplayGeometry.getInstance(context);
+        mDisplay = mDisplayGeometry.getSnapshot();
+        mMinTrackingCommitDelta = Math.max(1, Math.round(MIN_TRACKING_COMMIT_DELTA_DP * mDisplay.density));
         mParams.width = ViewGroup.LayoutParams.WRAP_CONTENT;
         mParams.height = ViewGroup.LayoutParams.WRAP_CONTENT;
         mParams.type = OVERLAY_TYPE;
@@ -432,93 +521,40 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
         mParams.format = PixelFormat.TRANSLUCENT;
         // 左下の座標を0とする
         mParams.gravity = Gravity.LEFT | Gravity.BOTTOM;
-        mAnimationHandler = new FloatingAnimationHandler(this);
-        mLongPressHandler = new LongPressHandler(this);
-        mMoveEdgeInterpolator = new OvershootInterpolator(MOVE_TO_EDGE_OVERSHOOT_TENSION);
+        mAnimationHandler = new FloatingAnimationHandler(this, layoutCommitter);
+        mLongPressHandler = new LongPressHandler(this, layoutCommitter);
+        mGeometryRefreshHandler = new GeometryRefreshHandler(this, layoutCommitter);
+        mPhysicsAnimationHandler = new PhysicsAnimationHandler(this, layoutCommitter);
+        mSnapAnimationHandler = new SnapAnimationHandler(this, layoutCommitter);
+        mVelocityEstimator = new VelocityEstimator();
+        final float touchFilterMaxDeviation = TOUCH_FILTER_MAX_DEVIATION_DP * mDisplay.density;
+        mTouchFilterX = new OneEuroFilter(TOUCH_FILTER_MIN_CUTOFF, TOUCH_FILTER_BETA, touchFilterMaxDeviation);
+        mTouchFilterY = new OneEuroFilter(TOUCH_FILTER_MIN_CUTOFF, TOUCH_FILTER_BETA, touchFilterMaxDeviation);
         mMoveDirection = FloatingViewManager.MOVE_DIRECTION_DEFAULT;
         mUsePhysics = false;
-        final Resources resources = context.getResources();
-        mIsTablet = (resources.getConfiguration().screenLayout & Configuration.SCREENLAYOUT_SIZE_MASK) >= Configuration.SCREENLAYOUT_SIZE_LARGE;
-        mRotation = mWindowManager.getDefaultDisplay().getRotation();
+        mRotation = mDisplay.rotation;
 
-        mMoveLimitRect = new Rect();
-        mPositionLimitRect = new Rect();
+        mMoveLimitRect = new Bounds();
+        mPositionLimitRect = new Bounds();
         mSafeInsetRect = new Rect();
 
-        // ステータスバーの高さを取得
-        mBaseStatusBarHeight = getSystemUiDimensionPixelSize(resources, "status_bar_height");
-        // Check landscape resource id
-        final int statusBarLandscapeResId = resources.getIdentifier("status_bar_height_landscape", "dimen", "android");
-        if (statusBarLandscapeResId > 0) {
-            mBaseStatusBarRotatedHeight = getSystemUiDimensionPixelSize(resources, "status_bar_height_landscape");
-        } else {
-            mBaseStatusBarRotatedHeight = mBaseStatusBarHeight;
-        }
-
         // Init physics-based animation properties
         updateViewConfiguration();
 
-        // Detect NavigationBar
-        if (hasSoftNavigationBar()) {
-            mBaseNavigationBarHeight = getSystemUiDimensionPixelSize(resources, "navigation_bar_height");
-            final String resName = mIsTablet ? "navigation_bar_height_landscape" : "navigation_bar_width";
-            mBaseNavigationBarRotatedHeight = getSystemUiDimensionPixelSize(resources, resName);
-        } else {
-            mBaseNavigationBarHeight = 0;
-            mBaseNavigationBarRotatedHeight = 0;
-        }
+        mScreenLayout = new ScreenLayout(mDisplay.statusBarHeight, mDisplay.statusBarRotatedHeight,
+                mDisplay.navigationBarHeight, mDisplay.navigationBarRotatedHeight, mDisplay.isTablet);
 
         // 初回描画処理用
         getViewTreeObserver().addOnPreDrawListener(this);
     }
 
-    /**
-     * Check if there is a software navigation bar(including the navigation bar in the screen).
-     *
-     * @return True if there is a software navigation bar
-     */
-    private boolean hasSoftNavigationBar() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
-            final DisplayMetrics realDisplayMetrics = new DisplayMetrics();
-            mWindowManager.getDefaultDisplay().getRealMetrics(realDisplayMetrics);
-            return realDisplayMetrics.heightPixels > mMetrics.heightPixels || realDisplayMetrics.widthPixels > mMetrics.widthPixels;
-        }
-
-        // old device check flow
-        // Navigation bar exists (config_showNavigationBar is true, or both the menu key and the back key are not exists)
-        final Context context = getContext();
-        final Resources resources = context.getResources();
-        final boolean hasMenuKey = ViewConfiguration.get(context).hasPermanentMenuKey();
-        final boolean hasBackKey = KeyCharacterMap.deviceHasKey(KeyEvent.KEYCODE_BACK);
-        final int showNavigationBarResId = resources.getIdentifier("config_showNavigationBar", "bool", "android");
-        final boolean hasNavigationBarConfig = showNavigationBarResId != 0 && resources.getBoolean(showNavigationBarResId);
-        return hasNavigationBarConfig || (!hasMenuKey && !hasBackKey);
-    }
-
-    /**
-     * Get the System ui dimension(pixel)
-     *
-     * @param resources {@link Resources}
-     * @param resName   dimension resource name
-     * @return pixel size
-     */
-    private static int getSystemUiDimensionPixelSize(Resources resources, String resName) {
-        int pixelSize = 0;
-        final int resId = resources.getIdentifier(resName, "dimen", "android");
-        if (resId > 0) {
-            pixelSize = resources.getDimensionPixelSize(resId);
-        }
-        return pixelSize;
-    }
-
-
     /**
      * 表示位置を決定します。
      */
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
-        refreshLimitRect();
+        mGeometryRefreshHandler.request();
     }
 
     /**
@@ -528,7 +564,7 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
     protected void onConfigurationChanged(Configuration newConfig) {
         super.onConfigurationChanged(newConfig);
         updateViewConfiguration();
-        refreshLimitRect();
+        mGeometryRefreshHandler.request();
     }
 
     /**
@@ -537,13 +573,15 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
     @Override
     public boolean onPreDraw() {
         getViewTreeObserver().removeOnPreDrawListener(this);
+        // The initial position needs the limits of the first layout
+        mGeometryRefreshHandler.flush();
         // X座標に初期値が設定されていればデフォルト値を入れる(マージンは考慮しない)
         if (mInitX == DEFAULT_X) {
             mInitX = 0;
         }
         // Y座標に初期値が設定されていればデフォルト値を入れる
         if (mInitY == DEFAULT_Y) {
-            mInitY = mMetrics.heightPixels - mStatusBarHeight - getMeasuredHeight();
+            mInitY = mDisplay.heightPixels - mScreenLayout.getStatusBarHeight() - getMeasuredHeight();
         }
 
         // 初期位置を設定
@@ -572,144 +610,21 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
      * @param windowRect          {@link Rect} of system window
      */
     void onUpdateSystemLayout(boolean isHideStatusBar, boolean isHideNavigationBar, boolean isPortrait, Rect windowRect) {
-        // status bar
-        updateStatusBarHeight(isHideStatusBar, isPortrait);
-        // touch X offset(support Cutout)
-        updateTouchXOffset(isHideNavigationBar, windowRect.left);
-        // touch Y offset(support Cutout)
-        mTouchYOffset = isPortrait ? mSafeInsetRect.top : 0;
-        // navigation bar
-        updateNavigationBarOffset(isHideNavigationBar, isPortrait, windowRect);
-        refreshLimitRect();
-    }
-
-    /**
-     * Update height of StatusBar.
-     *
-     * @param isHideStatusBar If true, the status bar is hidden
-     * @param isPortrait      If true, the device orientation is portrait
-     */
-    private void updateStatusBarHeight(boolean isHideStatusBar, boolean isPortrait) {
-        if (isHideStatusBar) {
-            // 1.(No Cutout)No StatusBar(=0)
-            // 2.(Has Cutout)StatusBar is not included in mMetrics.heightPixels (=0)
-            mStatusBarHeight = 0;
-            return;
-        }
-
-        // Has Cutout
-        final boolean hasTopCutout = mSafeInsetRect.top != 0;
-        if (hasTopCutout) {
-            if (isPortrait) {
-                mStatusBarHeight = 0;
-            } else {
-                mStatusBarHeight = mBaseStatusBarRotatedHeight;
-            }
-            return;
-        }
-
-        // No cutout
-        if (isPortrait) {
-            mStatusBarHeight = mBaseStatusBarHeight;
-        } else {
-            mStatusBarHeight = mBaseStatusBarRotatedHeight;
-        }
-    }
-
-    /**
-     * Update of touch X coordinate
-     *
-     * @param isHideNavigationBar If true, the navigation bar is hidden
-     * @param windowLeftOffset    Left side offset of device display
-     */
-    private void updateTouchXOffset(boolean isHideNavigationBar, int windowLeftOffset) {
-        final boolean hasBottomCutout = mSafeInsetRect.bottom != 0;
-        if (hasBottomCutout) {
-            mTouchXOffset = windowLeftOffset;
+        mDisplay = mDisplayGeometry.getSnapshot();
+        if (mDisplay.hasExactInsets) {
+            mScreenLayout.updateFromInsets(isHideStatusBar, isHideNavigationBar, isPortrait,
+                    mSafeInsetRect.top, windowRect.left, mDisplay.statusBarInsetTop,
+                    mDisplay.navigationBarInsetLeft, mDisplay.navigationBarInsetRight, mDisplay.navigationBarInsetBottom);
+            mGeometryRefreshHandler.request();
             return;
         }
-
-        // No cutout
-        // touch X offset(navigation bar is displayed and it is on the left side of the device)
-        mTouchXOffset = !isHideNavigationBar && windowLeftOffset > 0 ? mBaseNavigationBarRotatedHeight : 0;
-    }
-
-    /**
-     * Update offset of NavigationBar.
-     *
-     * @param isHideNavigationBar If true, the navigation bar is hidden
-     * @param isPortrait          If true, the device orientation is portrait
-     * @param windowRect          {@link Rect} of system window
-     */
-    private void updateNavigationBarOffset(boolean isHideNavigationBar, boolean isPortrait, Rect windowRect) {
-        int currentNavigationBarHeight = 0;
-        int currentNavigationBarWidth = 0;
-        int navigationBarVerticalDiff = 0;
-        final boolean hasSoftNavigationBar = hasSoftNavigationBar();
         // auto hide navigation bar(Galaxy S8, S9 and so on.)
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
-            final DisplayMetrics realDisplayMetrics = new DisplayMetrics();
-            mWindowManager.getDefaultDisplay().getRealMetrics(realDisplayMetrics);
-            currentNavigationBarHeight = realDisplayMetrics.heightPixels - windowRect.bottom;
-            currentNavigationBarWidth = realDisplayMetrics.widthPixels - mMetrics.widthPixels;
-            navigationBarVerticalDiff = mBaseNavigationBarHeight - currentNavigationBarHeight;
-        }
-
-        if (!isHideNavigationBar) {
-            // auto hide navigation bar
-            // 他デバイスとの矛盾をもとに推測する
-            // 1.デバイスに組み込まれたナビゲーションバー（mBaseNavigationBarHeight == 0）はシステムの状態によって高さに差が発生しない
-            // 2.デバイスに組み込まれたナビゲーションバー(!hasSoftNavigationBar)は意図的にBaseを0にしているので、矛盾している
-            if (navigationBarVerticalDiff != 0 && mBaseNavigationBarHeight == 0 ||
-                    !hasSoftNavigationBar && mBaseNavigationBarHeight != 0) {
-                if (hasSoftNavigationBar) {
-                    // 1.auto hide mode -> show mode
-                    // 2.show mode -> auto hide mode -> home
-                    mNavigationBarVerticalOffset = 0;
-                } else {
-                    // show mode -> home
-                    mNavigationBarVerticalOffset = -currentNavigationBarHeight;
-                }
-            } else {
-                // normal device
-                mNavigationBarVerticalOffset = 0;
-            }
-
-            mNavigationBarHorizontalOffset = 0;
-            return;
-        }
-
-        // If the portrait, is displayed at the bottom of the screen
-        if (isPortrait) {
-            // auto hide navigation bar
-            if (!hasSoftNavigationBar && mBaseNavigationBarHeight != 0) {
-                mNavigationBarVerticalOffset = 0;
-            } else {
-                mNavigationBarVerticalOffset = mBaseNavigationBarHeight;
-            }
-            mNavigationBarHorizontalOffset = 0;
-            return;
-        }
-
-        // If it is a Tablet, it will appear at the bottom of the screen.
-        // If it is Phone, it will appear on the side of the screen
-        if (mIsTablet) {
-            mNavigationBarVerticalOffset = mBaseNavigationBarRotatedHeight;
-            mNavigationBarHorizontalOffset = 0;
-        } else {
-            mNavigationBarVerticalOffset = 0;
-            // auto hide navigation bar
-            // 他デバイスとの矛盾をもとに推測する
-            // 1.デバイスに組み込まれたナビゲーションバー(!hasSoftNavigationBar)は、意図的にBaseを0にしているので、矛盾している
-            if (!hasSoftNavigationBar && mBaseNavigationBarRotatedHeight != 0) {
-                mNavigationBarHorizontalOffset = 0;
-            } else if (hasSoftNavigationBar && mBaseNavigationBarRotatedHeight == 0) {
-                // 2.ソフトナビゲーションバーの場合、Baseが設定されるため矛盾している
-                mNavigationBarHorizontalOffset = currentNavigationBarWidth;
-            } else {
-                mNavigationBarHorizontalOffset = mBaseNavigationBarRotatedHeight;
-            }
-        }
+        final int currentNavigationBarHeight = mDisplay.realHeightPixels - windowRect.bottom;
+        final int currentNavigationBarWidth = mDisplay.realWidthPixels - mDisplay.widthPixels;
+        mScreenLayout.update(isHideStatusBar, isHideNavigationBar, isPortrait, mDisplay.hasSoftNavigationBar,
+                mSafeInsetRect.top, mSafeInsetRect.bottom, windowRect.left,
+                currentNavigationBarHeight, currentNavigationBarWidth);
+        mGeometryRefreshHandler.request();
     }
 
     /**
@@ -725,9 +640,11 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
     }
 
     /**
-     * Update the PositionLimitRect and MoveLimitRect according to the screen size change.
+     * Update the PositionLimitRect and MoveLimitRect according to the screen size change.<br/>
+     * Called once per frame by {@link GeometryRefreshHandler} however many changes were notified.
      */
     private void refreshLimitRect() {
+        mLimitRefreshCount++;
         cancelAnimation();
 
         // 前の画面座標を保存
@@ -735,18 +652,18 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
         final int oldPositionLimitHeight = mPositionLimitRect.height();
 
         // 新しい座標情報に切替
-        mWindowManager.getDefaultDisplay().getMetrics(mMetrics);
+        mDisplay = mDisplayGeometry.getSnapshot();
         final int width = getMeasuredWidth();
         final int height = getMeasuredHeight();
-        final int newScreenWidth = mMetrics.widthPixels;
-        final int newScreenHeight = mMetrics.heightPixels;
+        final int newScreenWidth = mDisplay.widthPixels;
+        final int newScreenHeight = mDisplay.heightPixels;
 
         // 移動範囲の設定
-        mMoveLimitRect.set(-width, -height * 2, newScreenWidth + width + mNavigationBarHorizontalOffset, newScreenHeight + height + mNavigationBarVerticalOffset);
-        mPositionLimitRect.set(-mOverMargin, 0, newScreenWidth - width + mOverMargin + mNavigationBarHorizontalOffset, newScreenHeight - mStatusBarHeight - height + mNavigationBarVerticalOffset);
+        mScreenLayout.computeMoveLimit(mMoveLimitRect, newScreenWidth, newScreenHeight, width, height);
+        mScreenLayout.computePositionLimit(mPositionLimitRect, newScreenWidth, newScreenHeight, width, height, mOverMargin);
 
         // Initial animation stop when the device rotates
-        final int newRotation = mWindowManager.getDefaultDisplay().getRotation();
+        final int newRotation = mDisplay.rotation;
         if (mAnimateInitialMove && mRotation != newRotation) {
             mIsInitialAnimationRunning = false;
         }
@@ -759,10 +676,8 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
             if (mIsMoveAccept) {
                 moveToEdge(mParams.x, mParams.y, false);
             } else {
-                final int newX = (int) (mParams.x * mPositionLimitRect.width() / (float) oldPositionLimitWidth + 0.5f);
-                final int goalPositionX = Math.min(Math.max(mPositionLimitRect.left, newX), mPositionLimitRect.right);
-                final int newY = (int) (mParams.y * mPositionLimitRect.height() / (float) oldPositionLimitHeight + 0.5f);
-                final int goalPositionY = Math.min(Math.max(mPositionLimitRect.top, newY), mPositionLimitRect.bottom);
+                final int goalPositionX = BubbleGeometry.rescalePosition(mParams.x, oldPositionLimitWidth, mPositionLimitRect.width(), mPositionLimitRect.left, mPositionLimitRect.right);
+                final int goalPositionY = BubbleGeometry.rescalePosition(mParams.y, oldPositionLimitHeight, mPositionLimitRect.height(), mPositionLimitRect.top, mPositionLimitRect.bottom);
                 moveTo(mParams.x, mParams.y, goalPositionX, goalPositionY, false);
             }
         }
@@ -774,18 +689,38 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
      */
     @Override
     protected void onDetachedFromWindow() {
-        if (mMoveEdgeAnimator != null) {
-            mMoveEdgeAnimator.removeAllUpdateListeners();
-        }
+        // 取り外した後のフレームでWindowを更新しないように全て止める
+        cancelAnimation();
+        mAnimationHandler.stop();
+        mGeometryRefreshHandler.cancel();
+        mLongPressHandler.cancel();
         super.onDetachedFromWindow();
     }
 
+    /**
+     * Process the event once here. onInterceptTouchEvent and onTouchEvent only return the results.
+     */
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        if (mTouchTrace != null) {
+            recordTouchTrace(event);
+        }
+        processTouchEvent(event);
+        mProcessedEvent = event;
+        final boolean handled = super.dispatchTouchEvent(event);
+        mProcessedEvent = null;
+        return handled;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public boolean onInterceptTouchEvent(@NonNull MotionEvent event) {
-        return dispatchTouchEvent(event, true);
+        if (mProcessedEvent != event) {
+            processTouchEvent(event);
+        }
+        return mInterceptTouchResult;
     }
 
     /**
@@ -793,26 +728,36 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
      */
     @Override
     public boolean onTouchEvent(@NonNull MotionEvent event) {
-        return dispatchTouchEvent(event, false);
+        if (mProcessedEvent != event) {
+            processTouchEvent(event);
+        }
+        return mTouchEventResult;
     }
 
     /**
-     * Use onInterceptTouchEvent to detect FloatView move then onTouchEvent consume event
+     * Handle the touch event and keep the results for onInterceptTouchEvent and onTouchEvent.<br/>
+     * onInterceptTouchEvent detects FloatView move then onTouchEvent consume event.
      */
-    private boolean dispatchTouchEvent(@NonNull MotionEvent event, boolean isOnInterceptTouchEvent) {
+    private void processTouchEvent(@NonNull MotionEvent event) {
+        // The gesture uses the limits of the current screen
+        mGeometryRefreshHandler.flush();
+
         // Viewが表示されていなければ何もしない
         if (getVisibility() != View.VISIBLE) {
-            return false;
+            setTouchResults(false, false);
+            return;
         }
 
         // タッチ不能な場合は何もしない
         if (!mIsDraggable) {
-            return false;
+            setTouchResults(false, false);
+            return;
         }
 
         // Block while initial display animation is running
         if (mIsInitialAnimationRunning) {
-            return false;
+            setTouchResults(false, false);
+            return;
         }
 
         // 現在位置のキャッシュ
@@ -822,8 +767,10 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
         boolean isWaitForMoveToEdge = false;
         // 押下
         if (action == MotionEvent.ACTION_DOWN) {
-            // アニメーションのキャンセル
-            cancelAnimation();
+            // アニメーションのキャンセル(a snap is kept to be resumed by a tap)
+            mIsPhysicsInterrupted = mPhysicsAnimationHandler.isRunning();
+            mPhysicsAnimationHandler.cancel();
+            mSnapAnimationHandler.interrupt();
             mScreenTouchDownX = mScreenTouchX;
             mScreenTouchDownY = mScreenTouchY;
             mLocalTouchX = event.getX();
@@ -831,18 +778,20 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
             mIsMoveAccept = false;
             setScale(SCALE_PRESSED);
 
-            if (mVelocityTracker == null) {
-                // Retrieve a new VelocityTracker object to watch the velocity of a motion.
-                mVelocityTracker = VelocityTracker.obtain();
-            } else {
-                // Reset the velocity tracker back to its initial state.
-                mVelocityTracker.clear();
+            // Start tracking the velocity of a motion from an empty state.
+            mVelocityEstimator.start();
+            mPredictionX = 0;
+            mPredictionY = 0;
+            mTouchFilterX.reset();
+            mTouchFilterY.reset();
+            // Deliver every touch sample as soon as it arrives instead of once per frame
+            if (mIsLowLatencyDrag && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                requestUnbufferedDispatch(event);
             }
 
-            mLongPressHandler.removeMessages(LongPressHandler.LONG_PRESSED);
-            mLongPressHandler.sendEmptyMessageDelayed(LongPressHandler.LONG_PRESSED, LONG_PRESS_TIMEOUT);
+            mLongPressHandler.start();
             mTouchDownTime = event.getDownTime();
-            // compute offset and restore
+            // add the samples in screen coordinates
             addMovement(event);
             mIsInitialAnimationRunning = false;
         }
@@ -850,50 +799,63 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
         else if (action == MotionEvent.ACTION_MOVE) {
             if (mIsMoveAccept) {
                 mIsLongPressed = false;
-                mLongPressHandler.removeMessages(LongPressHandler.LONG_PRESSED);
+                mLongPressHandler.cancel();
             }
             if (mTouchDownTime != event.getDownTime()) {
-                return !isOnInterceptTouchEvent;
+                setTouchResults(false, true);
+                return;
             }
             if (!mIsMoveAccept && Math.abs(mScreenTouchX - mScreenTouchDownX) < mMoveThreshold && Math.abs(mScreenTouchY - mScreenTouchDownY) < mMoveThreshold) {
-                return !isOnInterceptTouchEvent;
+                setTouchResults(false, true);
+                return;
+            }
+            if (mIsMoveAccept) {
+                recordDragLag();
             }
             mIsMoveAccept = true;
-            mAnimationHandler.updateTouchPosition(getXByTouch(), getYByTouch());
-            mAnimationHandler.removeMessages(FloatingAnimationHandler.ANIMATION_IN_TOUCH);
-            mAnimationHandler.sendAnimationMessage(FloatingAnimationHandler.ANIMATION_IN_TOUCH);
-            // compute offset and restore
+            // add the samples in screen coordinates
             addMovement(event);
+            mTouchFilterX.filter(getXByTouch(), event.getEventTime());
+            mTouchFilterY.filter(getYByTouch(), event.getEventTime());
+            updatePrediction();
+            mAnimationHandler.updateTouchPosition(getTrackingX(), getTrackingY());
+            mAnimationHandler.start();
         }
         // 押上、キャンセル
         else if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
-            // compute velocity tracker
-            if (mVelocityTracker != null) {
-                mVelocityTracker.computeCurrentVelocity(CURRENT_VELOCITY_UNITS);
+            // compute velocity
+            if (mVelocityEstimator.isTracking()) {
+                mVelocityEstimator.computeCurrentVelocity(CURRENT_VELOCITY_UNITS);
             }
 
             // 判定のため長押しの状態を一時的に保持
             final boolean tmpIsLongPressed = mIsLongPressed;
             // 長押しの解除
             mIsLongPressed = false;
-            mLongPressHandler.removeMessages(LongPressHandler.LONG_PRESSED);
+            mLongPressHandler.cancel();
             // 押下処理が行われていない場合は処理しない
             if (mTouchDownTime != event.getDownTime()) {
-                return true;
+                setTouchResults(true, true);
+                return;
             }
             // アニメーションの削除
-            mAnimationHandler.removeMessages(FloatingAnimationHandler.ANIMATION_IN_TOUCH);
+            mAnimationHandler.stop();
             // 拡大率をもとに戻す
             setScale(SCALE_NORMAL);
 
-            // destroy VelocityTracker (#103)
-            if (!mIsMoveAccept && mVelocityTracker != null) {
-                mVelocityTracker.recycle();
-                mVelocityTracker = null;
+            // stop tracking the velocity (#103)
+            if (!mIsMoveAccept) {
+                mVelocityEstimator.stop();
             }
 
             // When ACTION_UP is done (when not pressed or moved)
             if (action == MotionEvent.ACTION_UP && !tmpIsLongPressed && !mIsMoveAccept) {
+                // Continue the release stopped by the tap, a spring or fling docks again from where it stopped
+                if (mIsPhysicsInterrupted) {
+                    moveToEdge(mParams.x, mParams.y, true);
+                } else {
+                    mSnapAnimationHandler.resume(mParams.x, mParams.y);
+                }
             } else {
                 // Make a move after checking whether it is finished or not
                 isWaitForMoveToEdge = true;
@@ -909,26 +871,52 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
         if (isWaitForMoveToEdge && mAnimationHandler.getState() != STATE_FINISHING) {
             // include device rotation
             moveToEdge(true);
-            if (mVelocityTracker != null) {
-                mVelocityTracker.recycle();
-                mVelocityTracker = null;
-            }
+            mVelocityEstimator.stop();
         }
 
-        return !isOnInterceptTouchEvent || mIsMoveAccept;
+        setTouchResults(mIsMoveAccept, true);
+    }
+
+    /**
+     * Keep the results of the processed event.
+     *
+     * @param interceptTouchResult result of onInterceptTouchEvent
+     * @param touchEventResult     result of onTouchEvent
+     */
+    private void setTouchResults(boolean interceptTouchResult, boolean touchEventResult) {
+        mInterceptTouchResult = interceptTouchResult;
+        mTouchEventResult = touchEventResult;
+    }
+
+    /**
+     * Record the samples of the event(including the historical ones) in screen coordinates
+     *
+     * @param event {@link MotionEvent}
+     */
+    private void recordTouchTrace(@NonNull MotionEvent event) {
+        final int action = event.getActionMasked();
+        final float offsetX = event.getRawX() - event.getX();
+        final float offsetY = event.getRawY() - event.getY();
+        final int historySize = event.getHistorySize();
+        for (int i = 0; i < historySize; i++) {
+            mTouchTrace.record(action, event.getHistoricalX(i) + offsetX, event.getHistoricalY(i) + offsetY, event.getHistoricalEventTime(i), true);
+        }
+        mTouchTrace.record(action, event.getRawX(), event.getRawY(), event.getEventTime(), false);
     }
 
     /**
-     * Call addMovement and restore MotionEvent coordinate
+     * Add the samples of the event(including the historical ones) in screen coordinates
      *
      * @param event {@link MotionEvent}
      */
     private void addMovement(@NonNull MotionEvent event) {
-        final float deltaX = event.getRawX() - event.getX();
-        final float deltaY = event.getRawY() - event.getY();
-        event.offsetLocation(deltaX, deltaY);
-        mVelocityTracker.addMovement(event);
-        event.offsetLocation(-deltaX, -deltaY);
+        final float offsetX = event.getRawX() - event.getX();
+        final float offsetY = event.getRawY() - event.getY();
+        final int historySize = event.getHistorySize();
+        for (int i = 0; i < historySize; i++) {
+            mVelocityEstimator.addSample(event.getHistoricalX(i) + offsetX, event.getHistoricalY(i) + offsetY, event.getHistoricalEventTime(i));
+        }
+        mVelocityEstimator.addSample(event.getX() + offsetX, event.getY() + offsetY, event.getEventTime());
     }
 
     /**
@@ -956,8 +944,8 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
             if (mIsMoveAccept) {
                 moveToEdge(false);
             }
-            mAnimationHandler.removeMessages(FloatingAnimationHandler.ANIMATION_IN_TOUCH);
-            mLongPressHandler.removeMessages(LongPressHandler.LONG_PRESSED);
+            mAnimationHandler.stop();
+            mLongPressHandler.cancel();
         }
         super.setVisibility(visibility);
     }
@@ -1012,13 +1000,16 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
         // アニメーションを行う場合
         if (withAnimation) {
             // Use physics animation
-            final boolean usePhysicsAnimation = mUsePhysics && mVelocityTracker != null && mMoveDirection != FloatingViewManager.MOVE_DIRECTION_NEAREST;
+            final boolean usePhysicsAnimation = mUsePhysics && mVelocityEstimator.isTracking() && mMoveDirection != FloatingViewManager.MOVE_DIRECTION_NEAREST;
             if (usePhysicsAnimation) {
+                mSnapAnimationHandler.cancel();
                 startPhysicsAnimation(goalPositionX, currentY);
             } else {
+                mPhysicsAnimationHandler.cancel();
                 startObjectAnimation(currentX, currentY, goalPositionX, goalPositionY);
             }
         } else {
+            cancelAnimation();
             // 位置が変化した時のみ更新
             if (mParams.x != goalPositionX || mParams.y != goalPositionY) {
                 mParams.x = goalPositionX;
@@ -1041,24 +1032,28 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
      * @param currentY      current Y coordinate
      */
     private void startPhysicsAnimation(int goalPositionX, int currentY) {
+        final PhysicsSolver solver = mPhysicsAnimationHandler.getSolver();
         // start X coordinate animation
         final boolean containsLimitRectWidth = mParams.x < mPositionLimitRect.right && mParams.x > mPositionLimitRect.left;
         // If MOVE_DIRECTION_NONE, play fling animation
         if (mMoveDirection == FloatingViewManager.MOVE_DIRECTION_NONE && containsLimitRectWidth) {
-            final float velocityX = Math.min(Math.max(mVelocityTracker.getXVelocity(), -mMaximumXVelocity), mMaximumXVelocity);
-            startFlingAnimationX(velocityX);
+            final float velocityX = Math.min(Math.max(mVelocityEstimator.getXVelocity(), -mMaximumXVelocity), mMaximumXVelocity);
+            solver.startFlingX(mParams.x, velocityX, ANIMATION_FLING_X_FRICTION, mPositionLimitRect.left, mPositionLimitRect.right);
         } else {
-            startSpringAnimationX(goalPositionX);
+            solver.startSpringX(mParams.x, mVelocityEstimator.getXVelocity(), goalPositionX, ANIMATION_SPRING_X_STIFFNESS, ANIMATION_SPRING_X_DAMPING_RATIO);
         }
 
         // start Y coordinate animation
         final boolean containsLimitRectHeight = mParams.y < mPositionLimitRect.bottom && mParams.y > mPositionLimitRect.top;
-        final float velocityY = -Math.min(Math.max(mVelocityTracker.getYVelocity(), -mMaximumYVelocity), mMaximumYVelocity);
+        final float velocityY = -Math.min(Math.max(mVelocityEstimator.getYVelocity(), -mMaximumYVelocity), mMaximumYVelocity);
         if (containsLimitRectHeight) {
-            startFlingAnimationY(velocityY);
+            solver.startFlingY(mParams.y, velocityY, ANIMATION_FLING_Y_FRICTION, mPositionLimitRect.top, mPositionLimitRect.bottom);
         } else {
-            startSpringAnimationY(currentY, velocityY);
+            final int goalPositionY = currentY < mDisplay.heightPixels / 2 ? mPositionLimitRect.top : mPositionLimitRect.bottom;
+            solver.startSpringY(mParams.y, velocityY, goalPositionY, ANIMATION_SPRING_Y_STIFFNESS, ANIMATION_SPRING_Y_DAMPING_RATIO);
         }
+
+        mPhysicsAnimationHandler.start();
     }
 
     /**
@@ -1072,172 +1067,26 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
     private void startObjectAnimation(int currentX, int currentY, int goalPositionX, int goalPositionY) {
         if (goalPositionX == currentX) {
             //to move only y coord
-            mMoveEdgeAnimator = ValueAnimator.ofInt(currentY, goalPositionY);
-            mMoveEdgeAnimator.addUpdateListener(animation -> {
-                mParams.y = (Integer) animation.getAnimatedValue();
-                updateViewLayout();
-                updateInitAnimation(animation);
-            });
+            mSnapAnimationHandler.start(currentX, currentY, currentX, goalPositionY);
         } else {
             // To move only x coord (to left or right)
             mParams.y = goalPositionY;
-            mMoveEdgeAnimator = ValueAnimator.ofInt(currentX, goalPositionX);
-            mMoveEdgeAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                @Override
-                public void onAnimationUpdate(ValueAnimator animation) {
-                    mParams.x = (Integer) animation.getAnimatedValue();
-                    updateViewLayout();
-                    updateInitAnimation(animation);
-                }
-            });
+            mSnapAnimationHandler.start(currentX, goalPositionY, goalPositionX, goalPositionY);
         }
-
-        mMoveEdgeAnimator.setDuration(MOVE_TO_EDGE_DURATION);
-        mMoveEdgeAnimator.setInterpolator(mMoveEdgeInterpolator);
-        mMoveEdgeAnimator.start();
-    }
-
-    /**
-     * Start spring animation(X coordinate)
-     *
-     * @param goalPositionX goal position X coordinate
-     */
-    private void startSpringAnimationX(int goalPositionX) {
-        // springX
-        final SpringForce springX = new SpringForce(goalPositionX);
-        springX.setDampingRatio(ANIMATION_SPRING_X_DAMPING_RATIO);
-        springX.setStiffness(ANIMATION_SPRING_X_STIFFNESS);
-        // springAnimation
-        final SpringAnimation springAnimationX = new SpringAnimation(new FloatValueHolder());
-        springAnimationX.setStartVelocity(mVelocityTracker.getXVelocity());
-        springAnimationX.setStartValue(mParams.x);
-        springAnimationX.setSpring(springX);
-        springAnimationX.setMinimumVisibleChange(DynamicAnimation.MIN_VISIBLE_CHANGE_PIXELS);
-        springAnimationX.addUpdateListener(new DynamicAnimation.OnAnimationUpdateListener() {
-            @Override
-            public void onAnimationUpdate(DynamicAnimation animation, float value, float velocity) {
-                final int x = Math.round(value);
-                // Not moving, or the touch operation is continuing
-                if (mParams.x == x || mVelocityTracker != null) {
-                    return;
-                }
-                // update x coordinate
-                mParams.x = x;
-                updateViewLayout();
-            }
-        });
-        springAnimationX.start();
-    }
-
-    /**
-     * Start spring animation(Y coordinate)
-     *
-     * @param currentY  current Y coordinate
-     * @param velocityY velocity Y coordinate
-     */
-    private void startSpringAnimationY(int currentY, float velocityY) {
-        // Create SpringForce
-        final SpringForce springY = new SpringForce(currentY < mMetrics.heightPixels / 2 ? mPositionLimitRect.top : mPositionLimitRect.bottom);
-        springY.setDampingRatio(SpringForce.DAMPING_RATIO_LOW_BOUNCY);
-        springY.setStiffness(SpringForce.STIFFNESS_LOW);
-
-        // Create SpringAnimation
-        final SpringAnimation springAnimationY = new SpringAnimation(new FloatValueHolder());
-        springAnimationY.setStartVelocity(velocityY);
-        springAnimationY.setStartValue(mParams.y);
-        springAnimationY.setSpring(springY);
-        springAnimationY.setMinimumVisibleChange(DynamicAnimation.MIN_VISIBLE_CHANGE_PIXELS);
-        springAnimationY.addUpdateListener(new DynamicAnimation.OnAnimationUpdateListener() {
-            @Override
-            public void onAnimationUpdate(DynamicAnimation animation, float value, float velocity) {
-                final int y = Math.round(value);
-                // Not moving, or the touch operation is continuing
-                if (mParams.y == y || mVelocityTracker != null) {
-                    return;
-                }
-                // update y coordinate
-                mParams.y = y;
-                updateViewLayout();
-            }
-        });
-        springAnimationY.start();
-    }
-
-    /**
-     * Start fling animation(X coordinate)
-     *
-     * @param velocityX velocity X coordinate
-     */
-    private void startFlingAnimationX(float velocityX) {
-        final FlingAnimation flingAnimationX = new FlingAnimation(new FloatValueHolder());
-        flingAnimationX.setStartVelocity(velocityX);
-        flingAnimationX.setMaxValue(mPositionLimitRect.right);
-        flingAnimationX.setMinValue(mPositionLimitRect.left);
-        flingAnimationX.setStartValue(mParams.x);
-        flingAnimationX.setFriction(ANIMATION_FLING_X_FRICTION);
-        flingAnimationX.setMinimumVisibleChange(DynamicAnimation.MIN_VISIBLE_CHANGE_PIXELS);
-        flingAnimationX.addUpdateListener(new DynamicAnimation.OnAnimationUpdateListener() {
-            @Override
-            public void onAnimationUpdate(DynamicAnimation animation, float value, float velocity) {
-                final int x = Math.round(value);
-                // Not moving, or the touch operation is continuing
-                if (mParams.x == x || mVelocityTracker != null) {
-                    return;
-                }
-                // update y coordinate
-                mParams.x = x;
-                updateViewLayout();
-            }
-        });
-        flingAnimationX.start();
-    }
-
-    /**
-     * Start fling animation(Y coordinate)
-     *
-     * @param velocityY velocity Y coordinate
-     */
-    private void startFlingAnimationY(float velocityY) {
-        final FlingAnimation flingAnimationY = new FlingAnimation(new FloatValueHolder());
-        flingAnimationY.setStartVelocity(velocityY);
-        flingAnimationY.setMaxValue(mPositionLimitRect.bottom);
-        flingAnimationY.setMinValue(mPositionLimitRect.top);
-        flingAnimationY.setStartValue(mParams.y);
-        flingAnimationY.setFriction(ANIMATION_FLING_Y_FRICTION);
-        flingAnimationY.setMinimumVisibleChange(DynamicAnimation.MIN_VISIBLE_CHANGE_PIXELS);
-        flingAnimationY.addUpdateListener(new DynamicAnimation.OnAnimationUpdateListener() {
-            @Override
-            public void onAnimationUpdate(DynamicAnimation animation, float value, float velocity) {
-                final int y = Math.round(value);
-                // Not moving, or the touch operation is continuing
-                if (mParams.y == y || mVelocityTracker != null) {
-                    return;
-                }
-                // update y coordinate
-                mParams.y = y;
-                updateViewLayout();
-            }
-        });
-        flingAnimationY.start();
     }
 
     /**
-     * Check if it is attached to the Window and call WindowManager.updateLayout()
+     * Request the commit of the LayoutParams in the current or next frame.
      */
     private void updateViewLayout() {
-        if (!ViewCompat.isAttachedToWindow(this)) {
-            return;
-        }
-        mWindowManager.updateViewLayout(this, mParams);
+        mLayoutCommitter.requestCommit(this);
     }
 
     /**
-     * Update animation initialization flag
-     *
-     * @param animation {@link ValueAnimator}
+     * Update animation initialization flag(called when the snap has finished)
      */
-    private void updateInitAnimation(ValueAnimator animation) {
-        if (mAnimateInitialMove && animation.getDuration() <= animation.getCurrentPlayTime()) {
+    private void updateInitAnimation() {
+        if (mAnimateInitialMove) {
             mIsInitialAnimationRunning = false;
         }
     }
@@ -1250,43 +1099,10 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
      * @return End point of X coordinate
      */
     private int getGoalPositionX(int startX, int startY) {
-        int goalPositionX = startX;
-
-        // Move to left or right edges
-        if (mMoveDirection == FloatingViewManager.MOVE_DIRECTION_DEFAULT) {
-            final boolean isMoveRightEdge = startX > (mMetrics.widthPixels - getWidth()) / 2;
-            goalPositionX = isMoveRightEdge ? mPositionLimitRect.right : mPositionLimitRect.left;
-        }
-        // Move to left edges
-        else if (mMoveDirection == FloatingViewManager.MOVE_DIRECTION_LEFT) {
-            goalPositionX = mPositionLimitRect.left;
-        }
-        // Move to right edges
-        else if (mMoveDirection == FloatingViewManager.MOVE_DIRECTION_RIGHT) {
-            goalPositionX = mPositionLimitRect.right;
-        }
-        // Move to top/bottom/left/right edges
-        else if (mMoveDirection == FloatingViewManager.MOVE_DIRECTION_NEAREST) {
-            final int distLeftRight = Math.min(startX, mPositionLimitRect.width() - startX);
-            final int distTopBottom = Math.min(startY, mPositionLimitRect.height() - startY);
-            if (distLeftRight < distTopBottom) {
-                final boolean isMoveRightEdge = startX > (mMetrics.widthPixels - getWidth()) / 2;
-                goalPositionX = isMoveRightEdge ? mPositionLimitRect.right : mPositionLimitRect.left;
-            }
-        }
-        // Move in the direction in which it is thrown
-        else if (mMoveDirection == FloatingViewManager.MOVE_DIRECTION_THROWN) {
-            if (mVelocityTracker != null && mVelocityTracker.getXVelocity() > mThrowMoveThreshold) {
-                goalPositionX = mPositionLimitRect.right;
-            } else if (mVelocityTracker != null && mVelocityTracker.getXVelocity() < -mThrowMoveThreshold) {
-                goalPositionX = mPositionLimitRect.left;
-            } else {
-                final boolean isMoveRightEdge = startX > (mMetrics.widthPixels - getWidth()) / 2;
-                goalPositionX = isMoveRightEdge ? mPositionLimitRect.right : mPositionLimitRect.left;
-            }
-        }
-
-        return goalPositionX;
+        final float xVelocity = mVelocityEstimator.isTracking() ? mVelocityEstimator.getXVelocity() : 0;
+        return BubbleGeometry.goalPositionX(mMoveDirection, startX, startY,
+                mPositionLimitRect.left, mPositionLimitRect.top, mPositionLimitRect.right, mPositionLimitRect.bottom,
+                mDisplay.widthPixels, getWidth(), xVelocity, mThrowMoveThreshold);
     }
 
     /**
@@ -1297,29 +1113,17 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
      * @return End point of Y coordinate
      */
     private int getGoalPositionY(int startX, int startY) {
-        int goalPositionY = startY;
-
-        // Move to top/bottom/left/right edges
-        if (mMoveDirection == FloatingViewManager.MOVE_DIRECTION_NEAREST) {
-            final int distLeftRight = Math.min(startX, mPositionLimitRect.width() - startX);
-            final int distTopBottom = Math.min(startY, mPositionLimitRect.height() - startY);
-            if (distLeftRight >= distTopBottom) {
-                final boolean isMoveTopEdge = startY < (mMetrics.heightPixels - getHeight()) / 2;
-                goalPositionY = isMoveTopEdge ? mPositionLimitRect.top : mPositionLimitRect.bottom;
-            }
-        }
-
-        return goalPositionY;
+        return BubbleGeometry.goalPositionY(mMoveDirection, startX, startY,
+                mPositionLimitRect.left, mPositionLimitRect.top, mPositionLimitRect.right, mPositionLimitRect.bottom,
+                mDisplay.heightPixels, getHeight());
     }
 
     /**
      * アニメーションをキャンセルします。
      */
     private void cancelAnimation() {
-        if (mMoveEdgeAnimator != null && mMoveEdgeAnimator.isStarted()) {
-            mMoveEdgeAnimator.cancel();
-            mMoveEdgeAnimator = null;
-        }
+        mSnapAnimationHandler.cancel();
+        mPhysicsAnimationHandler.cancel();
     }
 
     /**
@@ -1391,25 +1195,80 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
      * Use dynamic physics-based animations or not
      * Warning: Can not be used before API 16
      *
-     * @param usePhysics Setting this to false will revert to using a ValueAnimator (default is true)
+     * @param usePhysics Setting this to false will revert to using the snap animation (default is true)
      */
     void usePhysics(boolean usePhysics) {
         mUsePhysics = usePhysics && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
     }
 
     /**
-     * 初期座標を設定します。
+     * Use low-latency drag mode or not
      *
-     * @param x FloatingViewの初期X座標
-     * @param y FloatingViewの初期Y座標
+     * @param isLowLatencyDrag {@link FloatingViewManager.Options#lowLatencyDrag}
      */
-    void setInitCoords(int x, int y) {
-        mInitX = x;
-        mInitY = y;
+    void setLowLatencyDrag(boolean isLowLatencyDrag) {
+        mIsLowLatencyDrag = isLowLatencyDrag;
+        mPredictionX = 0;
+        mPredictionY = 0;
     }
 
     /**
-     * 初期表示時にアニメーションするフラグを設定します。
+     * Start or stop recording the delivered touch events
+     *
+     * @param capacity {@link FloatingViewManager.Options#touchTraceCapacity}(0 to stop)
+     */
+    void setTouchTraceCapacity(int capacity) {
+        mTouchTrace = capacity > 0 ? new TouchTrace(capacity) : null;
+    }
+
+    /**
+     * @return recorder of the delivered touch events(null if not recording)
+     */
+    @Nullable
+    TouchTrace getTouchTrace() {
+        return mTouchTrace;
+    }
+
+    /**
+     * Set the curve used to follow the finger
+     *
+     * @param trackingCurve {@link FloatingViewManager.Options#trackingCurve}
+     */
+    void setTrackingCurve(@FloatingViewManager.TrackingCurveType int trackingCurve) {
+        if (trackingCurve == FloatingViewManager.TRACKING_CURVE_SPRING) {
+            mAnimationHandler.setTrackingCurve(SPRING_TRACKING_CURVE);
+        } else {
+            mAnimationHandler.setTrackingCurve(DEFAULT_TRACKING_CURVE);
+        }
+    }
+
+    /**
+     * @return sum of the finger-to-bubble distances measured while dragging(px)
+     */
+    double getDragLagSum() {
+        return mDragLagSum;
+    }
+
+    /**
+     * @return number of the finger-to-bubble distances measured while dragging
+     */
+    long getDragLagCount() {
+        return mDragLagCount;
+    }
+
+    /**
+     * 初期座標を設定します。
+     *
+     * @param x FloatingViewの初期X座標
+     * @param y FloatingViewの初期Y座標
+     */
+    void setInitCoords(int x, int y) {
+        mInitX = x;
+        mInitY = y;
+    }
+
+    /**
+     * 初期表示時にアニメーションするフラグを設定します。
      *
      * @param animateInitialMove 初期表示時にアニメーションする場合はtrue
      */
@@ -1441,7 +1300,7 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
      * @return FloatingViewのX座標
      */
     private int getXByTouch() {
-        return (int) (mScreenTouchX - mLocalTouchX - mTouchXOffset);
+        return (int) mScreenLayout.windowXByTouch(mScreenTouchX, mLocalTouchX);
     }
 
     /**
@@ -1450,7 +1309,57 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
      * @return FloatingViewのY座標
      */
     private int getYByTouch() {
-        return (int) (mMetrics.heightPixels + mNavigationBarVerticalOffset - (mScreenTouchY - mLocalTouchY + getHeight() - mTouchYOffset));
+        return (int) mScreenLayout.windowYByTouch(mScreenTouchY, mLocalTouchY, mDisplay.heightPixels, getHeight());
+    }
+
+    /**
+     * X coordinate the bubble follows while dragging(filtered, includes the prediction in low-latency drag mode)
+     *
+     * @return FloatingView X coordinate
+     */
+    private int getTrackingX() {
+        final int x = mTouchFilterX.hasValue() ? Math.round(mTouchFilterX.getValue()) : getXByTouch();
+        return x + Math.round(mPredictionX);
+    }
+
+    /**
+     * Y coordinate the bubble follows while dragging(filtered, includes the prediction in low-latency drag mode)
+     *
+     * @return FloatingView Y coordinate
+     */
+    private int getTrackingY() {
+        final int y = mTouchFilterY.hasValue() ? Math.round(mTouchFilterY.getValue()) : getYByTouch();
+        // Y of the window grows upward
+        return y - Math.round(mPredictionY);
+    }
+
+    /**
+     * Extrapolate the finger movement until the next frame from the recent samples.
+     */
+    private void updatePrediction() {
+        if (!mIsLowLatencyDrag) {
+            return;
+        }
+        mVelocityEstimator.computeCurrentVelocity(1);
+        float predictionX = mVelocityEstimator.getXVelocity() * PREDICTION_HORIZON_MILLIS;
+        float predictionY = mVelocityEstimator.getYVelocity() * PREDICTION_HORIZON_MILLIS;
+        // Bound the prediction so that a sudden stop does not overshoot visibly
+        final float maxDistance = PREDICTION_MAX_DISTANCE_DP * mDisplay.density;
+        final float distance = (float) Math.hypot(predictionX, predictionY);
+        if (distance > maxDistance) {
+            predictionX *= maxDistance / distance;
+            predictionY *= maxDistance / distance;
+        }
+        mPredictionX = predictionX;
+        mPredictionY = predictionY;
+    }
+
+    /**
+     * Record the distance between the finger and the bubble when a new finger position arrives.
+     */
+    private void recordDragLag() {
+        mDragLagSum += Math.hypot(mParams.x - getXByTouch(), mParams.y - getYByTouch());
+        mDragLagCount++;
     }
 
     /**
@@ -1458,7 +1367,7 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
      */
     void setNormal() {
         mAnimationHandler.setState(STATE_NORMAL);
-        mAnimationHandler.updateTouchPosition(getXByTouch(), getYByTouch());
+        mAnimationHandler.updateTouchPosition(getTrackingX(), getTrackingY());
     }
 
     /**
@@ -1485,6 +1394,24 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
         return mAnimationHandler.getState();
     }
 
+    /**
+     * Check whether no frame callback or animation is pending for this view.
+     *
+     * @return true if the view has settled
+     */
+    boolean isQuiescent() {
+        if (mGeometryRefreshHandler.isPending()) {
+            return false;
+        }
+        if (mAnimationHandler.isFrameScheduled()) {
+            return false;
+        }
+        if (mSnapAnimationHandler.isRunning()) {
+            return false;
+        }
+        return !mPhysicsAnimationHandler.isRunning();
+    }
+
     /**
      * Set the cutout's safe inset area
      *
@@ -1495,88 +1422,208 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
     }
 
     /**
-     * アニメーションの制御を行うハンドラです。
+     * アニメーションの制御を行うハンドラです。<br/>
+     * Driven by {@link WindowLayoutCommitter} frames so that at most one position is committed per display frame.
+     * Frames are only requested while the tracking position is still changing.
      */
-    static class FloatingAnimationHandler extends Handler {
+    static class FloatingAnimationHandler implements FrameSource.FrameCallback {
 
         /**
-         * アニメーションをリフレッシュするミリ秒
+         * Runs the frame callback and commits the position in the same frame
          */
-        private static final long ANIMATION_REFRESH_TIME_MILLIS = 10L;
+        private final WindowLayoutCommitter mLayoutCommitter;
 
         /**
-         * FloatingViewの吸着の着脱時間
+         * True while the tracking is active(between the start of a drag and the release)
          */
-        private static final long CAPTURE_DURATION_MILLIS = 300L;
+        private boolean mIsRunning;
 
         /**
-         * アニメーションなしの状態を表す定数
+         * True if a frame callback is waiting for the next vsync
          */
-        private static final int ANIMATION_NONE = 0;
+        private boolean mIsFrameScheduled;
 
         /**
-         * タッチ時に発生するアニメーションの定数
+         * State machine and capture curve of the tracking
          */
-        private static final int ANIMATION_IN_TOUCH = 1;
+        private final TrackingMotion mMotion;
 
         /**
-         * アニメーション開始を表す定数
+         * FloatingView
          */
-        private static final int TYPE_FIRST = 1;
+        private final WeakReference<FloatingView> mFloatingView;
+
         /**
-         * アニメーション更新を表す定数
+         * コンストラクタ
          */
-        private static final int TYPE_UPDATE = 2;
+        FloatingAnimationHandler(FloatingView floatingView, WindowLayoutCommitter layoutCommitter) {
+            mFloatingView = new WeakReference<>(floatingView);
+            mLayoutCommitter = layoutCommitter;
+            mMotion = new TrackingMotion(DEFAULT_TRACKING_CURVE);
+        }
 
         /**
-         * アニメーションを開始した時間
+         * アニメーションの処理を行います。
          */
-        private long mStartTime;
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mIsFrameScheduled = false;
+            final FloatingView floatingView = mFloatingView.get();
+            if (floatingView == null) {
+                mIsRunning = false;
+                return;
+            }
+
+            final long frameTimeMillis = TimeUnit.NANOSECONDS.toMillis(frameTimeNanos);
+            final WindowManager.LayoutParams params = floatingView.mParams;
+
+            // 終了状態では何もしない
+            if (!mMotion.update(frameTimeMillis, params.x, params.y, floatingView.getWidth(), floatingView.getHeight(), floatingView.mMoveLimitRect)) {
+                return;
+            }
+
+            final int x = mMotion.getX();
+            final int y = mMotion.getY();
+            // Once the bubble sits on the finger, moves smaller than the minimum are not worth a relayout
+            final int minDelta = mMotion.getState() == STATE_NORMAL && mMotion.isCaptured() ? floatingView.mMinTrackingCommitDelta : 1;
+            // 位置が変化した時のみ更新
+            if (Math.abs(params.x - x) >= minDelta || Math.abs(params.y - y) >= minDelta) {
+                params.x = x;
+                params.y = y;
+                floatingView.updateViewLayout();
+            }
+
+            // Once the capture curve has finished the window sits on the target, so wait for the next target update
+            if (!mMotion.isCaptured()) {
+                scheduleFrame();
+            }
+        }
 
         /**
-         * アニメーションを始めた時点のTransitionX
+         * Set the curve toward the tracking target.
+         *
+         * @param trackingCurve {@link TrackingCurve}
          */
-        private float mStartX;
+        void setTrackingCurve(TrackingCurve trackingCurve) {
+            mMotion.setTrackingCurve(trackingCurve);
+        }
 
         /**
-         * アニメーションを始めた時点のTransitionY
+         * Start tracking the touch position. While tracking, only a changed position requests a frame.
          */
-        private float mStartY;
+        void start() {
+            if (!mIsRunning) {
+                mIsRunning = true;
+                scheduleFrame();
+            }
+        }
 
         /**
-         * 実行中のアニメーションのコード
+         * Stop tracking and drop the pending frame callback.
          */
-        private int mStartedCode;
+        void stop() {
+            mIsRunning = false;
+            if (mIsFrameScheduled) {
+                mLayoutCommitter.removeFrameCallback(this);
+                mIsFrameScheduled = false;
+            }
+        }
 
         /**
-         * アニメーション状態フラグ
+         * Check whether a frame callback is waiting for the next vsync.
+         *
+         * @return true if a frame is scheduled
          */
-        private int mState;
+        boolean isFrameScheduled() {
+            return mIsFrameScheduled;
+        }
 
         /**
-         * 現在の状態
+         * Request the next frame if the tracking is active.
          */
-        private boolean mIsChangeState;
+        private void scheduleFrame() {
+            if (mIsRunning && !mIsFrameScheduled) {
+                mIsFrameScheduled = true;
+                mLayoutCommitter.postFrameCallback(this);
+            }
+        }
 
         /**
-         * 追従対象のX座標
+         * タッチ座標の位置を更新します。
+         *
+         * @param positionX タッチX座標
+         * @param positionY タッチY座標
          */
-        private float mTouchPositionX;
+        void updateTouchPosition(float positionX, float positionY) {
+            if (mMotion.setTouchPosition(positionX, positionY)) {
+                scheduleFrame();
+            }
+        }
 
         /**
-         * 追従対象のY座標
+         * 追従対象の位置を更新します。
+         *
+         * @param centerX 追従対象のX座標
+         * @param centerY 追従対象のY座標
          */
-        private float mTouchPositionY;
+        void updateTargetPosition(float centerX, float centerY) {
+            if (mMotion.setTargetPosition(centerX, centerY)) {
+                scheduleFrame();
+            }
+        }
 
         /**
-         * 追従対象のX座標
+         * アニメーション状態を設定します。
+         *
+         * @param newState STATE_NORMAL or STATE_INTERSECTING or STATE_FINISHING
+         */
+        void setState(@AnimationState int newState) {
+            // 状態が異なった場合のみ追従をやり直す
+            if (mMotion.setState(newState)) {
+                scheduleFrame();
+            }
+        }
+
+        /**
+         * 現在の状態を返します。
+         *
+         * @return STATE_NORMAL or STATE_INTERSECTING or STATE_FINISHING
+         */
+        int getState() {
+            return mMotion.getState();
+        }
+    }
+
+    /**
+     * Plays the snap to the screen edge and commits the position once per frame without allocating.<br/>
+     * A touch pauses the snap, and a new snap started while moving continues from the current velocity.
+     */
+    static class SnapAnimationHandler implements FrameSource.FrameCallback {
+
+        /**
+         * Runs the frame callback and commits the position in the same frame
+         */
+        private final WindowLayoutCommitter mLayoutCommitter;
+
+        /**
+         * Snap curve reused by every snap
+         */
+        private final SnapAnimator mAnimator;
+
+        /**
+         * True if a frame callback is waiting for the next vsync
+         */
+        private boolean mIsFrameScheduled;
+
+        /**
+         * True if the snap was paused by a touch
          */
-        private float mTargetPositionX;
+        private boolean mIsInterrupted;
 
         /**
-         * 追従対象のY座標
+         * Frame time of the first frame(0 until the first frame)
          */
-        private float mTargetPositionY;
+        private long mStartFrameTimeNanos;
 
         /**
          * FloatingView
@@ -1586,199 +1633,399 @@ class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawList
         /**
          * コンストラクタ
          */
-        FloatingAnimationHandler(FloatingView floatingView) {
+        SnapAnimationHandler(FloatingView floatingView, WindowLayoutCommitter layoutCommitter) {
             mFloatingView = new WeakReference<>(floatingView);
-            mStartedCode = ANIMATION_NONE;
-            mState = STATE_NORMAL;
+            mLayoutCommitter = layoutCommitter;
+            mAnimator = new SnapAnimator(MOVE_TO_EDGE_DURATION, MOVE_TO_EDGE_OVERSHOOT_TENSION);
         }
 
         /**
-         * アニメーションの処理を行います。
+         * Update the position of the snap.
          */
         @Override
-        public void handleMessage(Message msg) {
+        public void doFrame(long frameTimeNanos) {
+            mIsFrameScheduled = false;
             final FloatingView floatingView = mFloatingView.get();
             if (floatingView == null) {
-                removeMessages(ANIMATION_IN_TOUCH);
+                mAnimator.cancel();
                 return;
             }
 
-            final int animationCode = msg.what;
-            final int animationType = msg.arg1;
-            final WindowManager.LayoutParams params = floatingView.mParams;
-
-            // 状態変更またはアニメーションを開始した場合の初期化
-            if (mIsChangeState || animationType == TYPE_FIRST) {
-                // 状態変更時のみアニメーション時間を使う
-                mStartTime = mIsChangeState ? SystemClock.uptimeMillis() : 0;
-                mStartX = params.x;
-                mStartY = params.y;
-                mStartedCode = animationCode;
-                mIsChangeState = false;
+            if (mStartFrameTimeNanos == 0) {
+                mStartFrameTimeNanos = frameTimeNanos;
             }
-            // 経過時間
-            final float elapsedTime = SystemClock.uptimeMillis() - mStartTime;
-            final float trackingTargetTimeRate = Math.min(elapsedTime / CAPTURE_DURATION_MILLIS, 1.0f);
-
-            // 重なっていない場合のアニメーション
-            if (mState == FloatingView.STATE_NORMAL) {
-                final float basePosition = calcAnimationPosition(trackingTargetTimeRate);
-                // 画面外へのオーバーを認める
-                final Rect moveLimitRect = floatingView.mMoveLimitRect;
-                // 最終的な到達点
-                final float targetPositionX = Math.min(Math.max(moveLimitRect.left, (int) mTouchPositionX), moveLimitRect.right);
-                final float targetPositionY = Math.min(Math.max(moveLimitRect.top, (int) mTouchPositionY), moveLimitRect.bottom);
-                params.x = (int) (mStartX + (targetPositionX - mStartX) * basePosition);
-                params.y = (int) (mStartY + (targetPositionY - mStartY) * basePosition);
+            final float elapsedMillis = (frameTimeNanos - mStartFrameTimeNanos) / (float) TimeUnit.MILLISECONDS.toNanos(1);
+            final boolean isRunning = mAnimator.update(elapsedMillis);
+            final WindowManager.LayoutParams params = floatingView.mParams;
+            final int x = Math.round(mAnimator.getX());
+            final int y = Math.round(mAnimator.getY());
+            // 位置が変化した時のみ更新
+            if (params.x != x || params.y != y) {
+                params.x = x;
+                params.y = y;
                 floatingView.updateViewLayout();
-                sendMessageAtTime(newMessage(animationCode, TYPE_UPDATE), SystemClock.uptimeMillis() + ANIMATION_REFRESH_TIME_MILLIS);
             }
-            // 重なった場合のアニメーション
-            else if (mState == FloatingView.STATE_INTERSECTING) {
-                final float basePosition = calcAnimationPosition(trackingTargetTimeRate);
-                // 最終的な到達点
-                final float targetPositionX = mTargetPositionX - floatingView.getWidth() / 2;
-                final float targetPositionY = mTargetPositionY - floatingView.getHeight() / 2;
-                // 現在地からの移動
-                params.x = (int) (mStartX + (targetPositionX - mStartX) * basePosition);
-                params.y = (int) (mStartY + (targetPositionY - mStartY) * basePosition);
-                floatingView.updateViewLayout();
-                sendMessageAtTime(newMessage(animationCode, TYPE_UPDATE), SystemClock.uptimeMillis() + ANIMATION_REFRESH_TIME_MILLIS);
+
+            if (isRunning) {
+                scheduleFrame();
+            } else {
+                floatingView.updateInitAnimation();
             }
+        }
 
+        /**
+         * Start a snap. If a snap is moving, the new one continues from its velocity.
+         *
+         * @param fromX start X coordinate
+         * @param fromY start Y coordinate
+         * @param toX   goal X coordinate
+         * @param toY   goal Y coordinate
+         */
+        void start(int fromX, int fromY, int toX, int toY) {
+            final boolean isMoving = mAnimator.isRunning() && !mIsInterrupted;
+            final float velocityX = isMoving ? mAnimator.getVelocityX() : 0;
+            final float velocityY = isMoving ? mAnimator.getVelocityY() : 0;
+            start(fromX, fromY, toX, toY, velocityX, velocityY);
+        }
+
+        private void start(float fromX, float fromY, float toX, float toY, float velocityX, float velocityY) {
+            mIsInterrupted = false;
+            mAnimator.start(fromX, fromY, toX, toY, velocityX, velocityY);
+            mStartFrameTimeNanos = 0;
+            scheduleFrame();
+        }
+
+        /**
+         * Pause the snap. The position and the velocity are kept for {@link #resume(int, int)}.
+         */
+        void interrupt() {
+            if (!mAnimator.isRunning() || mIsInterrupted) {
+                return;
+            }
+            mIsInterrupted = true;
+            removeFrame();
         }
 
         /**
-         * アニメーション時間から求められる位置を計算します。
+         * Continue the paused snap toward the same goal.
          *
-         * @param timeRate 時間比率
-         * @return ベースとなる係数(0.0から1.0 ＋ α)
+         * @param x current X coordinate
+         * @param y current Y coordinate
          */
-        private static float calcAnimationPosition(float timeRate) {
-            final float position;
-            // y=0.55sin(8.0564x-π/2)+0.55
-            if (timeRate <= 0.4) {
-                position = (float) (0.55 * Math.sin(8.0564 * timeRate - Math.PI / 2) + 0.55);
+        void resume(int x, int y) {
+            if (!mIsInterrupted) {
+                return;
             }
-            // y=4(0.417x-0.341)^2-4(0.417-0.341)^2+1
-            else {
-                position = (float) (4 * Math.pow(0.417 * timeRate - 0.341, 2) - 4 * Math.pow(0.417 - 0.341, 2) + 1);
+            start(x, y, mAnimator.getToX(), mAnimator.getToY(), mAnimator.getVelocityX(), mAnimator.getVelocityY());
+        }
+
+        /**
+         * Stop the snap at the current position.
+         */
+        void cancel() {
+            mAnimator.cancel();
+            mIsInterrupted = false;
+            removeFrame();
+        }
+
+        /**
+         * @return true if the snap is moving
+         */
+        boolean isRunning() {
+            return mIsFrameScheduled || (mAnimator.isRunning() && !mIsInterrupted);
+        }
+
+        /**
+         * @return X velocity of the snap(px/ms), kept while it is interrupted
+         */
+        float getVelocityX() {
+            return mAnimator.getVelocityX();
+        }
+
+        /**
+         * @return Y velocity of the snap(px/ms), kept while it is interrupted
+         */
+        float getVelocityY() {
+            return mAnimator.getVelocityY();
+        }
+
+        private void scheduleFrame() {
+            if (!mIsFrameScheduled) {
+                mIsFrameScheduled = true;
+                mLayoutCommitter.postFrameCallback(this);
             }
-            return position;
         }
 
+        private void removeFrame() {
+            if (mIsFrameScheduled) {
+                mLayoutCommitter.removeFrameCallback(this);
+                mIsFrameScheduled = false;
+            }
+        }
+    }
+
+    /**
+     * @return number of times the limit rects have been recomputed
+     */
+    int getLimitRefreshCount() {
+        return mLimitRefreshCount;
+    }
+
+    /**
+     * Coalesces onSizeChanged, onConfigurationChanged and onUpdateSystemLayout into one limit recompute per frame.<br/>
+     * The transaction runs as a {@link WindowLayoutCommitter} frame callback, so the resulting move is committed in the same frame.
+     */
+    static class GeometryRefreshHandler implements FrameSource.FrameCallback {
+
         /**
-         * アニメーションのメッセージを送信します。
-         *
-         * @param animation   ANIMATION_IN_TOUCH
-         * @param delayMillis メッセージの送信時間
+         * Runs the frame callback and commits the position in the same frame
+         */
+        private final WindowLayoutCommitter mLayoutCommitter;
+
+        /**
+         * FloatingView
+         */
+        private final WeakReference<FloatingView> mFloatingView;
+
+        /**
+         * True if a screen change is waiting for the next frame
+         */
+        private boolean mIsPending;
+
+        /**
+         * コンストラクタ
          */
-        void sendAnimationMessageDelayed(int animation, long delayMillis) {
-            sendMessageAtTime(newMessage(animation, TYPE_FIRST), SystemClock.uptimeMillis() + delayMillis);
+        GeometryRefreshHandler(FloatingView floatingView, WindowLayoutCommitter layoutCommitter) {
+            mFloatingView = new WeakReference<>(floatingView);
+            mLayoutCommitter = layoutCommitter;
         }
 
         /**
-         * アニメーションのメッセージを送信します。
-         *
-         * @param animation ANIMATION_IN_TOUCH
+         * Recompute the limits in the next frame.
          */
-        void sendAnimationMessage(int animation) {
-            sendMessage(newMessage(animation, TYPE_FIRST));
+        void request() {
+            if (!mIsPending) {
+                mIsPending = true;
+                mLayoutCommitter.postFrameCallback(this);
+            }
         }
 
         /**
-         * 送信するメッセージを生成します。
-         *
-         * @param animation ANIMATION_IN_TOUCH
-         * @param type      TYPE_FIRST,TYPE_UPDATE
-         * @return Message
+         * Apply the pending change now instead of waiting for the frame.
          */
-        private static Message newMessage(int animation, int type) {
-            final Message message = Message.obtain();
-            message.what = animation;
-            message.arg1 = type;
-            return message;
+        void flush() {
+            if (!mIsPending) {
+                return;
+            }
+            mLayoutCommitter.removeFrameCallback(this);
+            apply();
         }
 
         /**
-         * タッチ座標の位置を更新します。
-         *
-         * @param positionX タッチX座標
-         * @param positionY タッチY座標
+         * Drop the pending change without recomputing the limits.
          */
-        void updateTouchPosition(float positionX, float positionY) {
-            mTouchPositionX = positionX;
-            mTouchPositionY = positionY;
+        void cancel() {
+            if (mIsPending) {
+                mLayoutCommitter.removeFrameCallback(this);
+                mIsPending = false;
+            }
         }
 
         /**
-         * 追従対象の位置を更新します。
-         *
-         * @param centerX 追従対象のX座標
-         * @param centerY 追従対象のY座標
+         * @return true if a screen change is waiting for the next frame
          */
-        void updateTargetPosition(float centerX, float centerY) {
-            mTargetPositionX = centerX;
-            mTargetPositionY = centerY;
+        boolean isPending() {
+            return mIsPending;
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            apply();
         }
 
+        private void apply() {
+            mIsPending = false;
+            final FloatingView floatingView = mFloatingView.get();
+            if (floatingView != null) {
+                floatingView.refreshLimitRect();
+            }
+        }
+    }
+
+    /**
+     * Plays the X and Y physics-based animations in one frame and commits both coordinates at once.<br/>
+     * The path is baked into keyframes when the animation starts, so each frame only reads the table.
+     */
+    static class PhysicsAnimationHandler implements FrameSource.FrameCallback {
+
         /**
-         * アニメーション状態を設定します。
-         *
-         * @param newState STATE_NORMAL or STATE_INTERSECTING or STATE_FINISHING
+         * Runs the frame callback and commits the position in the same frame
          */
-        void setState(@AnimationState int newState) {
-            // 状態が異なった場合のみ状態を変更フラグを変える
-            if (mState != newState) {
-                mIsChangeState = true;
+        private final WindowLayoutCommitter mLayoutCommitter;
+
+        /**
+         * Spring/fling solver reused by every release
+         */
+        private final PhysicsSolver mSolver;
+
+        /**
+         * Recently baked paths
+         */
+        private final TrajectoryCache mTrajectoryCache;
+
+        /**
+         * Path being played(null if not running)
+         */
+        private TrajectoryCache.Trajectory mTrajectory;
+
+        /**
+         * True if a frame callback is waiting for the next vsync
+         */
+        private boolean mIsFrameScheduled;
+
+        /**
+         * Frame time of the first frame(0 until the first frame)
+         */
+        private long mStartFrameTimeNanos;
+
+        /**
+         * FloatingView
+         */
+        private final WeakReference<FloatingView> mFloatingView;
+
+        /**
+         * コンストラクタ
+         */
+        PhysicsAnimationHandler(FloatingView floatingView, WindowLayoutCommitter layoutCommitter) {
+            mFloatingView = new WeakReference<>(floatingView);
+            mLayoutCommitter = layoutCommitter;
+            mSolver = new PhysicsSolver(ANIMATION_MIN_VISIBLE_CHANGE);
+            mTrajectoryCache = new TrajectoryCache();
+        }
+
+        /**
+         * Update the position from the baked path.
+         */
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mIsFrameScheduled = false;
+            final FloatingView floatingView = mFloatingView.get();
+            if (floatingView == null || mTrajectory == null) {
+                mTrajectory = null;
+                return;
+            }
+
+            // The first frame plays the start keyframe
+            if (mStartFrameTimeNanos == 0) {
+                mStartFrameTimeNanos = frameTimeNanos;
+            }
+            final float elapsedMillis = (frameTimeNanos - mStartFrameTimeNanos) / (float) TimeUnit.MILLISECONDS.toNanos(1);
+            final WindowManager.LayoutParams params = floatingView.mParams;
+            final int x = Math.round(mTrajectory.getX(elapsedMillis));
+            final int y = Math.round(mTrajectory.getY(elapsedMillis));
+            // Not moving, or the touch operation is continuing
+            if ((params.x != x || params.y != y) && !floatingView.mVelocityEstimator.isTracking()) {
+                params.x = x;
+                params.y = y;
+                floatingView.updateViewLayout();
+            }
+
+            if (elapsedMillis < mTrajectory.getDuration()) {
+                mIsFrameScheduled = true;
+                mLayoutCommitter.postFrameCallback(this);
+            } else {
+                mTrajectory = null;
             }
-            mState = newState;
         }
 
         /**
-         * 現在の状態を返します。
-         *
-         * @return STATE_NORMAL or STATE_INTERSECTING or STATE_FINISHING
+         * Bake the path of the started solver and play it from the next frame.
          */
-        int getState() {
-            return mState;
+        void start() {
+            mTrajectory = mTrajectoryCache.obtain(mSolver);
+            mStartFrameTimeNanos = 0;
+            if (!mIsFrameScheduled) {
+                mIsFrameScheduled = true;
+                mLayoutCommitter.postFrameCallback(this);
+            }
+        }
+
+        /**
+         * Stop the animation at the current position.
+         */
+        void cancel() {
+            mSolver.cancel();
+            mTrajectory = null;
+            if (mIsFrameScheduled) {
+                mLayoutCommitter.removeFrameCallback(this);
+                mIsFrameScheduled = false;
+            }
+        }
+
+        /**
+         * @return true if the animation is running
+         */
+        boolean isRunning() {
+            return mIsFrameScheduled || mTrajectory != null;
+        }
+
+        /**
+         * @return solver to set up before {@link #start()}
+         */
+        PhysicsSolver getSolver() {
+            return mSolver;
         }
     }
 
     /**
      * 長押し処理を制御するハンドラです。<br/>
-     * dispatchTouchEventで全てのタッチ処理を実装しているので、長押しも独自実装しています。
+     * dispatchTouchEventで全てのタッチ処理を実装しているので、長押しも独自実装しています。<br/>
+     * The timeout runs on the injected {@link FrameSource}, so it follows the virtual time in the simulator.
      */
-    static class LongPressHandler extends Handler {
+    static class LongPressHandler implements Runnable {
 
         /**
-         * TrashView
+         * FloatingView
          */
         private final WeakReference<FloatingView> mFloatingView;
 
         /**
-         * アニメーションなしの状態を表す定数
+         * Runs the timeout
          */
-        private static final int LONG_PRESSED = 0;
+        private final WindowLayoutCommitter mLayoutCommitter;
 
         /**
          * コンストラクタ
          *
-         * @param view FloatingView
+         * @param view            FloatingView
+         * @param layoutCommitter {@link WindowLayoutCommitter}
          */
-        LongPressHandler(FloatingView view) {
+        LongPressHandler(FloatingView view, WindowLayoutCommitter layoutCommitter) {
             mFloatingView = new WeakReference<>(view);
+            mLayoutCommitter = layoutCommitter;
+        }
+
+        /**
+         * Start waiting for the long press again.
+         */
+        void start() {
+            mLayoutCommitter.removeCallbacks(this);
+            mLayoutCommitter.postDelayed(this, LONG_PRESS_TIMEOUT);
+        }
+
+        /**
+         * Stop waiting for the long press.
+         */
+        void cancel() {
+            mLayoutCommitter.removeCallbacks(this);
         }
 
         @Override
-        public void handleMessage(Message msg) {
-            FloatingView view = mFloatingView.get();
-            if (view == null) {
-                removeMessages(LONG_PRESSED);
-                return;
+        public void run() {
+            final FloatingView view = mFloatingView.get();
+            if (view != null) {
+                view.onLongClick();
             }
-
-            view.onLongClick();
         }
     }
 }
@@ -27,7 +27,6 @@ import androidx.annotation.DrawableRes;
 import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
 
-import android.util.DisplayMetrics;
 import android.view.DisplayCutout;
 import android.view.HapticFeedbackConstants;
 import android.view.MotionEvent;
@@ -36,8 +35,16 @@ import android.view.WindowInsets;
 import android.view.WindowManager;
 import android.widget.FrameLayout;
 
+import com.jetpack.bubble.core.BubbleGeometry;
+import com.jetpack.bubble.core.Clock;
+import com.jetpack.bubble.core.FrameSource;
+import com.jetpack.bubble.core.TouchTrace;
+
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 
 /**
@@ -73,30 +80,30 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
     /**
      * 左右の近い方向に移動
      */
-    public static final int MOVE_DIRECTION_DEFAULT = 0;
+    public static final int MOVE_DIRECTION_DEFAULT = BubbleGeometry.MOVE_DIRECTION_DEFAULT;
     /**
      * 常に左に移動
      */
-    public static final int MOVE_DIRECTION_LEFT = 1;
+    public static final int MOVE_DIRECTION_LEFT = BubbleGeometry.MOVE_DIRECTION_LEFT;
     /**
      * 常に右に移動
      */
-    public static final int MOVE_DIRECTION_RIGHT = 2;
+    public static final int MOVE_DIRECTION_RIGHT = BubbleGeometry.MOVE_DIRECTION_RIGHT;
 
     /**
      * 移動しない
      */
-    public static final int MOVE_DIRECTION_NONE = 3;
+    public static final int MOVE_DIRECTION_NONE = BubbleGeometry.MOVE_DIRECTION_NONE;
 
     /**
      * 側に近づく方向に移動します
      */
-    public static final int MOVE_DIRECTION_NEAREST = 4;
+    public static final int MOVE_DIRECTION_NEAREST = BubbleGeometry.MOVE_DIRECTION_NEAREST;
 
     /**
      * Goes in the direction in which it is thrown
      */
-    public static final int MOVE_DIRECTION_THROWN = 5;
+    public static final int MOVE_DIRECTION_THROWN = BubbleGeometry.MOVE_DIRECTION_THROWN;
 
     /**
      * Moving direction
@@ -107,6 +114,24 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
     public @interface MoveDirection {
     }
 
+    /**
+     * Follow the finger with the original overshooting curve
+     */
+    public static final int TRACKING_CURVE_DEFAULT = 0;
+
+    /**
+     * Follow the finger with a critically damped spring(no overshoot)
+     */
+    public static final int TRACKING_CURVE_SPRING = 1;
+
+    /**
+     * Curve used to follow the finger and to capture the bubble into the trash
+     */
+    @IntDef({TRACKING_CURVE_DEFAULT, TRACKING_CURVE_SPRING})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface TrackingCurveType {
+    }
+
     /**
      * Viewの形が円形の場合
      */
@@ -133,9 +158,14 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
     private final WindowManager mWindowManager;
 
     /**
-     * {@link DisplayMetrics}
+     * Display geometry shared by the overlay views
+     */
+    private final DisplayGeometry mDisplayGeometry;
+
+    /**
+     * True while this manager keeps the display listener of {@link DisplayGeometry} registered
      */
-    private final DisplayMetrics mDisplayMetrics;
+    private boolean mIsDisplayGeometryAcquired;
 
     /**
      * 操作状態のFloatingView
@@ -152,6 +182,21 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
      */
     private final TrashView mTrashView;
 
+    /**
+     * Commits the LayoutParams of all overlay windows once per frame
+     */
+    private final WindowLayoutCommitter mLayoutCommitter;
+
+    /**
+     * If true, the TrashView window stays attached and only its visibility changes
+     */
+    private boolean mIsTrashViewPersistent;
+
+    /**
+     * Re-adds the persistent TrashView on top of the bubbles once per frame
+     */
+    private final TrashRestackCallback mTrashRestackCallback;
+
     /**
      * FloatingViewListener
      */
@@ -197,10 +242,22 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
      * @param listener FloatingViewListener
      */
     public FloatingViewManager(Context context, FloatingViewListener listener) {
+        this(context, listener, new ChoreographerFrameSource(), UptimeClock.INSTANCE);
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param context     Context
+     * @param listener    FloatingViewListener
+     * @param frameSource vsync of the animations and the layout commits
+     * @param clock       time of the animations
+     */
+    FloatingViewManager(Context context, FloatingViewListener listener, FrameSource frameSource, Clock clock) {
         mContext = context;
         mResources = context.getResources();
         mWindowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
-        mDisplayMetrics = new DisplayMetrics();
+        mDisplayGeometry = DisplayGeometry.getInstance(context);
         mFloatingViewListener = listener;
         mFloatingViewRect = new Rect();
         mTrashViewRect = new Rect();
@@ -210,8 +267,10 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
 
         // FloatingViewと連携するViewの構築
         mFloatingViewList = new ArrayList<>();
+        mLayoutCommitter = new WindowLayoutCommitter(mWindowManager, frameSource, clock);
         mFullscreenObserverView = new FullscreenObserverView(context, this);
-        mTrashView = new TrashView(context);
+        mTrashView = new TrashView(context, mLayoutCommitter);
+        mTrashRestackCallback = new TrashRestackCallback(this);
     }
 
     /**
@@ -249,12 +308,11 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
         final boolean isHideNavigationBar;
         if (visibility == FullscreenObserverView.NO_LAST_VISIBILITY) {
             // At the first it can not get the correct value, so do special processing
+            final DisplayGeometry.Snapshot display = mDisplayGeometry.getSnapshot();
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
-                mWindowManager.getDefaultDisplay().getRealMetrics(mDisplayMetrics);
-                isHideNavigationBar = windowRect.width() - mDisplayMetrics.widthPixels == 0 && windowRect.bottom - mDisplayMetrics.heightPixels == 0;
+                isHideNavigationBar = windowRect.width() - display.realWidthPixels == 0 && windowRect.bottom - display.realHeightPixels == 0;
             } else {
-                mWindowManager.getDefaultDisplay().getMetrics(mDisplayMetrics);
-                isHideNavigationBar = windowRect.width() - mDisplayMetrics.widthPixels > 0 || windowRect.height() - mDisplayMetrics.heightPixels > 0;
+                isHideNavigationBar = windowRect.width() - display.widthPixels > 0 || windowRect.height() - display.heightPixels > 0;
             }
         } else {
             isHideNavigationBar = (visibility & View.SYSTEM_UI_FLAG_HIDE_NAVIGATION) == View.SYSTEM_UI_FLAG_HIDE_NAVIGATION;
@@ -273,11 +331,16 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
         final int state = mTargetFloatingView.getState();
         // 重なっていない場合は全て非表示処理
         if (state == FloatingView.STATE_NORMAL) {
+            // Only touch the views on a transition
+            final int bubbleVisibility = isFitSystemWindowTop ? View.GONE : View.VISIBLE;
             final int size = mFloatingViewList.size();
             for (int i = 0; i < size; i++) {
                 final FloatingView floatingView = mFloatingViewList.get(i);
-                floatingView.setVisibility(isFitSystemWindowTop ? View.GONE : View.VISIBLE);
+                if (floatingView.getVisibility() != bubbleVisibility) {
+                    floatingView.setVisibility(bubbleVisibility);
+                }
             }
+            // The rest of the gesture is no longer accepted, so the trash never sees its end
             mTrashView.dismiss();
         }
         // 重なっている場合は削除
@@ -300,6 +363,10 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
      */
     @Override
     public void onTrashAnimationStarted(@TrashView.AnimationState int animationCode) {
+        // 常駐モードでは表示アニメーションの開始時に表示
+        if (mIsTrashViewPersistent && animationCode == TrashView.ANIMATION_OPEN) {
+            mTrashView.setVisibility(View.VISIBLE);
+        }
         // クローズまたは強制クローズの場合はすべてのFloatingViewをタッチさせない
         if (animationCode == TrashView.ANIMATION_CLOSE || animationCode == TrashView.ANIMATION_FORCE_CLOSE) {
             final int size = mFloatingViewList.size();
@@ -315,6 +382,10 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
      */
     @Override
     public void onTrashAnimationEnd(@TrashView.AnimationState int animationCode) {
+        // 常駐モードではウィンドウを残したまま非表示
+        if (mIsTrashViewPersistent) {
+            mTrashView.setVisibility(View.INVISIBLE);
+        }
 
         final int state = mTargetFloatingView.getState();
         // 終了していたらViewを削除する
@@ -479,15 +550,125 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
     }
 
 
+    /**
+     * Check whether every FloatingView and the TrashView have stopped animating.<br/>
+     * A settled bubble does not wake up the main thread until the next touch or screen change.
+     *
+     * @return true if no frame callback or animation message is pending
+     */
+    public boolean isQuiescent() {
+        final int size = mFloatingViewList.size();
+        for (int i = 0; i < size; i++) {
+            if (!mFloatingViewList.get(i).isQuiescent()) {
+                return false;
+            }
+        }
+        return mTrashView.isQuiescent();
+    }
+
+    /**
+     * Detach the TrashView window. Does nothing if the TrashView is persistent.
+     */
     public void removeTrashView() {
+        if (mIsTrashViewPersistent) {
+            return;
+        }
         removeViewImmediate(mTrashView);
     }
 
+    /**
+     * Attach the TrashView window if it is not attached.
+     */
     public void addTrashView() {
         if(!mTrashView.isAttachedToWindow()) {
-            mWindowManager.addView(mTrashView, mTrashView.getWindowLayoutParams());
+            addViewToWindowManager(mTrashView, mTrashView.getWindowLayoutParams());
+        }
+    }
+
+    /**
+     * Keep the TrashView window attached while the bubbles are shown.<br/>
+     * The trash is invisible until its open animation starts, so a touch only changes the visibility
+     * instead of creating a window, and {@link #addTrashView()}/{@link #removeTrashView()} are not needed.<br/>
+     * Call this before {@link #addViewToWindow(View, Options)}.
+     *
+     * @param persistent true to keep the TrashView window attached
+     */
+    public void setTrashViewPersistent(boolean persistent) {
+        mIsTrashViewPersistent = persistent;
+        mTrashView.setVisibility(persistent ? View.INVISIBLE : View.VISIBLE);
+        if (!persistent) {
+            mLayoutCommitter.removeFrameCallback(mTrashRestackCallback);
+            // the TrashView may be detached from now on, so the observer needs its own window again
+            if (mFullscreenObserverView.isObservingInsets()) {
+                mFullscreenObserverView.stopInsetsObservation();
+                mWindowManager.addView(mFullscreenObserverView, mFullscreenObserverView.getWindowLayoutParams());
+            }
+        }
+    }
+
+    /**
+     * @return true if the TrashView window stays attached
+     */
+    public boolean isTrashViewPersistent() {
+        return mIsTrashViewPersistent;
+    }
+
+    /**
+     * Get the number of WindowManager#updateViewLayout calls actually sent to the window server.
+     *
+     * @return number of committed window layouts
+     */
+    public long getWindowLayoutCommitCount() {
+        return mLayoutCommitter.getCommitCount();
+    }
+
+    /**
+     * Get the number of screen change notifications skipped because the window rect and the system UI visibility had not changed.
+     *
+     * @return number of suppressed notifications
+     */
+    public long getSuppressedScreenChangeCount() {
+        return mFullscreenObserverView.getSuppressedNotificationCount();
+    }
+
+    /**
+     * Get the average distance between the finger and the bubble while dragging.<br/>
+     * Each sample is taken when a new finger position arrives, so it shows how far the bubble lags behind the finger.
+     *
+     * @return average distance(px), or 0 if no drag has been measured
+     */
+    public float getAverageDragLag() {
+        double sum = 0;
+        long count = 0;
+        final int size = mFloatingViewList.size();
+        for (int i = 0; i < size; i++) {
+            final FloatingView floatingView = mFloatingViewList.get(i);
+            sum += floatingView.getDragLagSum();
+            count += floatingView.getDragLagCount();
         }
+        return count == 0 ? 0 : (float) (sum / count);
     }
+
+    /**
+     * Write the touch events recorded by the first bubble that records them(see {@link Options#touchTraceCapacity}).<br/>
+     * The trace can be read back with TouchTrace#readFrom and replayed as a regression fixture.
+     *
+     * @param out destination
+     * @return false if no bubble records the touch events
+     * @throws IOException if the stream fails
+     */
+    public boolean writeTouchTrace(OutputStream out) throws IOException {
+        final int size = mFloatingViewList.size();
+        for (int i = 0; i < size; i++) {
+            final TouchTrace trace = mFloatingViewList.get(i).getTouchTrace();
+            if (trace != null) {
+                trace.writeTo(out);
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Set the DisplayCutout's safe area
      * Note:You must set the Cutout obtained on portrait orientation.
@@ -512,7 +693,7 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
             floatingView.setSafeInsetRect(mSafeInsetRect);
         }
         // dirty hack
-        mFullscreenObserverView.onGlobalLayout();
+        mFullscreenObserverView.forceNotify();
     }
 
     /**
@@ -523,14 +704,22 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
      */
     public void addViewToWindow(View view, Options options) {
         final boolean isFirstAttach = mFloatingViewList.isEmpty();
+        // ディスプレイの変化は表示中のみ監視する
+        if (!mIsDisplayGeometryAcquired) {
+            mDisplayGeometry.acquire();
+            mIsDisplayGeometryAcquired = true;
+        }
         // FloatingView
-        final FloatingView floatingView = new FloatingView(mContext);
+        final FloatingView floatingView = new FloatingView(mContext, mLayoutCommitter);
         floatingView.setInitCoords(options.floatingViewX, options.floatingViewY);
         floatingView.setOnTouchListener(this);
         floatingView.setShape(options.shape);
         floatingView.setOverMargin(options.overMargin);
         floatingView.setMoveDirection(options.moveDirection);
         floatingView.usePhysics(options.usePhysics);
+        floatingView.setLowLatencyDrag(options.lowLatencyDrag);
+        floatingView.setTrackingCurve(options.trackingCurve);
+        floatingView.setTouchTraceCapacity(options.touchTraceCapacity);
         floatingView.setAnimateInitialMove(options.animateInitialMove);
         floatingView.setSafeInsetRect(mSafeInsetRect);
 
@@ -548,16 +737,46 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
         mTrashView.setTrashViewListener(this);
 
         // Viewの貼り付け
-        mWindowManager.addView(floatingView, floatingView.getWindowLayoutParams());
+        addViewToWindowManager(floatingView, floatingView.getWindowLayoutParams());
         // 最初の貼り付け時の場合のみ、フルスクリーン監視Viewと削除Viewを貼り付け
         if (isFirstAttach) {
-            mWindowManager.addView(mFullscreenObserverView, mFullscreenObserverView.getWindowLayoutParams());
+            // Android 11 and later: the insets of the persistent TrashView window are used instead of an extra window.
+            // A TrashView that is detached by removeTrashView() cannot observe the insets.
+            if (!mIsTrashViewPersistent || !mFullscreenObserverView.startInsetsObservation(mTrashView)) {
+                mWindowManager.addView(mFullscreenObserverView, mFullscreenObserverView.getWindowLayoutParams());
+            }
             mTargetFloatingView = floatingView;
+        } else if (mIsTrashViewPersistent && mTrashView.isAttachedToWindow()) {
+            // 常駐モードではフレームごとに1回だけ貼り直す
+            mLayoutCommitter.postFrameCallback(mTrashRestackCallback);
+            return;
         } else {
             removeViewImmediate(mTrashView);
         }
         // 必ずトップに来て欲しいので毎回貼り付け
-        mWindowManager.addView(mTrashView, mTrashView.getWindowLayoutParams());
+        addViewToWindowManager(mTrashView, mTrashView.getWindowLayoutParams());
+    }
+
+    /**
+     * Re-attach the persistent TrashView so that it comes on top of the bubbles added since the last frame.
+     */
+    private void restackTrashView() {
+        if (!mIsTrashViewPersistent || !mTrashView.isAttachedToWindow()) {
+            return;
+        }
+        removeViewImmediate(mTrashView);
+        addViewToWindowManager(mTrashView, mTrashView.getWindowLayoutParams());
+    }
+
+    /**
+     * Attach the View to the window and let {@link WindowLayoutCommitter} manage its layout.
+     *
+     * @param view   {@link View}
+     * @param params {@link WindowManager.LayoutParams}
+     */
+    private void addViewToWindowManager(View view, WindowManager.LayoutParams params) {
+        mWindowManager.addView(view, params);
+        mLayoutCommitter.register(view, params);
     }
 
     /**
@@ -586,7 +805,12 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
      * ViewをWindowから全て取り外します。
      */
     public void removeAllViewToWindow() {
-        removeViewImmediate(mFullscreenObserverView);
+        mLayoutCommitter.removeFrameCallback(mTrashRestackCallback);
+        if (mFullscreenObserverView.isObservingInsets()) {
+            mFullscreenObserverView.stopInsetsObservation();
+        } else {
+            removeViewImmediate(mFullscreenObserverView);
+        }
         removeViewImmediate(mTrashView);
         // FloatingViewの削除
         final int size = mFloatingViewList.size();
@@ -595,6 +819,10 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
             removeViewImmediate(floatingView);
         }
         mFloatingViewList.clear();
+        if (mIsDisplayGeometryAcquired) {
+            mDisplayGeometry.release();
+            mIsDisplayGeometryAcquired = false;
+        }
     }
 
     /**
@@ -603,6 +831,7 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
      * @param view {@link View}
      */
     private void removeViewImmediate(View view) {
+        mLayoutCommitter.unregister(view);
         // fix #100(crashes on Android 8)
         try {
             mWindowManager.removeViewImmediate(view);
@@ -640,6 +869,35 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
         return safeInsetRect;
     }
 
+    /**
+     * Re-adds the persistent TrashView once per frame however many bubbles were added.
+     */
+    static class TrashRestackCallback implements FrameSource.FrameCallback {
+
+        /**
+         * FloatingViewManager
+         */
+        private final WeakReference<FloatingViewManager> mFloatingViewManager;
+
+        /**
+         * コンストラクタ
+         */
+        TrashRestackCallback(FloatingViewManager floatingViewManager) {
+            mFloatingViewManager = new WeakReference<>(floatingViewManager);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            final FloatingViewManager floatingViewManager = mFloatingViewManager.get();
+            if (floatingViewManager != null) {
+                floatingViewManager.restackTrashView();
+            }
+        }
+    }
+
     /**
      * FloatingViewを貼り付ける際のオプションを表すクラスです。
      */
@@ -692,6 +950,22 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
          */
         public boolean animateInitialMove;
 
+        /**
+         * Request unbuffered touch input and follow the predicted finger position while dragging(default false)
+         */
+        public boolean lowLatencyDrag;
+
+        /**
+         * Curve used to follow the finger(default TRACKING_CURVE_DEFAULT)
+         */
+        @TrackingCurveType
+        public int trackingCurve;
+
+        /**
+         * Number of touch samples kept for {@link FloatingViewManager#writeTouchTrace(OutputStream)}(default 0, not recording)
+         */
+        public int touchTraceCapacity;
+
         /**
          * オプションのデフォルト値を設定します。
          */
@@ -705,6 +979,9 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
             moveDirection = MOVE_DIRECTION_DEFAULT;
             usePhysics = true;
             animateInitialMove = true;
+            lowLatencyDrag = false;
+            trackingCurve = TRACKING_CURVE_DEFAULT;
+            touchTraceCapacity = 0;
         }
 
     }
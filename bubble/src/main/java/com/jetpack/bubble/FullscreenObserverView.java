@@ -23,13 +23,19 @@ import android.os.Build;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
+import android.view.WindowInsets;
 import android.view.WindowManager;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 /**
  * フルスクリーンを監視するViewです。
  * http://stackoverflow.com/questions/18551135/receiving-hidden-status-bar-entering-a-full-screen-activity-event-on-a-service/19201933#19201933
+ * On Android 11 and later the window insets of a window that is already attached are observed instead,
+ * so this View does not need a window of its own.
  */
-class FullscreenObserverView extends View implements ViewTreeObserver.OnGlobalLayoutListener, View.OnSystemUiVisibilityChangeListener {
+class FullscreenObserverView extends View implements ViewTreeObserver.OnGlobalLayoutListener, View.OnSystemUiVisibilityChangeListener, View.OnApplyWindowInsetsListener {
 
     /**
      * Constant that mLastUiVisibility does not exist.
@@ -62,6 +68,32 @@ class FullscreenObserverView extends View implements ViewTreeObserver.OnGlobalLa
      */
     private final Rect mWindowRect;
 
+    /**
+     * Rect of the last notification
+     */
+    private final Rect mNotifiedWindowRect;
+
+    /**
+     * Visibility of the last notification
+     */
+    private int mNotifiedUiVisibility;
+
+    /**
+     * True if the listener has been notified at least once
+     */
+    private boolean mHasNotified;
+
+    /**
+     * Number of notifications skipped because nothing had changed
+     */
+    private long mSuppressedNotificationCount;
+
+    /**
+     * View whose window insets are observed(Android 11 and later)
+     */
+    @Nullable
+    private View mInsetsHost;
+
     static {
         if (Build.VERSION.SDK_INT <= Build.VERSION_CODES.N_MR1) {
             OVERLAY_TYPE = WindowManager.LayoutParams.TYPE_SYSTEM_OVERLAY;
@@ -90,6 +122,7 @@ class FullscreenObserverView extends View implements ViewTreeObserver.OnGlobalLa
         mParams.format = PixelFormat.TRANSLUCENT;
 
         mWindowRect = new Rect();
+        mNotifiedWindowRect = new Rect();
         mLastUiVisibility = NO_LAST_VISIBILITY;
     }
 
@@ -98,6 +131,10 @@ class FullscreenObserverView extends View implements ViewTreeObserver.OnGlobalLa
         super.onAttachedToWindow();
         getViewTreeObserver().addOnGlobalLayoutListener(this);
         setOnSystemUiVisibilityChangeListener(this);
+        // Android 11 and later: the system bar visibility is only reported through the insets
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            setOnApplyWindowInsetsListener(this);
+        }
     }
 
     /**
@@ -113,6 +150,9 @@ class FullscreenObserverView extends View implements ViewTreeObserver.OnGlobalLa
             getViewTreeObserver().removeGlobalOnLayoutListener(this);
         }
         setOnSystemUiVisibilityChangeListener(null);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            setOnApplyWindowInsetsListener(null);
+        }
         super.onDetachedFromWindow();
     }
 
@@ -121,11 +161,7 @@ class FullscreenObserverView extends View implements ViewTreeObserver.OnGlobalLa
      */
     @Override
     public void onGlobalLayout() {
-        // View（フル画面）のサイズを取得
-        if (mScreenChangedListener != null) {
-            getWindowVisibleDisplayFrame(mWindowRect);
-            mScreenChangedListener.onScreenChanged(mWindowRect, mLastUiVisibility);
-        }
+        notifyIfChanged(mLastUiVisibility);
     }
 
     /**
@@ -136,10 +172,96 @@ class FullscreenObserverView extends View implements ViewTreeObserver.OnGlobalLa
     public void onSystemUiVisibilityChange(int visibility) {
         mLastUiVisibility = visibility;
         // ナビゲーションバーの変化を受けて表示・非表示切替
-        if (mScreenChangedListener != null) {
-            getWindowVisibleDisplayFrame(mWindowRect);
-            mScreenChangedListener.onScreenChanged(mWindowRect, visibility);
+        notifyIfChanged(visibility);
+    }
+
+    /**
+     * Observe the window insets of the host instead of attaching this View to a window.
+     *
+     * @param host View that is attached to a window for the whole session
+     * @return true if the insets are observed, false if this View has to be attached to a window(before Android 11)
+     */
+    boolean startInsetsObservation(@NonNull View host) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+            return false;
+        }
+        mInsetsHost = host;
+        host.setOnApplyWindowInsetsListener(this);
+        host.requestApplyInsets();
+        return true;
+    }
+
+    /**
+     * Stop observing the window insets of the host.
+     */
+    void stopInsetsObservation() {
+        if (mInsetsHost != null) {
+            mInsetsHost.setOnApplyWindowInsetsListener(null);
+            mInsetsHost = null;
+        }
+    }
+
+    /**
+     * @return true if the window insets of the host are observed
+     */
+    boolean isObservingInsets() {
+        return mInsetsHost != null;
+    }
+
+    /**
+     * Convert the visibility of the system bars into the flags of {@link #onSystemUiVisibilityChange(int)}.
+     */
+    @Override
+    public WindowInsets onApplyWindowInsets(View v, WindowInsets insets) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            int visibility = 0;
+            if (!insets.isVisible(WindowInsets.Type.statusBars())) {
+                visibility |= View.SYSTEM_UI_FLAG_FULLSCREEN;
+            }
+            if (!insets.isVisible(WindowInsets.Type.navigationBars())) {
+                visibility |= View.SYSTEM_UI_FLAG_HIDE_NAVIGATION;
+            }
+            mLastUiVisibility = visibility;
+            notifyIfChanged(visibility);
+        }
+        return v.onApplyWindowInsets(insets);
+    }
+
+    /**
+     * Notify the listener even if nothing has changed(e.g. the safe inset of the bubbles has been updated).
+     */
+    void forceNotify() {
+        mHasNotified = false;
+        notifyIfChanged(mLastUiVisibility);
+    }
+
+    /**
+     * Notify the listener only if the window rect or the visibility has changed since the last notification.
+     *
+     * @param visibility system UI visibility
+     */
+    private void notifyIfChanged(int visibility) {
+        if (mScreenChangedListener == null) {
+            return;
+        }
+        // View（フル画面）のサイズを取得
+        final View source = mInsetsHost != null ? mInsetsHost : this;
+        source.getWindowVisibleDisplayFrame(mWindowRect);
+        if (mHasNotified && mWindowRect.equals(mNotifiedWindowRect) && visibility == mNotifiedUiVisibility) {
+            mSuppressedNotificationCount++;
+            return;
         }
+        mHasNotified = true;
+        mNotifiedWindowRect.set(mWindowRect);
+        mNotifiedUiVisibility = visibility;
+        mScreenChangedListener.onScreenChanged(mWindowRect, visibility);
+    }
+
+    /**
+     * @return number of layout passes that did not notify the listener because nothing had changed
+     */
+    long getSuppressedNotificationCount() {
+        return mSuppressedNotificationCount;
     }
 
     /**
@@ -18,6 +18,7 @@ package com.jetpack.bubble;
 
 import android.animation.ObjectAnimator;
 import android.animation.PropertyValuesHolder;
+import android.animation.TimeInterpolator;
 import android.content.Context;
 import android.content.res.Configuration;
 import android.graphics.PixelFormat;
@@ -25,21 +26,23 @@ import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.GradientDrawable;
 import android.os.Build;
-import android.os.Handler;
-import android.os.Message;
-import android.os.SystemClock;
 import androidx.annotation.IntDef;
-import android.util.DisplayMetrics;
 import android.view.Gravity;
 import android.view.MotionEvent;
+import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.ViewPropertyAnimator;
 import android.view.ViewTreeObserver;
 import android.view.WindowManager;
+import android.view.animation.LinearInterpolator;
 import android.view.animation.OvershootInterpolator;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
 
+import com.jetpack.bubble.core.FrameSource;
+import com.jetpack.bubble.core.TrashMotion;
+
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.ref.WeakReference;
@@ -54,6 +57,16 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
      */
     private static final int BACKGROUND_HEIGHT = 164;
 
+    /**
+     * Tension of the OvershootInterpolator of the enter scale animation(same as the default of OvershootInterpolator)
+     */
+    private static final float TRASH_ICON_SCALE_TENSION = 2.0f;
+
+    /**
+     * Ratio the enter scale animation goes beyond the target scale
+     */
+    private static final float TRASH_ICON_SCALE_OVERSHOOT = TrashMotion.overshootPeak(TRASH_ICON_SCALE_TENSION);
+
     /**
      * ターゲットを取り込む水平領域(dp)
      */
@@ -72,20 +85,20 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
     /**
      * アニメーションなしの状態を表す定数
      */
-    static final int ANIMATION_NONE = 0;
+    static final int ANIMATION_NONE = TrashMotion.ANIMATION_NONE;
     /**
      * 背景・削除アイコンなどを表示するアニメーションを表す定数<br/>
      * FloatingViewの追尾も含みます。
      */
-    static final int ANIMATION_OPEN = 1;
+    static final int ANIMATION_OPEN = TrashMotion.ANIMATION_OPEN;
     /**
      * 背景・削除アイコンなどを消すアニメーションを表す定数
      */
-    static final int ANIMATION_CLOSE = 2;
+    static final int ANIMATION_CLOSE = TrashMotion.ANIMATION_CLOSE;
     /**
      * 背景・削除アイコンなどを即時に消すことを表す定数
      */
-    static final int ANIMATION_FORCE_CLOSE = 3;
+    static final int ANIMATION_FORCE_CLOSE = TrashMotion.ANIMATION_FORCE_CLOSE;
 
     /**
      * Animation State
@@ -106,19 +119,24 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
     private static final int OVERLAY_TYPE;
 
     /**
-     * WindowManager
+     * LayoutParams
      */
-    private final WindowManager mWindowManager;
+    private final WindowManager.LayoutParams mParams;
 
     /**
-     * LayoutParams
+     * Commits the LayoutParams once per frame
      */
-    private final WindowManager.LayoutParams mParams;
+    private final WindowLayoutCommitter mLayoutCommitter;
 
     /**
-     * DisplayMetrics
+     * Display geometry shared by the overlay views
      */
-    private final DisplayMetrics mMetrics;
+    private final DisplayGeometry mDisplayGeometry;
+
+    /**
+     * Geometry of the display used by the current layout
+     */
+    private DisplayGeometry.Snapshot mDisplay;
 
     /**
      * ルートView（背景、削除アイコンを含むView）
@@ -196,19 +214,21 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
     /**
      * コンストラクタ
      *
-     * @param context Context
+     * @param context         Context
+     * @param layoutCommitter {@link WindowLayoutCommitter}
      */
-    TrashView(Context context) {
+    TrashView(Context context, WindowLayoutCommitter layoutCommitter) {
         super(context);
-        mWindowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
-        mMetrics = new DisplayMetrics();
-        mWindowManager.getDefaultDisplay().getMetrics(mMetrics);
-        mAnimationHandler = new AnimationHandler(this);
+        mLayoutCommitter = layoutCommitter;
+        mDisplayGeometry = DisplayGeometry.getInstance(context);
+        mDisplay = mDisplayGeometry.getSnapshot();
+        mAnimationHandler = new AnimationHandler(this, mLayoutCommitter);
         mIsEnabled = true;
 
         mParams = new WindowManager.LayoutParams();
         mParams.width = ViewGroup.LayoutParams.MATCH_PARENT;
-        mParams.height = ViewGroup.LayoutParams.MATCH_PARENT;
+        // Only the band at the bottom is drawn(see updateWindowHeight)
+        mParams.height = (int) (BACKGROUND_HEIGHT * mDisplay.density);
         mParams.type = OVERLAY_TYPE;
         mParams.flags = WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE |
                 WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE |
@@ -238,7 +258,7 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
         }
 
         // 背景Viewの貼り付け
-        final LayoutParams backgroundParams = new LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, (int) (BACKGROUND_HEIGHT * mMetrics.density));
+        final LayoutParams backgroundParams = new LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, (int) (BACKGROUND_HEIGHT * mDisplay.density));
         backgroundParams.gravity = Gravity.BOTTOM;
         mRootView.addView(mBackgroundView, backgroundParams);
         // アクションアイコンの貼り付け
@@ -270,6 +290,36 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
         updateViewLayout();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        // The size of the trash icon is known after the layout
+        updateWindowHeight();
+    }
+
+    /**
+     * Size the window to the band that is drawn: the background, or the highest point of the trash icon
+     * while it follows the bubble(overshoot and enter scale included) if that is higher.
+     */
+    private void updateWindowHeight() {
+        final int backgroundHeight = (int) (BACKGROUND_HEIGHT * mDisplay.density);
+        final int trashIconHeight = mTrashIconRootView.getMeasuredHeight();
+        float reach = TrashMotion.computeIconReach(mDisplay.density, backgroundHeight, trashIconHeight);
+        // The action icon grows around the center of the icon root
+        if (hasActionTrashIcon() && mActionTrashIconMaxScale > 1.0f) {
+            final float maxScale = 1.0f + (mActionTrashIconMaxScale - 1.0f) * TRASH_ICON_SCALE_OVERSHOOT;
+            reach += Math.max(0.0f, (mActionTrashIconView.getMeasuredHeight() * maxScale - trashIconHeight) / 2);
+        }
+        final int height = (int) Math.ceil(Math.max(backgroundHeight, reach));
+        if (mParams.height != height) {
+            mParams.height = height;
+            mLayoutCommitter.requestCommit(this);
+        }
+    }
+
     /**
      * 画面回転時にレイアウトの調整をします。
      */
@@ -303,15 +353,15 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
      * 画面サイズから自位置を決定します。
      */
     private void updateViewLayout() {
-        mWindowManager.getDefaultDisplay().getMetrics(mMetrics);
-        mParams.x = (mMetrics.widthPixels - getWidth()) / 2;
+        mDisplay = mDisplayGeometry.getSnapshot();
+        mParams.x = (mDisplay.widthPixels - getWidth()) / 2;
         mParams.y = 0;
 
         // Update view and layout
         mTrashViewListener.onUpdateActionTrashIcon();
         mAnimationHandler.onUpdateViewLayout();
 
-        mWindowManager.updateViewLayout(this, mParams);
+        mLayoutCommitter.requestCommit(this);
     }
 
     /**
@@ -319,8 +369,8 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
      */
     void dismiss() {
         // アニメーション停止
-        mAnimationHandler.removeMessages(ANIMATION_OPEN);
-        mAnimationHandler.removeMessages(ANIMATION_CLOSE);
+        mAnimationHandler.removeAnimation(ANIMATION_OPEN);
+        mAnimationHandler.removeAnimation(ANIMATION_CLOSE);
         mAnimationHandler.sendAnimationMessage(ANIMATION_FORCE_CLOSE);
         // 拡大アニメーションの停止
         setScaleTrashIconImmediately(false);
@@ -342,10 +392,11 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
         final float iconHeight = iconView.getHeight() - iconPaddingTop - iconView.getPaddingBottom();
         final float x = mTrashIconRootView.getX() + iconPaddingLeft;
         final float y = mRootView.getHeight() - mTrashIconRootView.getY() - iconPaddingTop - iconHeight;
-        final int left = (int) (x - TARGET_CAPTURE_HORIZONTAL_REGION * mMetrics.density);
-        final int top = -mRootView.getHeight();
-        final int right = (int) (x + iconWidth + TARGET_CAPTURE_HORIZONTAL_REGION * mMetrics.density);
-        final int bottom = (int) (y + iconHeight + TARGET_CAPTURE_VERTICAL_REGION * mMetrics.density);
+        final int left = (int) (x - TARGET_CAPTURE_HORIZONTAL_REGION * mDisplay.density);
+        // The window only covers the bottom band, the region below the icon still reaches a screen height
+        final int top = -mDisplay.heightPixels;
+        final int right = (int) (x + iconWidth + TARGET_CAPTURE_HORIZONTAL_REGION * mDisplay.density);
+        final int bottom = (int) (y + iconHeight + TARGET_CAPTURE_VERTICAL_REGION * mDisplay.density);
         outRect.set(left, top, right, bottom);
     }
 
@@ -362,19 +413,19 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
             return;
         }
         // 拡大率の設定
-        mAnimationHandler.mTargetWidth = width;
-        mAnimationHandler.mTargetHeight = height;
+        mAnimationHandler.setTargetSize(width, height);
         final float newWidthScale = width / mActionTrashIconBaseWidth * shape;
         final float newHeightScale = height / mActionTrashIconBaseHeight * shape;
         mActionTrashIconMaxScale = Math.max(newWidthScale, newHeightScale);
         // ENTERアニメーション作成
         mEnterScaleAnimator = ObjectAnimator.ofPropertyValuesHolder(mActionTrashIconView, PropertyValuesHolder.ofFloat(ImageView.SCALE_X, mActionTrashIconMaxScale), PropertyValuesHolder.ofFloat(ImageView.SCALE_Y, mActionTrashIconMaxScale));
-        mEnterScaleAnimator.setInterpolator(new OvershootInterpolator());
+        mEnterScaleAnimator.setInterpolator(new OvershootInterpolator(TRASH_ICON_SCALE_TENSION));
         mEnterScaleAnimator.setDuration(TRASH_ICON_SCALE_DURATION_MILLIS);
         // Exitアニメーション作成
         mExitScaleAnimator = ObjectAnimator.ofPropertyValuesHolder(mActionTrashIconView, PropertyValuesHolder.ofFloat(ImageView.SCALE_X, 1.0f), PropertyValuesHolder.ofFloat(ImageView.SCALE_Y, 1.0f));
         mExitScaleAnimator.setInterpolator(new OvershootInterpolator());
         mExitScaleAnimator.setDuration(TRASH_ICON_SCALE_DURATION_MILLIS);
+        updateWindowHeight();
     }
 
     /**
@@ -539,6 +590,24 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
         }
     }
 
+    /**
+     * Check whether the trash is opened or opening.
+     *
+     * @return true if the open animation was the last one started
+     */
+    boolean isOpen() {
+        return mAnimationHandler.isAnimationStarted(ANIMATION_OPEN);
+    }
+
+    /**
+     * Check whether the open/close animation is idle.
+     *
+     * @return true if no animation work is pending
+     */
+    boolean isQuiescent() {
+        return mAnimationHandler.isQuiescent();
+    }
+
     /**
      * TrashViewListenerを設定します。
      *
@@ -570,7 +639,7 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
         if (action == MotionEvent.ACTION_DOWN) {
             mAnimationHandler.updateTargetPosition(x, y);
             // 長押し処理待ち
-            mAnimationHandler.removeMessages(ANIMATION_CLOSE);
+            mAnimationHandler.removeAnimation(ANIMATION_CLOSE);
             mAnimationHandler.sendAnimationMessageDelayed(ANIMATION_OPEN, LONG_PRESS_TIMEOUT);
         }
         // 移動
@@ -579,7 +648,7 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
             // まだオープンアニメーションが開始していない場合のみ実行
             if (!mAnimationHandler.isAnimationStarted(ANIMATION_OPEN)) {
                 // 長押しのメッセージを削除
-                mAnimationHandler.removeMessages(ANIMATION_OPEN);
+                mAnimationHandler.removeAnimation(ANIMATION_OPEN);
                 // オープン
                 mAnimationHandler.sendAnimationMessage(ANIMATION_OPEN);
             }
@@ -587,130 +656,50 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
         // 押上、キャンセル
         else if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
             // 長押しのメッセージを削除
-            mAnimationHandler.removeMessages(ANIMATION_OPEN);
+            mAnimationHandler.removeAnimation(ANIMATION_OPEN);
             mAnimationHandler.sendAnimationMessage(ANIMATION_CLOSE);
         }
     }
 
     /**
-     * アニメーションの制御を行うハンドラです。
+     * アニメーションの制御を行うハンドラです。<br/>
+     * The timing and the icon position come from {@link TrashMotion}, this handler only applies them to the views.<br/>
+     * The starts of the animations are tasks and the frames are callbacks of the injected {@link FrameSource},
+     * the frames stop once nothing changes, and the background alpha is animated as a render property by {@link ViewPropertyAnimator}.
      */
-    static class AnimationHandler extends Handler {
-
-        /**
-         * アニメーションをリフレッシュするミリ秒
-         */
-        private static final long ANIMATION_REFRESH_TIME_MILLIS = 10L;
+    static class AnimationHandler implements FrameSource.FrameCallback {
 
         /**
-         * 背景のアニメーション時間
+         * Interpolator of the background alpha(the alpha of {@link TrashMotion} is linear)
          */
-        private static final long BACKGROUND_DURATION_MILLIS = 200L;
+        private static final TimeInterpolator BACKGROUND_INTERPOLATOR = new LinearInterpolator();
 
         /**
-         * 削除アイコンのポップアニメーションの開始遅延時間
+         * Timing and position of the animations
          */
-        private static final long TRASH_OPEN_START_DELAY_MILLIS = 200L;
+        private final TrashMotion mMotion;
 
         /**
-         * 削除アイコンのオープンアニメーション時間
+         * Runs the frame callbacks
          */
-        private static final long TRASH_OPEN_DURATION_MILLIS = 400L;
+        private final WindowLayoutCommitter mLayoutCommitter;
 
         /**
-         * 削除アイコンのクローズアニメーション時間
+         * True if the open animation has finished and no frame is requested until the target moves
          */
-        private static final long TRASH_CLOSE_DURATION_MILLIS = 200L;
+        private boolean mIsOpenSettled;
 
         /**
-         * Overshootアニメーションの係数
+         * True if a frame callback is waiting for the next vsync
          */
-        private static final float OVERSHOOT_TENSION = 1.0f;
+        private boolean mIsFrameScheduled;
 
         /**
-         * 削除アイコンの移動限界X軸オフセット(dp)
+         * Pending starts of ANIMATION_OPEN,ANIMATION_CLOSE,ANIMATION_FORCE_CLOSE
          */
-        private static final int TRASH_MOVE_LIMIT_OFFSET_X = 22;
-
-        /**
-         * 削除アイコンの移動限界Y軸オフセット(dp)
-         */
-        private static final int TRASH_MOVE_LIMIT_TOP_OFFSET = -4;
-
-        /**
-         * アニメーション開始を表す定数
-         */
-        private static final int TYPE_FIRST = 1;
-        /**
-         * アニメーション更新を表す定数
-         */
-        private static final int TYPE_UPDATE = 2;
-
-        /**
-         * アルファの最大値
-         */
-        private static final float MAX_ALPHA = 1.0f;
-
-        /**
-         * アルファの最小値
-         */
-        private static final float MIN_ALPHA = 0.0f;
-
-        /**
-         * アニメーションを開始した時間
-         */
-        private long mStartTime;
-
-        /**
-         * アニメーションを始めた時点のアルファ値
-         */
-        private float mStartAlpha;
-
-        /**
-         * アニメーションを始めた時点のTransitionY
-         */
-        private float mStartTransitionY;
-
-        /**
-         * 実行中のアニメーションのコード
-         */
-        private int mStartedCode;
-
-        /**
-         * 追従対象のX座標
-         */
-        private float mTargetPositionX;
-
-        /**
-         * 追従対象のY座標
-         */
-        private float mTargetPositionY;
-
-        /**
-         * 追従対象の幅
-         */
-        private float mTargetWidth;
-
-        /**
-         * 追従対象の高さ
-         */
-        private float mTargetHeight;
-
-        /**
-         * 削除アイコンの移動限界位置
-         */
-        private final Rect mTrashIconLimitPosition;
-
-        /**
-         * Y軸の追従の範囲
-         */
-        private float mMoveStickyYRange;
-
-        /**
-         * OvershootInterpolator
-         */
-        private final OvershootInterpolator mOvershootInterpolator;
-
+        private final StartTask mOpenTask;
+        private final StartTask mCloseTask;
+        private final StartTask mForceCloseTask;
 
         /**
          * TrashView
@@ -720,23 +709,27 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
         /**
          * コンストラクタ
          */
-        AnimationHandler(TrashView trashView) {
+        AnimationHandler(TrashView trashView, WindowLayoutCommitter layoutCommitter) {
             mTrashView = new WeakReference<>(trashView);
-            mStartedCode = ANIMATION_NONE;
-            mTrashIconLimitPosition = new Rect();
-            mOvershootInterpolator = new OvershootInterpolator(OVERSHOOT_TENSION);
+            mLayoutCommitter = layoutCommitter;
+            mMotion = new TrashMotion();
+            mOpenTask = new StartTask(this, ANIMATION_OPEN);
+            mCloseTask = new StartTask(this, ANIMATION_CLOSE);
+            mForceCloseTask = new StartTask(this, ANIMATION_FORCE_CLOSE);
         }
 
         /**
-         * アニメーションの処理を行います。
+         * アニメーションを開始します。
+         *
+         * @param animationCode ANIMATION_OPEN,ANIMATION_CLOSE,ANIMATION_FORCE_CLOSE
          */
-        @Override
-        public void handleMessage(Message msg) {
+        private void start(int animationCode) {
             final TrashView trashView = mTrashView.get();
             if (trashView == null) {
-                removeMessages(ANIMATION_OPEN);
-                removeMessages(ANIMATION_CLOSE);
-                removeMessages(ANIMATION_FORCE_CLOSE);
+                removeStart(mOpenTask);
+                removeStart(mCloseTask);
+                removeStart(mForceCloseTask);
+                cancelFrame();
                 return;
             }
 
@@ -745,52 +738,54 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
                 return;
             }
 
-            final int animationCode = msg.what;
-            final int animationType = msg.arg1;
             final FrameLayout backgroundView = trashView.mBackgroundView;
-            final FrameLayout trashIconRootView = trashView.mTrashIconRootView;
             final TrashViewListener listener = trashView.mTrashViewListener;
-            final float screenWidth = trashView.mMetrics.widthPixels;
-            final float trashViewX = trashView.mParams.x;
+            final long now = mLayoutCommitter.getClock().uptimeMillis();
+            final float alpha = backgroundView.getAlpha();
 
             // アニメーションを開始した場合の初期化
-            if (animationType == TYPE_FIRST) {
-                mStartTime = SystemClock.uptimeMillis();
-                mStartAlpha = backgroundView.getAlpha();
-                mStartTransitionY = trashIconRootView.getTranslationY();
-                mStartedCode = animationCode;
-                if (listener != null) {
-                    listener.onTrashAnimationStarted(mStartedCode);
-                }
+            mIsOpenSettled = false;
+            mMotion.start(animationCode, now, alpha, trashView.mTrashIconRootView.getTranslationY());
+            if (listener != null) {
+                listener.onTrashAnimationStarted(animationCode);
             }
-            // 経過時間
-            final float elapsedTime = SystemClock.uptimeMillis() - mStartTime;
+            animateBackground(backgroundView, animationCode, alpha);
+            update(trashView, animationCode, now, alpha);
+        }
+
+        /**
+         * Advance the running animation by one frame.
+         */
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mIsFrameScheduled = false;
+            final TrashView trashView = mTrashView.get();
+            if (trashView == null || !trashView.isTrashEnabled()) {
+                return;
+            }
+            final int animationCode = mMotion.getStartedCode();
+            if (animationCode == ANIMATION_NONE) {
+                return;
+            }
+            // Same time base as the start of the animation
+            update(trashView, animationCode, mLayoutCommitter.getClock().uptimeMillis(), mMotion.getAlpha());
+        }
+
+        /**
+         * Compute a frame of the animation, apply the icon position and request the next frame while it is still moving.
+         */
+        private void update(TrashView trashView, int animationCode, long now, float currentAlpha) {
+            final FrameLayout trashIconRootView = trashView.mTrashIconRootView;
+            final TrashViewListener listener = trashView.mTrashViewListener;
 
             // 表示アニメーション
             if (animationCode == ANIMATION_OPEN) {
-                final float currentAlpha = backgroundView.getAlpha();
-                // 最大のアルファ値に達していない場合
-                if (currentAlpha < MAX_ALPHA) {
-                    final float alphaTimeRate = Math.min(elapsedTime / BACKGROUND_DURATION_MILLIS, 1.0f);
-                    final float alpha = Math.min(mStartAlpha + alphaTimeRate, MAX_ALPHA);
-                    backgroundView.setAlpha(alpha);
-                }
-
-                // DelayTimeを超えていたらアニメーション開始
-                if (elapsedTime >= TRASH_OPEN_START_DELAY_MILLIS) {
-                    final float screenHeight = trashView.mMetrics.heightPixels;
-                    // アイコンが左右に全部はみ出たらそれぞれ0%、100%の計算
-                    final float positionX = trashViewX + (mTargetPositionX + mTargetWidth) / (screenWidth + mTargetWidth) * mTrashIconLimitPosition.width() + mTrashIconLimitPosition.left;
-                    // 削除アイコンのY座標アニメーションと追従（上方向がマイナス）
-                    // targetPositionYRateは、ターゲットのY座標が完全に画面外になると0%、画面の半分以降は100%
-                    // stickyPositionYは移動限界の下端が原点で上端まで移動する。mMoveStickyRangeが追従の範囲
-                    // positionYの計算により時間経過とともに移動する
-                    final float targetPositionYRate = Math.min(2 * (mTargetPositionY + mTargetHeight) / (screenHeight + mTargetHeight), 1.0f);
-                    final float stickyPositionY = mMoveStickyYRange * targetPositionYRate + mTrashIconLimitPosition.height() - mMoveStickyYRange;
-                    final float translationYTimeRate = Math.min((elapsedTime - TRASH_OPEN_START_DELAY_MILLIS) / TRASH_OPEN_DURATION_MILLIS, 1.0f);
-                    final float positionY = mTrashIconLimitPosition.bottom - stickyPositionY * mOvershootInterpolator.getInterpolation(translationYTimeRate);
-                    trashIconRootView.setTranslationX(positionX);
-                    trashIconRootView.setTranslationY(positionY);
+                final float screenWidth = trashView.mDisplay.widthPixels;
+                final float screenHeight = trashView.mDisplay.heightPixels;
+                final boolean isOpenSettled = mMotion.updateOpen(now, currentAlpha, trashView.mParams.x, screenWidth, screenHeight);
+                if (mMotion.isIconMoved()) {
+                    trashIconRootView.setTranslationX(mMotion.getTranslationX());
+                    trashIconRootView.setTranslationY(mMotion.getTranslationY());
                     // clear drag view garbage
                     if (Build.VERSION.SDK_INT <= Build.VERSION_CODES.JELLY_BEAN_MR1) {
                         clearClippedChildren(trashView.mRootView);
@@ -798,42 +793,79 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
                     }
                 }
 
-                sendMessageAtTime(newMessage(animationCode, TYPE_UPDATE), SystemClock.uptimeMillis() + ANIMATION_REFRESH_TIME_MILLIS);
+                // After the background and the icon have settled, the icon only moves with the target
+                if (isOpenSettled) {
+                    mIsOpenSettled = true;
+                } else {
+                    scheduleFrame();
+                }
             }
             // 非表示アニメーション
             else if (animationCode == ANIMATION_CLOSE) {
-                // アルファ値の計算
-                final float alphaElapseTimeRate = Math.min(elapsedTime / BACKGROUND_DURATION_MILLIS, 1.0f);
-                final float alpha = Math.max(mStartAlpha - alphaElapseTimeRate, MIN_ALPHA);
-                backgroundView.setAlpha(alpha);
-
-                // 削除アイコンのY座標アニメーション
-                final float translationYTimeRate = Math.min(elapsedTime / TRASH_CLOSE_DURATION_MILLIS, 1.0f);
-                // アニメーションが最後まで到達していない場合
-                if (alphaElapseTimeRate < 1.0f || translationYTimeRate < 1.0f) {
-                    final float position = mStartTransitionY + mTrashIconLimitPosition.height() * translationYTimeRate;
-                    trashIconRootView.setTranslationY(position);
-                    sendMessageAtTime(newMessage(animationCode, TYPE_UPDATE), SystemClock.uptimeMillis() + ANIMATION_REFRESH_TIME_MILLIS);
-                } else {
-                    // 位置を強制的に調整
-                    trashIconRootView.setTranslationY(mTrashIconLimitPosition.bottom);
-                    mStartedCode = ANIMATION_NONE;
-                    if (listener != null) {
-                        listener.onTrashAnimationEnd(ANIMATION_CLOSE);
-                    }
+                final boolean isRunning = mMotion.updateClose(now);
+                trashIconRootView.setTranslationY(mMotion.getTranslationY());
+                if (isRunning) {
+                    scheduleFrame();
+                } else if (listener != null) {
+                    listener.onTrashAnimationEnd(ANIMATION_CLOSE);
                 }
             }
             // 即時非表示
             else if (animationCode == ANIMATION_FORCE_CLOSE) {
-                backgroundView.setAlpha(0.0f);
-                trashIconRootView.setTranslationY(mTrashIconLimitPosition.bottom);
-                mStartedCode = ANIMATION_NONE;
+                cancelFrame();
+                mMotion.forceClose();
+                trashIconRootView.setTranslationY(mMotion.getTranslationY());
                 if (listener != null) {
                     listener.onTrashAnimationEnd(ANIMATION_FORCE_CLOSE);
                 }
             }
         }
 
+        /**
+         * Animate the alpha of the background on its RenderNode instead of setting it every frame.
+         *
+         * @param backgroundView background
+         * @param animationCode  ANIMATION_OPEN,ANIMATION_CLOSE,ANIMATION_FORCE_CLOSE
+         * @param alpha          current alpha
+         */
+        private static void animateBackground(View backgroundView, int animationCode, float alpha) {
+            final ViewPropertyAnimator animator = backgroundView.animate();
+            animator.cancel();
+            if (animationCode == ANIMATION_OPEN) {
+                animator.alpha(TrashMotion.MAX_ALPHA)
+                        .setDuration((long) ((TrashMotion.MAX_ALPHA - alpha) * TrashMotion.BACKGROUND_DURATION_MILLIS))
+                        .setInterpolator(BACKGROUND_INTERPOLATOR)
+                        .start();
+            } else if (animationCode == ANIMATION_CLOSE) {
+                animator.alpha(TrashMotion.MIN_ALPHA)
+                        .setDuration((long) (alpha * TrashMotion.BACKGROUND_DURATION_MILLIS))
+                        .setInterpolator(BACKGROUND_INTERPOLATOR)
+                        .start();
+            } else {
+                backgroundView.setAlpha(TrashMotion.MIN_ALPHA);
+            }
+        }
+
+        /**
+         * Request the next frame.
+         */
+        private void scheduleFrame() {
+            if (!mIsFrameScheduled) {
+                mIsFrameScheduled = true;
+                mLayoutCommitter.postFrameCallback(this);
+            }
+        }
+
+        /**
+         * Remove the requested frame.
+         */
+        private void cancelFrame() {
+            if (mIsFrameScheduled) {
+                mIsFrameScheduled = false;
+                mLayoutCommitter.removeFrameCallback(this);
+            }
+        }
+
         /**
          * Clear the animation garbage of the target view.
          */
@@ -843,6 +875,23 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
             viewGroup.setClipChildren(false);
         }
 
+        /**
+         * Remove the pending start of the animation, and stop it if it is running.
+         *
+         * @param animation ANIMATION_OPEN,ANIMATION_CLOSE,ANIMATION_FORCE_CLOSE
+         */
+        void removeAnimation(int animation) {
+            removeStart(getStartTask(animation));
+            if (mMotion.getStartedCode() != animation) {
+                return;
+            }
+            cancelFrame();
+            final TrashView trashView = mTrashView.get();
+            if (trashView != null) {
+                trashView.mBackgroundView.animate().cancel();
+            }
+        }
+
         /**
          * アニメーションのメッセージを送信します。
          *
@@ -850,7 +899,11 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
          * @param delayMillis メッセージの送信時間
          */
         void sendAnimationMessageDelayed(int animation, long delayMillis) {
-            sendMessageAtTime(newMessage(animation, TYPE_FIRST), SystemClock.uptimeMillis() + delayMillis);
+            final StartTask task = getStartTask(animation);
+            // a start that is already waiting is replaced
+            mLayoutCommitter.removeCallbacks(task);
+            task.isPending = true;
+            mLayoutCommitter.postDelayed(task, delayMillis);
         }
 
         /**
@@ -859,21 +912,32 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
          * @param animation ANIMATION_OPEN,ANIMATION_CLOSE,ANIMATION_FORCE_CLOSE
          */
         void sendAnimationMessage(int animation) {
-            sendMessage(newMessage(animation, TYPE_FIRST));
+            sendAnimationMessageDelayed(animation, 0);
         }
 
         /**
-         * 送信するメッセージを生成します。
+         * Get the task that starts the animation.
          *
          * @param animation ANIMATION_OPEN,ANIMATION_CLOSE,ANIMATION_FORCE_CLOSE
-         * @param type      TYPE_FIRST,TYPE_UPDATE
-         * @return Message
+         * @return {@link StartTask}
+         */
+        private StartTask getStartTask(int animation) {
+            if (animation == ANIMATION_OPEN) {
+                return mOpenTask;
+            } else if (animation == ANIMATION_CLOSE) {
+                return mCloseTask;
+            }
+            return mForceCloseTask;
+        }
+
+        /**
+         * Remove the pending start.
+         *
+         * @param task {@link StartTask}
          */
-        private static Message newMessage(int animation, int type) {
-            final Message message = Message.obtain();
-            message.what = animation;
-            message.arg1 = type;
-            return message;
+        private void removeStart(StartTask task) {
+            task.isPending = false;
+            mLayoutCommitter.removeCallbacks(task);
         }
 
         /**
@@ -883,7 +947,7 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
          * @return アニメーションが開始していたらtrue.そうでなければfalse
          */
         boolean isAnimationStarted(int animationCode) {
-            return mStartedCode == animationCode;
+            return mMotion.getStartedCode() == animationCode;
         }
 
         /**
@@ -893,8 +957,38 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
          * @param y 追従対象のY座標
          */
         void updateTargetPosition(float x, float y) {
-            mTargetPositionX = x;
-            mTargetPositionY = y;
+            if (mMotion.setTargetPosition(x, y)) {
+                requestSettledUpdate();
+            }
+        }
+
+        /**
+         * 追従対象の大きさを設定します。
+         *
+         * @param width  追従対象の幅
+         * @param height 追従対象の高さ
+         */
+        void setTargetSize(float width, float height) {
+            mMotion.setTargetSize(width, height);
+        }
+
+        /**
+         * Wake up a settled open animation so that the icon follows the new target position.
+         */
+        private void requestSettledUpdate() {
+            if (mIsOpenSettled && mMotion.getStartedCode() == ANIMATION_OPEN && !mOpenTask.isPending) {
+                mIsOpenSettled = false;
+                scheduleFrame();
+            }
+        }
+
+        /**
+         * Check whether no animation message is waiting to be handled.
+         *
+         * @return true if the animation is idle
+         */
+        boolean isQuiescent() {
+            return !mOpenTask.isPending && !mCloseTask.isPending && !mForceCloseTask.isPending && !mIsFrameScheduled;
         }
 
         /**
@@ -906,19 +1000,40 @@ class TrashView extends FrameLayout implements ViewTreeObserver.OnPreDrawListene
                 return;
             }
             // 削除アイコン(TrashIconRootView)の移動限界設定(Gravityの基準位置を元に計算）
-            // 左下原点（画面下端（パディング含む）：0、上方向：マイナス、下方向：プラス）で、Y軸上限は削除アイコンが背景の中心に来る位置、下限はTrashIconRootViewが全部隠れる位置
-            final float density = trashView.mMetrics.density;
-            final float backgroundHeight = trashView.mBackgroundView.getMeasuredHeight();
-            final float offsetX = TRASH_MOVE_LIMIT_OFFSET_X * density;
-            final int trashIconHeight = trashView.mTrashIconRootView.getMeasuredHeight();
-            final int left = (int) -offsetX;
-            final int top = (int) ((trashIconHeight - backgroundHeight) / 2 - TRASH_MOVE_LIMIT_TOP_OFFSET * density);
-            final int right = (int) offsetX;
-            final int bottom = trashIconHeight;
-            mTrashIconLimitPosition.set(left, top, right, bottom);
-
-            // 背景の大きさをもとにY軸の追従範囲を設定
-            mMoveStickyYRange = backgroundHeight * 0.20f;
+            mMotion.setIconLimit(trashView.mDisplay.density, trashView.mBackgroundView.getMeasuredHeight(), trashView.mTrashIconRootView.getMeasuredHeight());
+            requestSettledUpdate();
+        }
+
+        /**
+         * Task that starts an animation after its delay.
+         */
+        private static final class StartTask implements Runnable {
+
+            /**
+             * AnimationHandler
+             */
+            private final AnimationHandler mHandler;
+
+            /**
+             * ANIMATION_OPEN,ANIMATION_CLOSE,ANIMATION_FORCE_CLOSE
+             */
+            private final int mAnimationCode;
+
+            /**
+             * True while the task is waiting to run
+             */
+            boolean isPending;
+
+            StartTask(AnimationHandler handler, int animationCode) {
+                mHandler = handler;
+                mAnimationCode = animationCode;
+            }
+
+            @Override
+            public void run() {
+                isPending = false;
+                mHandler.start(mAnimationCode);
+            }
         }
     }
 }
@@ -0,0 +1,334 @@
+/**
+ * Copyright 2015 RECRUIT LIFESTYLE CO., LTD.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jetpack.bubble;
+
+import android.view.View;
+import android.view.WindowManager;
+
+import androidx.core.view.ViewCompat;
+
+import com.jetpack.bubble.core.Clock;
+import com.jetpack.bubble.core.FrameSource;
+
+import java.util.ArrayList;
+
+/**
+ * Collects the LayoutParams changes of the overlay windows and sends them to the window server once per frame.<br/>
+ * Frame callbacks posted through this class run before the commit of the same frame,
+ * so a position computed in a frame is committed in that frame.<br/>
+ * The vsync and the time are injected, so the handlers can run on a virtual timeline.
+ */
+final class WindowLayoutCommitter implements FrameSource, FrameSource.FrameCallback {
+
+    /**
+     * WindowManager
+     */
+    private final WindowManager mWindowManager;
+
+    /**
+     * Source of the vsync
+     */
+    private final FrameSource mFrameSource;
+
+    /**
+     * Clock shared by the handlers
+     */
+    private final Clock mClock;
+
+    /**
+     * Windows whose layout is managed by this class
+     */
+    private final ArrayList<Target> mTargets;
+
+    /**
+     * Frame callbacks that run in the next frame
+     */
+    private ArrayList<FrameSource.FrameCallback> mFrameCallbacks;
+
+    /**
+     * Frame callbacks running in the current frame
+     */
+    private ArrayList<FrameSource.FrameCallback> mRunningFrameCallbacks;
+
+    /**
+     * True if the frame callback is waiting for the next vsync
+     */
+    private boolean mIsFrameScheduled;
+
+    /**
+     * True while the frame is being processed
+     */
+    private boolean mIsInFrame;
+
+    /**
+     * Number of updateViewLayout calls sent to the window server
+     */
+    private long mCommitCount;
+
+    /**
+     * コンストラクタ
+     *
+     * @param windowManager WindowManager
+     */
+    WindowLayoutCommitter(WindowManager windowManager) {
+        this(windowManager, new ChoreographerFrameSource(), UptimeClock.INSTANCE);
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param windowManager WindowManager
+     * @param frameSource   {@link FrameSource}
+     * @param clock         {@link Clock}
+     */
+    WindowLayoutCommitter(WindowManager windowManager, FrameSource frameSource, Clock clock) {
+        mWindowManager = windowManager;
+        mFrameSource = frameSource;
+        mClock = clock;
+        mTargets = new ArrayList<>();
+        mFrameCallbacks = new ArrayList<>();
+        mRunningFrameCallbacks = new ArrayList<>();
+    }
+
+    /**
+     * Start managing the layout of a window. Call this right after WindowManager#addView.
+     *
+     * @param view   View attached to the window
+     * @param params LayoutParams passed to WindowManager#addView
+     */
+    void register(View view, WindowManager.LayoutParams params) {
+        Target target = findTarget(view);
+        if (target == null) {
+            target = new Target(view, params);
+            mTargets.add(target);
+        }
+        // The window server already has these values
+        target.committed.copyFrom(params);
+        target.isDirty = false;
+    }
+
+    /**
+     * Stop managing the layout of a window. Call this when the window is removed.
+     *
+     * @param view View attached to the window
+     */
+    void unregister(View view) {
+        final int size = mTargets.size();
+        for (int i = 0; i < size; i++) {
+            if (mTargets.get(i).view == view) {
+                mTargets.remove(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Mark the LayoutParams of the window as changed. The change is committed at the end of the frame.
+     *
+     * @param view View attached to the window
+     */
+    void requestCommit(View view) {
+        final Target target = findTarget(view);
+        if (target == null) {
+            return;
+        }
+        target.isDirty = true;
+        // Changes made inside the frame are committed at the end of it
+        if (!mIsInFrame) {
+            scheduleFrame();
+        }
+    }
+
+    /**
+     * Post a callback that runs in the next frame, before the layout is committed.
+     *
+     * @param callback {@link FrameSource.FrameCallback}
+     */
+    @Override
+    public void postFrameCallback(FrameSource.FrameCallback callback) {
+        if (!mFrameCallbacks.contains(callback)) {
+            mFrameCallbacks.add(callback);
+        }
+        scheduleFrame();
+    }
+
+    /**
+     * Remove a callback posted by {@link #postFrameCallback(FrameSource.FrameCallback)}.
+     *
+     * @param callback {@link FrameSource.FrameCallback}
+     */
+    @Override
+    public void removeFrameCallback(FrameSource.FrameCallback callback) {
+        mFrameCallbacks.remove(callback);
+        if (mIsInFrame) {
+            final int index = mRunningFrameCallbacks.indexOf(callback);
+            if (index != -1) {
+                mRunningFrameCallbacks.set(index, null);
+            }
+        }
+    }
+
+    /**
+     * Run the task after the delay on the injected {@link FrameSource}.
+     *
+     * @param task        task
+     * @param delayMillis delay(ms)
+     */
+    @Override
+    public void postDelayed(Runnable task, long delayMillis) {
+        mFrameSource.postDelayed(task, delayMillis);
+    }
+
+    /**
+     * Remove a task posted by {@link #postDelayed(Runnable, long)}.
+     *
+     * @param task task
+     */
+    @Override
+    public void removeCallbacks(Runnable task) {
+        mFrameSource.removeCallbacks(task);
+    }
+
+    /**
+     * Run the frame callbacks and commit the changed LayoutParams.
+     */
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mIsFrameScheduled = false;
+        mIsInFrame = true;
+
+        // Callbacks posted while running are kept for the next frame
+        final ArrayList<FrameSource.FrameCallback> callbacks = mFrameCallbacks;
+        mFrameCallbacks = mRunningFrameCallbacks;
+        mRunningFrameCallbacks = callbacks;
+        final int size = callbacks.size();
+        for (int i = 0; i < size; i++) {
+            final FrameSource.FrameCallback callback = callbacks.get(i);
+            if (callback != null) {
+                callback.doFrame(frameTimeNanos);
+            }
+        }
+        callbacks.clear();
+
+        commit();
+        mIsInFrame = false;
+
+        if (!mFrameCallbacks.isEmpty()) {
+            scheduleFrame();
+        }
+    }
+
+    /**
+     * Send the changed LayoutParams to the window server.
+     */
+    private void commit() {
+        final int size = mTargets.size();
+        for (int i = 0; i < size; i++) {
+            final Target target = mTargets.get(i);
+            if (!target.isDirty) {
+                continue;
+            }
+            target.isDirty = false;
+            if (!ViewCompat.isAttachedToWindow(target.view)) {
+                continue;
+            }
+            // Skip if nothing has changed since the last commit
+            if (target.committed.copyFrom(target.params) == 0) {
+                continue;
+            }
+            mWindowManager.updateViewLayout(target.view, target.params);
+            mCommitCount++;
+        }
+    }
+
+    /**
+     * Request the next frame.
+     */
+    private void scheduleFrame() {
+        if (!mIsFrameScheduled) {
+            mIsFrameScheduled = true;
+            mFrameSource.postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Find the managed window.
+     *
+     * @param view View attached to the window
+     * @return Target or null
+     */
+    private Target findTarget(View view) {
+        final int size = mTargets.size();
+        for (int i = 0; i < size; i++) {
+            final Target target = mTargets.get(i);
+            if (target.view == view) {
+                return target;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the clock that the handlers read instead of SystemClock.
+     *
+     * @return {@link Clock}
+     */
+    Clock getClock() {
+        return mClock;
+    }
+
+    /**
+     * Get the number of updateViewLayout calls sent to the window server.
+     *
+     * @return number of committed layouts
+     */
+    long getCommitCount() {
+        return mCommitCount;
+    }
+
+    /**
+     * Window whose layout is managed by {@link WindowLayoutCommitter}.
+     */
+    private static final class Target {
+
+        /**
+         * View attached to the window
+         */
+        final View view;
+
+        /**
+         * LayoutParams modified by the view
+         */
+        final WindowManager.LayoutParams params;
+
+        /**
+         * Last LayoutParams sent to the window server
+         */
+        final WindowManager.LayoutParams committed;
+
+        /**
+         * True if the LayoutParams may have changed since the last commit
+         */
+        boolean isDirty;
+
+        Target(View view, WindowManager.LayoutParams params) {
+            this.view = view;
+            this.params = params;
+            this.committed = new WindowManager.LayoutParams();
+        }
+    }
+}
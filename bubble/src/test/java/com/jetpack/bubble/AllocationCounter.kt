@@ -0,0 +1,28 @@
+package com.jetpack.bubble
+
+import java.lang.management.ManagementFactory
+
+/**
+ * Counts the bytes allocated by the current thread while running a block.
+ */
+object AllocationCounter {
+
+    private val threadBean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+
+    init {
+        threadBean.isThreadAllocatedMemoryEnabled = true
+    }
+
+    /**
+     * Run [block] and return the bytes it allocated, minus the cost of measuring itself.
+     */
+    inline fun measure(block: () -> Unit): Long {
+        val probe = allocatedBytes()
+        val overhead = allocatedBytes() - probe
+        val start = allocatedBytes()
+        block()
+        return allocatedBytes() - start - overhead
+    }
+
+    fun allocatedBytes(): Long = threadBean.getThreadAllocatedBytes(Thread.currentThread().id)
+}
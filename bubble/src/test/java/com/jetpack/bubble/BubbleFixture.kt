@@ -0,0 +1,104 @@
+package com.jetpack.bubble
+
+import android.content.Context
+import android.os.Looper
+import android.os.SystemClock
+import android.view.MotionEvent
+import android.view.View
+import androidx.test.core.app.ApplicationProvider
+import com.jetpack.bubble.core.Clock
+import com.jetpack.bubble.core.FrameSource
+import org.robolectric.Shadows.shadowOf
+import java.time.Duration
+
+/**
+ * A FloatingViewManager hosting bubbles on the Robolectric main looper, with the touch injection shared by the tests.
+ * The frames come from the Choreographer unless a [FrameSource] is given.
+ */
+class BubbleFixture(
+        val context: Context = ApplicationProvider.getApplicationContext(),
+        listener: FloatingViewListener = NO_OP_LISTENER,
+        frameSource: FrameSource? = null,
+        clock: Clock = UptimeClock.INSTANCE) {
+
+    val manager = if (frameSource == null) {
+        FloatingViewManager(context, listener)
+    } else {
+        FloatingViewManager(context, listener, frameSource, clock)
+    }
+
+    /**
+     * The bubble attached last
+     */
+    lateinit var floatingView: FloatingView
+        private set
+
+    /**
+     * Attach a bubble of [BUBBLE_SIZE] and run the main looper until its first layout and initial move are done.
+     *
+     * @param settleMillis time the main looper runs after the attach(0 to leave it to the caller)
+     * @param configure changes to the default options
+     */
+    fun attach(content: View = View(context), settleMillis: Long = SETTLE_MILLIS,
+               configure: FloatingViewManager.Options.() -> Unit = {}): FloatingView {
+        manager.addViewToWindow(content, options(configure))
+        floatingView = content.parent as FloatingView
+        if (settleMillis > 0) {
+            idleFor(settleMillis)
+        }
+        return floatingView
+    }
+
+    fun dispatch(downTime: Long, action: Int, x: Float, y: Float, view: View = floatingView) {
+        val event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, x, y, 0)
+        view.dispatchTouchEvent(event)
+        event.recycle()
+    }
+
+    /**
+     * Press, move in [steps] one frame apart, keep the finger still for [holdFrames] and release it if [release].
+     *
+     * @return down time of the gesture
+     */
+    fun drag(fromX: Float, fromY: Float, toX: Float, toY: Float, steps: Int, holdFrames: Int = 0, release: Boolean = true): Long {
+        val downTime = SystemClock.uptimeMillis()
+        dispatch(downTime, MotionEvent.ACTION_DOWN, fromX, fromY)
+        for (i in 1..steps) {
+            idleFor(FRAME_MILLIS)
+            dispatch(downTime, MotionEvent.ACTION_MOVE, fromX + (toX - fromX) * i / steps, fromY + (toY - fromY) * i / steps)
+        }
+        for (i in 1..holdFrames) {
+            idleFor(FRAME_MILLIS)
+            dispatch(downTime, MotionEvent.ACTION_MOVE, toX, toY)
+        }
+        if (release) {
+            dispatch(downTime, MotionEvent.ACTION_UP, toX, toY)
+        }
+        return downTime
+    }
+
+    companion object {
+        const val BUBBLE_SIZE = 120
+        const val FRAME_MILLIS = 16L
+        const val SETTLE_MILLIS = 3000L
+
+        val NO_OP_LISTENER = object : FloatingViewListener {
+            override fun onFinishFloatingView() {}
+            override fun onTouchFinished(isFinishing: Boolean, x: Int, y: Int) {}
+            override fun onTouchStarted() {}
+        }
+
+        /**
+         * Options of a [BUBBLE_SIZE] bubble with the given changes.
+         */
+        fun options(configure: FloatingViewManager.Options.() -> Unit = {}) = FloatingViewManager.Options().apply {
+            floatingViewWidth = BUBBLE_SIZE
+            floatingViewHeight = BUBBLE_SIZE
+            configure()
+        }
+
+        fun idleFor(millis: Long) {
+            shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis))
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.jetpack.bubble
+
+import android.content.Context
+import android.graphics.drawable.GradientDrawable
+import android.os.SystemClock
+import android.view.MotionEvent
+import com.jetpack.bubble.BubbleFixture.Companion.FRAME_MILLIS
+import com.jetpack.bubble.BubbleFixture.Companion.idleFor
+import com.jetpack.bubble.core.Gesture
+import com.jetpack.bubble.core.SimulationReport
+import com.jetpack.bubble.core.VirtualTimeline
+
+/**
+ * Replays [Gesture]s on a real FloatingViewManager(FloatingView, TrashView and WindowLayoutCommitter) driven by a [VirtualTimeline].
+ * Each run attaches a new bubble, so the same gesture gives the same [SimulationReport].
+ * The main looper only runs the layout passes, the animations run on the virtual time.
+ */
+class BubbleSimulator(private val context: Context, private val usePhysics: Boolean) {
+
+    private val metrics = context.resources.displayMetrics
+
+    /**
+     * Touch position(screen coordinates) that puts the bubble on the trash
+     */
+    val trashTouchX: Float
+        get() = metrics.widthPixels / 2f
+    val trashTouchY: Float
+        get() = metrics.heightPixels - BUBBLE_SIZE / 2f
+
+    fun run(gesture: Gesture): SimulationReport {
+        val timeline = VirtualTimeline(SystemClock.uptimeMillis())
+        var isDropped = false
+        val fixture = BubbleFixture(context, object : FloatingViewListener {
+            override fun onFinishFloatingView() {}
+            override fun onTouchFinished(isFinishing: Boolean, x: Int, y: Int) {
+                isDropped = isFinishing
+            }
+
+            override fun onTouchStarted() {}
+        }, timeline, timeline)
+        val manager = fixture.manager
+        manager.setFixedTrashIconImage(GradientDrawable().apply { setSize(TRASH_ICON_SIZE, TRASH_ICON_SIZE) })
+        val floatingView = fixture.attach(settleMillis = 0) {
+            floatingViewX = 0
+            floatingViewY = metrics.heightPixels / 2
+            floatingViewWidth = BUBBLE_SIZE
+            floatingViewHeight = BUBBLE_SIZE
+            animateInitialMove = false
+            usePhysics = this@BubbleSimulator.usePhysics
+        }
+        settle(manager, timeline)
+
+        val frameStart = timeline.frameCount
+        val commitStart = manager.windowLayoutCommitCount
+        var peakPendingCount = 0
+        val downTime = timeline.uptimeMillis()
+        val lastIndex = gesture.sampleCount - 1
+        for (i in 0..lastIndex) {
+            while (timeline.uptimeMillis() < downTime + gesture.getTimeMillis(i)) {
+                runFrame(timeline)
+                peakPendingCount = maxOf(peakPendingCount, timeline.pendingCount)
+            }
+            val action = when (i) {
+                0 -> MotionEvent.ACTION_DOWN
+                lastIndex -> MotionEvent.ACTION_UP
+                else -> MotionEvent.ACTION_MOVE
+            }
+            dispatch(floatingView, downTime, timeline.uptimeMillis(), action, gesture.getX(i), gesture.getY(i))
+            peakPendingCount = maxOf(peakPendingCount, timeline.pendingCount)
+        }
+
+        val releaseTime = timeline.uptimeMillis()
+        var settleMillis = -1L
+        for (i in 0 until MAX_SETTLE_FRAMES) {
+            if (manager.isQuiescent && timeline.isIdle) {
+                settleMillis = timeline.uptimeMillis() - releaseTime
+                break
+            }
+            runFrame(timeline)
+            peakPendingCount = maxOf(peakPendingCount, timeline.pendingCount)
+        }
+
+        val params = floatingView.windowLayoutParams
+        val report = SimulationReport(timeline.frameCount - frameStart, manager.windowLayoutCommitCount - commitStart,
+                settleMillis, peakPendingCount, isDropped, params.x, params.y)
+        manager.removeAllViewToWindow()
+        return report
+    }
+
+    /**
+     * Run the first layout of the windows.
+     */
+    private fun settle(manager: FloatingViewManager, timeline: VirtualTimeline) {
+        for (i in 0 until MAX_SETTLE_FRAMES) {
+            runFrame(timeline)
+            if (manager.isQuiescent && timeline.isIdle) {
+                return
+            }
+        }
+    }
+
+    /**
+     * Run the layout passes of the main looper, then one frame of the virtual time.
+     */
+    private fun runFrame(timeline: VirtualTimeline) {
+        idleFor(FRAME_MILLIS)
+        timeline.advanceFrame()
+    }
+
+    /**
+     * Dispatch a touch at the screen position. The local coordinates are relative to the current window of the bubble.
+     */
+    private fun dispatch(floatingView: FloatingView, downTime: Long, eventTime: Long, action: Int, screenX: Float, screenY: Float) {
+        val params = floatingView.windowLayoutParams
+        // the window is placed from the bottom-left corner
+        val windowTop = metrics.heightPixels - params.y - floatingView.height
+        val event = MotionEvent.obtain(downTime, eventTime, action, screenX, screenY, 0)
+        event.offsetLocation(-params.x.toFloat(), -windowTop.toFloat())
+        floatingView.dispatchTouchEvent(event)
+        event.recycle()
+    }
+
+    private companion object {
+        const val BUBBLE_SIZE = 168
+        const val TRASH_ICON_SIZE = 160
+        const val MAX_SETTLE_FRAMES = 600
+    }
+}
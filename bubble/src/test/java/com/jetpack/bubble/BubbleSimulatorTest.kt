@@ -0,0 +1,92 @@
+package com.jetpack.bubble
+
+import android.content.Context
+import androidx.test.core.app.ApplicationProvider
+import com.jetpack.bubble.core.Gesture
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.LooperMode
+
+/**
+ * Replays synthetic gestures on the real views and checks the cost of each session.
+ */
+@RunWith(RobolectricTestRunner::class)
+@LooperMode(LooperMode.Mode.PAUSED)
+@Config(qualifiers = "w360dp-h780dp-xxhdpi")
+class BubbleSimulatorTest {
+
+    private val context: Context = ApplicationProvider.getApplicationContext()
+    private val screenWidth = context.resources.displayMetrics.widthPixels
+
+    @Test
+    fun drag_snapsToTheNearestEdge() {
+        val report = BubbleSimulator(context, false)
+                .run(Gesture.drag(100f, 1200f, 900f, 1400f, 300L, 0L))
+
+        assertFalse(report.isDropped)
+        assertEquals(screenWidth - BUBBLE_SIZE, report.finalX)
+        assertTrue(report.toString(), report.settleMillis in 0L..SETTLE_BUDGET_MILLIS)
+        // at most one layout commit per rendered frame
+        assertTrue(report.toString(), report.commitCount <= report.frameCount)
+    }
+
+    @Test
+    fun dropOnTrash_finishesTheSession() {
+        val simulator = BubbleSimulator(context, false)
+        val report = simulator.run(Gesture.drag(BUBBLE_SIZE / 2f, 1200f, simulator.trashTouchX, simulator.trashTouchY, 400L, 300L))
+
+        assertTrue(report.toString(), report.isDropped)
+        assertTrue(report.toString(), report.settleMillis >= 0L)
+    }
+
+    @Test
+    fun heldDragOnTrash_costsNoFrames() {
+        val simulator = BubbleSimulator(context, false)
+        val short = simulator.run(Gesture.drag(BUBBLE_SIZE / 2f, 1200f, simulator.trashTouchX, simulator.trashTouchY, 400L, HOLD_MILLIS))
+        val long = simulator.run(Gesture.drag(BUBBLE_SIZE / 2f, 1200f, simulator.trashTouchX, simulator.trashTouchY, 400L, 2 * HOLD_MILLIS))
+
+        // once the trash and the bubble have settled, the touch samples resting on the trash request nothing
+        assertTrue(long.isDropped)
+        assertEquals("$short / $long", short.frameCount, long.frameCount)
+        assertEquals("$short / $long", short.commitCount, long.commitCount)
+    }
+
+    @Test
+    fun sameGesture_givesTheSameReport() {
+        val simulator = BubbleSimulator(context, true)
+        val gesture = Gesture.fling(100f, 1200f, 3000f, -1500f, 120L)
+
+        assertEquals(simulator.run(gesture).toString(), simulator.run(gesture).toString())
+    }
+
+    @Test
+    fun scenarios_settleWithinBudget() {
+        for (usePhysics in booleanArrayOf(false, true)) {
+            val simulator = BubbleSimulator(context, usePhysics)
+            val gestures = listOf(
+                    Gesture.drag(100f, 300f, 900f, 1800f, 500L, 0L),
+                    Gesture.drag(100f, 1800f, 150f, 400f, 200L, 100L),
+                    Gesture.fling(100f, 1170f, 4000f, 2000f, 80L),
+                    Gesture.fling(100f, 1170f, 500f, -300f, 150L),
+            )
+            for (gesture in gestures) {
+                val report = simulator.run(gesture)
+                assertTrue(report.toString(), report.settleMillis in 0L..SETTLE_BUDGET_MILLIS)
+                assertTrue(report.toString(), report.commitCount <= report.frameCount)
+                assertTrue(report.toString(), report.peakPendingCount <= PEAK_PENDING_BUDGET)
+            }
+        }
+    }
+
+    private companion object {
+        const val BUBBLE_SIZE = 168
+        const val SETTLE_BUDGET_MILLIS = 1500L
+        const val PEAK_PENDING_BUDGET = 4
+        const val HOLD_MILLIS = 1000L
+    }
+}
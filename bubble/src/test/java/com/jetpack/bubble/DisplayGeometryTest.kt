@@ -0,0 +1,98 @@
+package com.jetpack.bubble
+
+import android.content.Context
+import android.view.Display
+import android.view.View
+import androidx.test.core.app.ApplicationProvider
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.LooperMode
+
+/**
+ * Verifies that the display geometry is read once per configuration or display change.
+ */
+@RunWith(RobolectricTestRunner::class)
+@LooperMode(LooperMode.Mode.PAUSED)
+class DisplayGeometryTest {
+
+    private val context: Context = ApplicationProvider.getApplicationContext()
+
+    @Test
+    fun unchangedDisplay_reusesTheSnapshot() {
+        val geometry = DisplayGeometry.getInstance(context)
+        val snapshot = geometry.snapshot
+        val count = geometry.snapshotCount
+
+        repeat(10) { assertSame(snapshot, geometry.snapshot) }
+        assertEquals(count, geometry.snapshotCount)
+    }
+
+    @Test
+    fun overlayViews_shareOneInstance() {
+        val committer = WindowLayoutCommitter(context.getSystemService(Context.WINDOW_SERVICE) as android.view.WindowManager)
+        val geometry = DisplayGeometry.getInstance(context)
+        val snapshot = geometry.snapshot
+        val count = geometry.snapshotCount
+
+        FloatingView(context, committer)
+        FloatingView(context, committer)
+        TrashView(context, committer)
+
+        assertSame(geometry, DisplayGeometry.getInstance(context))
+        assertSame(snapshot, geometry.snapshot)
+        assertEquals(count, geometry.snapshotCount)
+    }
+
+    @Test
+    fun configurationChange_rebuildsTheSnapshot() {
+        val geometry = DisplayGeometry.getInstance(context)
+        val portrait = geometry.snapshot
+
+        RuntimeEnvironment.setQualifiers("+land")
+        val landscape = geometry.snapshot
+
+        assertNotSame(portrait, landscape)
+        assertEquals(portrait.widthPixels, landscape.heightPixels)
+        assertEquals(portrait.heightPixels, landscape.widthPixels)
+        assertSame(landscape, geometry.snapshot)
+    }
+
+    @Test
+    fun displayChange_rebuildsTheSnapshot() {
+        val geometry = DisplayGeometry.getInstance(context)
+        val snapshot = geometry.snapshot
+
+        geometry.onDisplayChanged(Display.DEFAULT_DISPLAY)
+
+        assertNotSame(snapshot, geometry.snapshot)
+    }
+
+    @Test
+    fun displayListener_followsTheManagers() {
+        val geometry = DisplayGeometry.getInstance(context)
+        val first = newManager()
+        val second = newManager()
+        assertFalse(geometry.isListening)
+
+        first.addViewToWindow(View(context), FloatingViewManager.Options())
+        first.addViewToWindow(View(context), FloatingViewManager.Options())
+        second.addViewToWindow(View(context), FloatingViewManager.Options())
+        assertTrue(geometry.isListening)
+
+        first.removeAllViewToWindow()
+        assertTrue(geometry.isListening)
+
+        second.removeAllViewToWindow()
+        second.removeAllViewToWindow()
+        assertFalse(geometry.isListening)
+    }
+
+    private fun newManager() = BubbleFixture(context).manager
+}
@@ -0,0 +1,138 @@
+package com.jetpack.bubble
+
+import android.os.Looper
+import android.os.SystemClock
+import android.view.MotionEvent
+import com.jetpack.bubble.BubbleFixture.Companion.FRAME_MILLIS
+import com.jetpack.bubble.BubbleFixture.Companion.SETTLE_MILLIS
+import com.jetpack.bubble.BubbleFixture.Companion.idleFor
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.LooperMode
+import java.time.Duration
+
+/**
+ * Verifies that a resting bubble does not keep waking up the main thread.
+ */
+@RunWith(RobolectricTestRunner::class)
+@LooperMode(LooperMode.Mode.PAUSED)
+class FloatingViewManagerQuiescenceTest {
+
+    private val fixture = BubbleFixture()
+    private val manager = fixture.manager
+    private lateinit var floatingView: FloatingView
+
+    @Before
+    fun setUp() {
+        // first layout and the initial move to the screen edge
+        floatingView = fixture.attach()
+    }
+
+    @Test
+    fun settledBubble_hasNoPendingWork() {
+        assertTrue(manager.isQuiescent)
+        assertNoPendingMainLooperTasks()
+    }
+
+    @Test
+    fun heldFinger_stopsWakingUp() {
+        val endX = START_X + DRAG_STEPS * DRAG_STEP_PX
+        val downTime = fixture.drag(START_X, START_Y, endX, START_Y, DRAG_STEPS, release = false)
+
+        // the finger stays on the bubble without moving
+        idleFor(SETTLE_MILLIS)
+        assertTrue(manager.isQuiescent)
+        assertNoPendingMainLooperTasks()
+
+        fixture.dispatch(downTime, MotionEvent.ACTION_UP, endX, START_Y)
+        idleFor(SETTLE_MILLIS)
+        assertTrue(manager.isQuiescent)
+        assertNoPendingMainLooperTasks()
+    }
+
+    @Test
+    fun restingFingerNoise_doesNotRelayout() {
+        val restX = START_X + DRAG_STEPS * DRAG_STEP_PX
+        val downTime = fixture.drag(START_X, START_Y, restX, START_Y, DRAG_STEPS, release = false)
+        idleFor(SETTLE_MILLIS)
+
+        // the finger rests on the bubble and the panel reports ±1 px of noise
+        val commitCount = manager.windowLayoutCommitCount
+        for (i in 1..NOISE_STEPS) {
+            idleFor(FRAME_MILLIS)
+            fixture.dispatch(downTime, MotionEvent.ACTION_MOVE, restX + if (i % 2 == 0) 1f else -1f, START_Y + if (i % 3 == 0) 1f else 0f)
+        }
+        idleFor(SETTLE_MILLIS)
+
+        assertTrue(manager.windowLayoutCommitCount - commitCount <= 1)
+        fixture.dispatch(downTime, MotionEvent.ACTION_UP, restX, START_Y)
+    }
+
+    @Test
+    fun detachDuringFling_stopsAllFrames() {
+        fixture.drag(START_X, START_Y, START_X + FLING_STEPS * FLING_STEP_PX, START_Y + FLING_STEPS * FLING_STEP_PX, FLING_STEPS)
+        idleFor(FRAME_MILLIS)
+        assertFalse(floatingView.isQuiescent)
+
+        manager.removeAllViewToWindow()
+        val x = floatingView.windowLayoutParams.x
+        val y = floatingView.windowLayoutParams.y
+        val commitCount = manager.windowLayoutCommitCount
+        idleFor(SETTLE_MILLIS)
+
+        assertTrue(floatingView.isQuiescent)
+        assertEquals(x, floatingView.windowLayoutParams.x)
+        assertEquals(y, floatingView.windowLayoutParams.y)
+        assertEquals(commitCount, manager.windowLayoutCommitCount)
+        assertNoPendingMainLooperTasks()
+    }
+
+    @Test
+    fun tapDuringFling_docksOnAnEdge() {
+        fixture.drag(START_X, START_Y, START_X + FLING_STEPS * FLING_STEP_PX, START_Y + FLING_STEPS * FLING_STEP_PX, FLING_STEPS)
+        idleFor(FRAME_MILLIS)
+        assertFalse(floatingView.isQuiescent)
+
+        // the tap stops the release where the bubble is
+        val downTime = SystemClock.uptimeMillis()
+        fixture.dispatch(downTime, MotionEvent.ACTION_DOWN, START_X, START_Y)
+        idleFor(FRAME_MILLIS)
+        fixture.dispatch(downTime, MotionEvent.ACTION_UP, START_X, START_Y)
+        idleFor(SETTLE_MILLIS)
+
+        val rightEdge = floatingView.resources.displayMetrics.widthPixels - BubbleFixture.BUBBLE_SIZE
+        val x = floatingView.windowLayoutParams.x
+        assertTrue("x=$x", x == 0 || x == rightEdge)
+        assertTrue(manager.isQuiescent)
+    }
+
+    @Test
+    fun detachDuringPress_dropsTheLongPress() {
+        fixture.dispatch(SystemClock.uptimeMillis(), MotionEvent.ACTION_DOWN, START_X, START_Y)
+        manager.removeAllViewToWindow()
+        idleFor(SETTLE_MILLIS)
+
+        assertTrue(floatingView.isQuiescent)
+        assertNoPendingMainLooperTasks()
+    }
+
+    private fun assertNoPendingMainLooperTasks() {
+        assertEquals(Duration.ZERO, shadowOf(Looper.getMainLooper()).nextScheduledTaskTime)
+    }
+
+    private companion object {
+        const val START_X = 100f
+        const val START_Y = 200f
+        const val DRAG_STEPS = 10
+        const val DRAG_STEP_PX = 20f
+        const val NOISE_STEPS = 60
+        const val FLING_STEPS = 3
+        const val FLING_STEP_PX = 80f
+    }
+}
@@ -0,0 +1,73 @@
+package com.jetpack.bubble
+
+import android.os.SystemClock
+import android.view.MotionEvent
+import android.view.View
+import com.jetpack.bubble.BubbleFixture.Companion.idleFor
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.LooperMode
+
+/**
+ * Verifies that every MotionEvent reaches the touch listener exactly once, whether or not the child consumes it.
+ */
+@RunWith(RobolectricTestRunner::class)
+@LooperMode(LooperMode.Mode.PAUSED)
+class FloatingViewTouchPipelineTest {
+
+    private val fixture = BubbleFixture()
+
+    @Test
+    fun childIgnoresEvents_eachEventIsProcessedOnce() {
+        assertEquals(listOf(MotionEvent.ACTION_DOWN) + List(DRAG_STEPS) { MotionEvent.ACTION_MOVE } + MotionEvent.ACTION_UP,
+                dragAndCollectActions(clickableChild = false))
+    }
+
+    @Test
+    fun childConsumesEvents_eachEventIsProcessedOnce() {
+        assertEquals(listOf(MotionEvent.ACTION_DOWN) + List(DRAG_STEPS) { MotionEvent.ACTION_MOVE } + MotionEvent.ACTION_UP,
+                dragAndCollectActions(clickableChild = true))
+    }
+
+    @Test
+    fun tap_longPressIsScheduledOnce() {
+        val floatingView = attachFloatingView(clickableChild = false)
+        var longClicks = 0
+        floatingView.getChildAt(0).setOnLongClickListener {
+            longClicks++
+            true
+        }
+
+        val downTime = SystemClock.uptimeMillis()
+        fixture.dispatch(downTime, MotionEvent.ACTION_DOWN, START_X, START_Y)
+        idleFor(LONG_PRESS_WAIT_MILLIS)
+        fixture.dispatch(downTime, MotionEvent.ACTION_UP, START_X, START_Y)
+
+        assertEquals(1, longClicks)
+    }
+
+    private fun dragAndCollectActions(clickableChild: Boolean): List<Int> {
+        val floatingView = attachFloatingView(clickableChild)
+        val actions = ArrayList<Int>()
+        floatingView.setOnTouchListener { _, event ->
+            actions.add(event.action)
+            false
+        }
+
+        fixture.drag(START_X, START_Y, START_X + DRAG_STEPS * DRAG_STEP_PX, START_Y, DRAG_STEPS)
+        return actions
+    }
+
+    private fun attachFloatingView(clickableChild: Boolean) =
+            fixture.attach(View(fixture.context).apply { isClickable = clickableChild })
+
+    private companion object {
+        const val START_X = 60f
+        const val START_Y = 60f
+        const val DRAG_STEPS = 5
+        const val DRAG_STEP_PX = 20f
+        const val LONG_PRESS_WAIT_MILLIS = 1500L
+    }
+}
@@ -0,0 +1,90 @@
+package com.jetpack.bubble
+
+import android.os.Build
+import android.view.WindowInsets
+import androidx.test.core.app.ApplicationProvider
+import com.jetpack.bubble.BubbleFixture.Companion.SETTLE_MILLIS
+import com.jetpack.bubble.BubbleFixture.Companion.idleFor
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.LooperMode
+
+/**
+ * Verifies that the system bar insets keep reaching onScreenChanged while the TrashView window is detached.
+ */
+@RunWith(RobolectricTestRunner::class)
+@LooperMode(LooperMode.Mode.PAUSED)
+@Config(minSdk = Build.VERSION_CODES.R)
+class FullscreenInsetsTest {
+
+    private lateinit var context: RecordingWindowManager.RecordingContext
+    private lateinit var fixture: BubbleFixture
+    private lateinit var manager: FloatingViewManager
+    private lateinit var floatingView: FloatingView
+
+    @Before
+    fun setUp() {
+        context = RecordingWindowManager.wrap(ApplicationProvider.getApplicationContext())
+        fixture = BubbleFixture(context)
+        manager = fixture.manager
+    }
+
+    @Test
+    fun removedTrash_insetsStillNotify() {
+        attach()
+        manager.removeTrashView()
+        val observer = context.windowManager.attachedViews.filterIsInstance<FullscreenObserverView>().single()
+        val refreshCount = floatingView.limitRefreshCount
+
+        observer.dispatchApplyWindowInsets(insets(systemBarsVisible = false))
+        idleFor(SETTLE_MILLIS)
+
+        assertTrue(floatingView.limitRefreshCount > refreshCount)
+    }
+
+    @Test
+    fun persistentTrash_insetsNotifyThroughTheTrash() {
+        manager.isTrashViewPersistent = true
+        attach()
+        manager.removeTrashView()
+        val trashView = context.windowManager.attachedViews.filterIsInstance<TrashView>().single()
+        assertEquals(0, context.windowManager.attachedViews.filterIsInstance<FullscreenObserverView>().size)
+        val refreshCount = floatingView.limitRefreshCount
+
+        trashView.dispatchApplyWindowInsets(insets(systemBarsVisible = false))
+        idleFor(SETTLE_MILLIS)
+
+        assertTrue(floatingView.limitRefreshCount > refreshCount)
+    }
+
+    @Test
+    fun leavingPersistentMode_attachesTheObserverWindow() {
+        manager.isTrashViewPersistent = true
+        attach()
+
+        manager.isTrashViewPersistent = false
+        manager.removeTrashView()
+        val observer = context.windowManager.attachedViews.filterIsInstance<FullscreenObserverView>().single()
+        val refreshCount = floatingView.limitRefreshCount
+
+        observer.dispatchApplyWindowInsets(insets(systemBarsVisible = false))
+        idleFor(SETTLE_MILLIS)
+
+        assertTrue(floatingView.limitRefreshCount > refreshCount)
+    }
+
+    private fun attach() {
+        floatingView = fixture.attach()
+    }
+
+    private fun insets(systemBarsVisible: Boolean): WindowInsets =
+            WindowInsets.Builder()
+                    .setVisible(WindowInsets.Type.statusBars(), systemBarsVisible)
+                    .setVisible(WindowInsets.Type.navigationBars(), systemBarsVisible)
+                    .build()
+}
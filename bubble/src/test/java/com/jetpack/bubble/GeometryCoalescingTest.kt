@@ -0,0 +1,70 @@
+package com.jetpack.bubble
+
+import android.graphics.Rect
+import android.os.SystemClock
+import android.view.MotionEvent
+import com.jetpack.bubble.BubbleFixture.Companion.SETTLE_MILLIS
+import com.jetpack.bubble.BubbleFixture.Companion.idleFor
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.LooperMode
+
+/**
+ * Verifies that the notifications of a screen change are applied as one geometry transaction per frame.
+ */
+@RunWith(RobolectricTestRunner::class)
+@LooperMode(LooperMode.Mode.PAUSED)
+class GeometryCoalescingTest {
+
+    private lateinit var manager: FloatingViewManager
+    private lateinit var floatingView: FloatingView
+
+    @Before
+    fun setUp() {
+        val fixture = BubbleFixture()
+        manager = fixture.manager
+        floatingView = fixture.attach { animateInitialMove = false }
+    }
+
+    @Test
+    fun rotationStorm_recomputesTheLimitsOnce() {
+        val refreshCount = floatingView.limitRefreshCount
+        val commitCount = manager.windowLayoutCommitCount
+
+        RuntimeEnvironment.setQualifiers("+land")
+        val configuration = floatingView.resources.configuration
+        floatingView.dispatchConfigurationChanged(configuration)
+        manager.setSafeInsetRect(Rect(0, 0, 0, 0))
+        floatingView.onUpdateSystemLayout(false, false, false, Rect(0, 0, 470, 320))
+        manager.setSafeInsetRect(Rect(0, 0, 0, 0))
+
+        // nothing is applied before the frame
+        assertEquals(refreshCount, floatingView.limitRefreshCount)
+
+        idleFor(SETTLE_MILLIS)
+        assertEquals(refreshCount + 1, floatingView.limitRefreshCount)
+        // a single move of the bubble to its new position
+        assertTrue(manager.windowLayoutCommitCount - commitCount <= 1)
+        assertTrue(manager.isQuiescent)
+    }
+
+    @Test
+    fun touchDuringPendingChange_usesTheNewLimits() {
+        val refreshCount = floatingView.limitRefreshCount
+
+        floatingView.onUpdateSystemLayout(false, false, true, Rect(0, 0, 320, 470))
+        val event = MotionEvent.obtain(SystemClock.uptimeMillis(), SystemClock.uptimeMillis(), MotionEvent.ACTION_DOWN, 10f, 10f, 0)
+        floatingView.dispatchTouchEvent(event)
+        event.recycle()
+
+        assertEquals(refreshCount + 1, floatingView.limitRefreshCount)
+        idleFor(SETTLE_MILLIS)
+        assertEquals(refreshCount + 1, floatingView.limitRefreshCount)
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.jetpack.bubble
+
+import android.view.MotionEvent
+import com.jetpack.bubble.BubbleFixture.Companion.SETTLE_MILLIS
+import com.jetpack.bubble.BubbleFixture.Companion.idleFor
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.LooperMode
+
+/**
+ * Verifies that the low-latency drag mode brings the bubble closer to the finger during a fast drag.
+ */
+@RunWith(RobolectricTestRunner::class)
+@LooperMode(LooperMode.Mode.PAUSED)
+class LowLatencyDragTest {
+
+    @Test
+    fun fastDrag_lagIsReducedByPrediction() {
+        val defaultLag = measureDragLag(lowLatencyDrag = false)
+        val lowLatencyLag = measureDragLag(lowLatencyDrag = true)
+
+        assertTrue("default=$defaultLag lowLatency=$lowLatencyLag", lowLatencyLag < defaultLag / 2)
+    }
+
+    private fun measureDragLag(lowLatencyDrag: Boolean): Float {
+        val fixture = BubbleFixture()
+        val manager = fixture.manager
+        fixture.attach {
+            floatingViewWidth = BUBBLE_SIZE
+            floatingViewHeight = BUBBLE_SIZE
+            this.lowLatencyDrag = lowLatencyDrag
+        }
+
+        val endX = START_X + DRAG_STEPS * DRAG_STEP_PX
+        val downTime = fixture.drag(START_X, START_Y, endX, START_Y, DRAG_STEPS, release = false)
+        val lag = manager.averageDragLag
+        fixture.dispatch(downTime, MotionEvent.ACTION_UP, endX, START_Y)
+        manager.removeAllViewToWindow()
+        idleFor(SETTLE_MILLIS)
+        return lag
+    }
+
+    private companion object {
+        const val BUBBLE_SIZE = 60
+        const val START_X = 30f
+        const val START_Y = 200f
+        const val DRAG_STEPS = 30
+        const val DRAG_STEP_PX = 8f
+    }
+}
@@ -0,0 +1,113 @@
+package com.jetpack.bubble
+
+import android.os.SystemClock
+import android.view.MotionEvent
+import com.jetpack.bubble.BubbleFixture.Companion.FRAME_MILLIS
+import com.jetpack.bubble.BubbleFixture.Companion.idleFor
+import com.jetpack.bubble.core.VirtualTimeline
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.LooperMode
+
+/**
+ * Verifies that a steady-state ACTION_MOVE allocates nothing on its way through FloatingView, FloatingViewManager and TrashView.<br/>
+ * Frames come from a [VirtualTimeline] so that the vsync requests of the Choreographer shadow are not measured.
+ */
+@RunWith(RobolectricTestRunner::class)
+@LooperMode(LooperMode.Mode.PAUSED)
+class MoveEventAllocationTest {
+
+    private lateinit var timeline: VirtualTimeline
+    private lateinit var floatingView: FloatingView
+
+    @Test
+    fun moveEvents_doNotAllocate() {
+        attachFloatingView(lowLatencyDrag = false)
+        assertEquals(0L, measureMoves(EVENTS_PER_FRAME))
+    }
+
+    @Test
+    fun batchedMoveEvents_doNotAllocate() {
+        attachFloatingView(lowLatencyDrag = false)
+        assertEquals(0L, measureMoves(BATCHED_EVENTS_PER_FRAME))
+    }
+
+    @Test
+    fun lowLatencyMoveEvents_doNotAllocate() {
+        attachFloatingView(lowLatencyDrag = true)
+        assertEquals(0L, measureMoves(EVENTS_PER_FRAME))
+    }
+
+    /**
+     * Drag back and forth, and return the bytes allocated by the dispatch of the measured move events.
+     */
+    private fun measureMoves(eventsPerFrame: Int): Long {
+        val downTime = SystemClock.uptimeMillis()
+        dispatch(downTime, MotionEvent.ACTION_DOWN, 0)
+        // the trash opens and the buffers of the path grow during the warm-up
+        for (i in 1..WARM_UP_MOVES) {
+            runFrame()
+            for (j in 0 until eventsPerFrame) {
+                dispatch(downTime, MotionEvent.ACTION_MOVE, i * eventsPerFrame + j)
+            }
+        }
+
+        var allocated = 0L
+        for (i in 1..MEASURED_MOVES) {
+            runFrame()
+            for (j in 0 until eventsPerFrame) {
+                val event = obtain(downTime, MotionEvent.ACTION_MOVE, (WARM_UP_MOVES + i) * eventsPerFrame + j)
+                allocated += AllocationCounter.measure { floatingView.dispatchTouchEvent(event) }
+                event.recycle()
+            }
+        }
+
+        dispatch(downTime, MotionEvent.ACTION_UP, (WARM_UP_MOVES + MEASURED_MOVES + 1) * eventsPerFrame)
+        return allocated
+    }
+
+    private fun attachFloatingView(lowLatencyDrag: Boolean) {
+        timeline = VirtualTimeline(SystemClock.uptimeMillis())
+        floatingView = BubbleFixture(frameSource = timeline).attach(settleMillis = 0) { this.lowLatencyDrag = lowLatencyDrag }
+        for (i in 0 until SETTLE_FRAMES) {
+            runFrame()
+        }
+    }
+
+    /**
+     * Advance the main looper and the frame source by one frame.
+     */
+    private fun runFrame() {
+        idleFor(FRAME_MILLIS)
+        timeline.advanceFrame()
+    }
+
+    private fun dispatch(downTime: Long, action: Int, step: Int) {
+        val event = obtain(downTime, action, step)
+        floatingView.dispatchTouchEvent(event)
+        event.recycle()
+    }
+
+    /**
+     * Event of a finger sweeping left and right over the upper half of the screen.
+     */
+    private fun obtain(downTime: Long, action: Int, step: Int): MotionEvent {
+        val phase = step % (2 * SWEEP_STEPS)
+        val offset = if (phase < SWEEP_STEPS) phase else 2 * SWEEP_STEPS - phase
+        return MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, START_X + offset * STEP_PX, START_Y + offset * STEP_PX / 2, 0)
+    }
+
+    private companion object {
+        const val START_X = 60f
+        const val START_Y = 60f
+        const val STEP_PX = 6f
+        const val SWEEP_STEPS = 30
+        const val EVENTS_PER_FRAME = 1
+        const val BATCHED_EVENTS_PER_FRAME = 2
+        const val WARM_UP_MOVES = 120
+        const val MEASURED_MOVES = 240
+        const val SETTLE_FRAMES = 200
+    }
+}
@@ -0,0 +1,92 @@
+package com.jetpack.bubble
+
+import android.content.Context
+import android.content.ContextWrapper
+import android.os.SystemClock
+import android.view.View
+import android.view.ViewGroup
+import android.view.WindowManager
+
+/**
+ * WindowManager that counts the window operations sent to the window server and forwards them to the real one.
+ * Only calls that succeed are counted, like the IPCs that actually reach the server.
+ */
+class RecordingWindowManager(private val delegate: WindowManager) : WindowManager by delegate {
+
+    var addViewCount = 0
+        private set
+    var removeViewCount = 0
+        private set
+    var updateViewLayoutCount = 0
+        private set
+
+    /**
+     * Views currently attached through this WindowManager
+     */
+    val attachedViews = ArrayList<View>()
+
+    /**
+     * Number of windows updated more than once at the same uptime, i.e. in the same frame
+     */
+    var sameFrameUpdateCount = 0
+        private set
+
+    private val lastUpdateTimes = HashMap<View, Long>()
+
+    override fun addView(view: View, params: ViewGroup.LayoutParams) {
+        delegate.addView(view, params)
+        addViewCount++
+        attachedViews.add(view)
+    }
+
+    override fun updateViewLayout(view: View, params: ViewGroup.LayoutParams) {
+        delegate.updateViewLayout(view, params)
+        updateViewLayoutCount++
+        val now = SystemClock.uptimeMillis()
+        if (lastUpdateTimes.put(view, now) == now) {
+            sameFrameUpdateCount++
+        }
+    }
+
+    override fun removeView(view: View) {
+        delegate.removeView(view)
+        onRemoved(view)
+    }
+
+    override fun removeViewImmediate(view: View) {
+        delegate.removeViewImmediate(view)
+        onRemoved(view)
+    }
+
+    fun reset() {
+        addViewCount = 0
+        removeViewCount = 0
+        updateViewLayoutCount = 0
+        sameFrameUpdateCount = 0
+        lastUpdateTimes.clear()
+    }
+
+    private fun onRemoved(view: View) {
+        removeViewCount++
+        attachedViews.remove(view)
+        lastUpdateTimes.remove(view)
+    }
+
+    /**
+     * Context that hands out the [RecordingWindowManager] to everything created from it.
+     */
+    class RecordingContext(base: Context, val windowManager: RecordingWindowManager) : ContextWrapper(base) {
+
+        override fun getSystemService(name: String): Any? {
+            return if (name == Context.WINDOW_SERVICE) windowManager else super.getSystemService(name)
+        }
+    }
+
+    companion object {
+
+        fun wrap(base: Context): RecordingContext {
+            val windowManager = RecordingWindowManager(base.getSystemService(Context.WINDOW_SERVICE) as WindowManager)
+            return RecordingContext(base, windowManager)
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.jetpack.bubble
+
+import android.content.Context
+import android.graphics.Rect
+import android.os.Build
+import android.view.MotionEvent
+import android.view.View
+import android.view.WindowInsets
+import android.widget.FrameLayout
+import androidx.test.core.app.ApplicationProvider
+import com.jetpack.bubble.BubbleFixture.Companion.SETTLE_MILLIS
+import com.jetpack.bubble.BubbleFixture.Companion.idleFor
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.LooperMode
+
+/**
+ * Verifies that FullscreenObserverView only notifies when the window rect or the system UI visibility changed.
+ */
+@RunWith(RobolectricTestRunner::class)
+@LooperMode(LooperMode.Mode.PAUSED)
+class ScreenChangeSuppressionTest {
+
+    private val notifications = ArrayList<Pair<Rect, Int>>()
+    private lateinit var observer: FullscreenObserverView
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        observer = FullscreenObserverView(context) { windowRect, visibility ->
+            notifications.add(Rect(windowRect) to visibility)
+        }
+    }
+
+    @Test
+    fun repeatedLayoutPasses_notifyOnce() {
+        repeat(LAYOUT_PASSES) { observer.onGlobalLayout() }
+
+        assertEquals(1, notifications.size)
+        assertEquals((LAYOUT_PASSES - 1).toLong(), observer.suppressedNotificationCount)
+    }
+
+    @Test
+    fun visibilityTransition_notifiesOncePerTransition() {
+        observer.onGlobalLayout()
+        observer.onSystemUiVisibilityChange(View.SYSTEM_UI_FLAG_FULLSCREEN)
+        observer.onSystemUiVisibilityChange(View.SYSTEM_UI_FLAG_FULLSCREEN)
+        observer.onGlobalLayout()
+        observer.onSystemUiVisibilityChange(0)
+
+        assertEquals(listOf(FullscreenObserverView.NO_LAST_VISIBILITY, View.SYSTEM_UI_FLAG_FULLSCREEN, 0),
+                notifications.map { it.second })
+        assertEquals(2L, observer.suppressedNotificationCount)
+    }
+
+    @Test
+    fun forceNotify_bypassesSuppression() {
+        observer.onGlobalLayout()
+        observer.forceNotify()
+
+        assertEquals(2, notifications.size)
+        assertEquals(notifications[0].first, notifications[1].first)
+        assertEquals(0L, observer.suppressedNotificationCount)
+    }
+
+    @Test
+    @Config(minSdk = Build.VERSION_CODES.R)
+    fun windowInsets_notifyOnSystemBarTransitions() {
+        val host = FrameLayout(ApplicationProvider.getApplicationContext())
+        assertTrue(observer.startInsetsObservation(host))
+
+        host.dispatchApplyWindowInsets(insets(statusBars = true, navigationBars = true))
+        host.dispatchApplyWindowInsets(insets(statusBars = false, navigationBars = false))
+        host.dispatchApplyWindowInsets(insets(statusBars = false, navigationBars = false))
+
+        val hidden = View.SYSTEM_UI_FLAG_FULLSCREEN or View.SYSTEM_UI_FLAG_HIDE_NAVIGATION
+        assertEquals(listOf(0, hidden), notifications.map { it.second })
+        assertEquals(1L, observer.suppressedNotificationCount)
+
+        observer.stopInsetsObservation()
+        host.dispatchApplyWindowInsets(insets(statusBars = true, navigationBars = true))
+        assertEquals(2, notifications.size)
+    }
+
+    @Test
+    fun screenChangeMidDrag_closesTheTrash() {
+        val context = RecordingWindowManager.wrap(ApplicationProvider.getApplicationContext())
+        val fixture = BubbleFixture(context)
+        fixture.manager.setDisplayMode(FloatingViewManager.DISPLAY_MODE_HIDE_FULLSCREEN)
+        fixture.attach()
+        val trashView = context.windowManager.attachedViews.filterIsInstance<TrashView>().single()
+        val downTime = fixture.drag(DRAG_START, DRAG_START, DRAG_END, DRAG_END, DRAG_STEPS, release = false)
+        idleFor(SETTLE_MILLIS)
+        assertTrue(trashView.isOpen)
+
+        // an insets-only change(the status bar stays visible), so no bubble changes its visibility
+        val metrics = context.resources.displayMetrics
+        fixture.manager.onScreenChanged(Rect(0, STATUS_BAR_HEIGHT, metrics.widthPixels, metrics.heightPixels), 0)
+        fixture.dispatch(downTime, MotionEvent.ACTION_UP, DRAG_END, DRAG_END)
+        idleFor(SETTLE_MILLIS)
+
+        assertEquals(View.VISIBLE, fixture.floatingView.visibility)
+        assertFalse(trashView.isOpen)
+        assertTrue(fixture.manager.isQuiescent)
+    }
+
+    private fun insets(statusBars: Boolean, navigationBars: Boolean): WindowInsets =
+            WindowInsets.Builder()
+                    .setVisible(WindowInsets.Type.statusBars(), statusBars)
+                    .setVisible(WindowInsets.Type.navigationBars(), navigationBars)
+                    .build()
+
+    companion object {
+        private const val LAYOUT_PASSES = 10
+        private const val DRAG_START = 60f
+        private const val DRAG_END = 300f
+        private const val DRAG_STEPS = 10
+        private const val STATUS_BAR_HEIGHT = 63
+    }
+}
@@ -0,0 +1,161 @@
+package com.jetpack.bubble
+
+import android.content.Context
+import android.os.SystemClock
+import android.view.View
+import android.view.ViewGroup
+import android.view.WindowManager
+import androidx.test.core.app.ApplicationProvider
+import com.jetpack.bubble.BubbleFixture.Companion.FRAME_MILLIS
+import com.jetpack.bubble.BubbleFixture.Companion.idleFor
+import com.jetpack.bubble.core.SnapAnimator
+import com.jetpack.bubble.core.VirtualTimeline
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.LooperMode
+
+/**
+ * Verifies that the edge snap does not allocate per frame, including the layout commit,
+ * and that an interrupted snap keeps its position and velocity.
+ */
+@RunWith(RobolectricTestRunner::class)
+@LooperMode(LooperMode.Mode.PAUSED)
+class SnapAnimationAllocationTest {
+
+    private lateinit var timeline: VirtualTimeline
+    private lateinit var floatingView: FloatingView
+    private lateinit var params: WindowManager.LayoutParams
+    private lateinit var handler: FloatingView.SnapAnimationHandler
+
+    /**
+     * Number of layouts that reached the window server
+     */
+    private var updateCount = 0
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        val delegate = context.getSystemService(Context.WINDOW_SERVICE) as WindowManager
+        // the window server IPC is outside of the library, so only count it
+        val windowManager = object : WindowManager by delegate {
+            override fun updateViewLayout(view: View, params: ViewGroup.LayoutParams) {
+                updateCount++
+            }
+        }
+        timeline = VirtualTimeline(SystemClock.uptimeMillis())
+        val committer = WindowLayoutCommitter(windowManager, timeline, timeline)
+        floatingView = FloatingView(context, committer)
+        params = floatingView.windowLayoutParams
+        // same as FloatingViewManager#addViewToWindow
+        windowManager.addView(floatingView, params)
+        committer.register(floatingView, params)
+        // first layout and the initial move of the view
+        for (i in 0 until SETTLE_FRAMES) {
+            runFrame()
+        }
+        assertTrue(floatingView.isQuiescent)
+        handler = FloatingView.SnapAnimationHandler(floatingView, committer)
+        updateCount = 0
+    }
+
+    @Test
+    fun snapFrames_doNotAllocate() {
+        handler.start(0, 0, GOAL_X, 0)
+        // first frames post the callbacks once
+        timeline.advanceFrame()
+        timeline.advanceFrame()
+        val updatesBefore = updateCount
+
+        val allocated = AllocationCounter.measure {
+            for (i in 0 until MEASURED_FRAMES) {
+                timeline.advanceFrame()
+            }
+        }
+
+        assertEquals(0L, allocated)
+        // the measured frames committed the moving window, at most once per frame
+        assertTrue("updates=${updateCount - updatesBefore}", updateCount - updatesBefore in 1..MEASURED_FRAMES)
+        assertTrue(handler.isRunning)
+    }
+
+    @Test
+    fun retarget_continuesFromCurrentVelocity() {
+        val animator = SnapAnimator(DURATION_MILLIS, TENSION)
+        animator.start(0f, 0f, GOAL_X.toFloat(), 0f, 0f, 0f)
+        animator.update(DURATION_MILLIS / 4f)
+        val x = animator.x
+        val velocityX = animator.velocityX
+
+        animator.start(x, 0f, 0f, 0f, velocityX, 0f)
+        animator.update(0f)
+        assertEquals(x, animator.x, EPSILON)
+        assertEquals(velocityX, animator.velocityX, EPSILON)
+
+        assertFalse(animator.update(DURATION_MILLIS.toFloat()))
+        assertEquals(0f, animator.x, EPSILON)
+        assertEquals(0f, animator.velocityX, EPSILON)
+    }
+
+    @Test
+    fun interruptedSnap_resumesTowardSameGoal() {
+        handler.start(0, 0, GOAL_X, 0)
+        for (i in 0 until FRAMES_BEFORE_INTERRUPT) {
+            timeline.advanceFrame()
+        }
+        val x = params.x
+        val velocityX = handler.velocityX
+        assertTrue(x in 1 until GOAL_X)
+        assertTrue(velocityX > 0f)
+
+        handler.interrupt()
+        assertFalse(handler.isRunning)
+        val updatesBefore = updateCount
+        for (i in 0 until FRAMES_BEFORE_INTERRUPT) {
+            timeline.advanceFrame()
+        }
+        // nothing moves while the finger holds the bubble
+        assertEquals(x, params.x)
+        assertEquals(updatesBefore, updateCount)
+
+        handler.resume(params.x, params.y)
+        assertTrue(handler.isRunning)
+        // the first frame of the resumed snap starts where and as fast as the interrupted one stopped
+        timeline.advanceFrame()
+        assertEquals(x, params.x)
+        assertEquals(velocityX, handler.velocityX, EPSILON)
+        assertEquals(0f, handler.velocityY, EPSILON)
+
+        var frames = 0
+        while (handler.isRunning && frames < MAX_FRAMES) {
+            timeline.advanceFrame()
+            frames++
+        }
+        assertFalse(handler.isRunning)
+        assertEquals(GOAL_X, params.x)
+        assertEquals(0, params.y)
+    }
+
+    /**
+     * Run the layout passes of the main looper, then one frame of the virtual time.
+     */
+    private fun runFrame() {
+        idleFor(FRAME_MILLIS)
+        timeline.advanceFrame()
+    }
+
+    private companion object {
+        const val GOAL_X = 600
+        const val DURATION_MILLIS = 450L
+        const val TENSION = 1.25f
+        const val MEASURED_FRAMES = 20
+        const val FRAMES_BEFORE_INTERRUPT = 6
+        const val SETTLE_FRAMES = 120
+        const val MAX_FRAMES = 120
+        const val EPSILON = 0.001f
+    }
+}
@@ -0,0 +1,84 @@
+package com.jetpack.bubble
+
+import android.os.SystemClock
+import android.view.MotionEvent
+import com.jetpack.bubble.BubbleFixture.Companion.FRAME_MILLIS
+import com.jetpack.bubble.BubbleFixture.Companion.SETTLE_MILLIS
+import com.jetpack.bubble.BubbleFixture.Companion.idleFor
+import com.jetpack.bubble.core.TouchTrace
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.LooperMode
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+
+/**
+ * Verifies that a recorded drag replays to the same window positions and layout commits.
+ */
+@RunWith(RobolectricTestRunner::class)
+@LooperMode(LooperMode.Mode.PAUSED)
+class TouchTraceReplayTest {
+
+    @Test
+    fun recordedDrag_replaysToTheSameResult() {
+        val recording = BubbleFixture()
+        val recordingManager = recording.manager
+        val recordingView = recording.attach { touchTraceCapacity = TRACE_CAPACITY }
+        val params = recordingView.windowLayoutParams
+        val commitStart = recordingManager.windowLayoutCommitCount
+
+        val downTime = SystemClock.uptimeMillis()
+        recording.dispatch(downTime, MotionEvent.ACTION_DOWN, START_X, START_Y)
+        for (i in 1..DRAG_STEPS) {
+            idleFor(FRAME_MILLIS)
+            // two samples per frame, the first one as a historical sample
+            val event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis() - FRAME_MILLIS / 2, MotionEvent.ACTION_MOVE,
+                    START_X + (i - 0.5f) * DRAG_STEP_PX, START_Y + (i - 0.5f) * DRAG_STEP_PX, 0)
+            event.addBatch(SystemClock.uptimeMillis(), START_X + i * DRAG_STEP_PX, START_Y + i * DRAG_STEP_PX, 1f, 1f, 0)
+            recordingView.dispatchTouchEvent(event)
+            event.recycle()
+        }
+        val endX = START_X + DRAG_STEPS * DRAG_STEP_PX
+        val endY = START_Y + DRAG_STEPS * DRAG_STEP_PX
+        recording.dispatch(downTime, MotionEvent.ACTION_UP, endX, endY)
+        idleFor(SETTLE_MILLIS)
+        val recordedPosition = Pair(params.x, params.y)
+        val recordedCommits = recordingManager.windowLayoutCommitCount - commitStart
+
+        val out = ByteArrayOutputStream()
+        assertTrue(recordingManager.writeTouchTrace(out))
+        recordingManager.removeAllViewToWindow()
+        idleFor(SETTLE_MILLIS)
+
+        val trace = TouchTrace.readFrom(ByteArrayInputStream(out.toByteArray()))
+        assertEquals(2 + DRAG_STEPS * 2, trace.size)
+
+        val replay = BubbleFixture()
+        val replayView = replay.attach()
+        val result = TouchTraceReplayer(replay.manager, replayView).replay(trace, SETTLE_MILLIS)
+
+        assertEquals(2 + DRAG_STEPS, result.positions.size)
+        assertEquals(recordedPosition, Pair(result.finalPosition.x, result.finalPosition.y))
+        assertEquals(recordedCommits, result.commitCount)
+    }
+
+    @Test
+    fun notRecording_writesNothing() {
+        val fixture = BubbleFixture()
+        fixture.attach()
+
+        assertFalse(fixture.manager.writeTouchTrace(ByteArrayOutputStream()))
+    }
+
+    private companion object {
+        const val TRACE_CAPACITY = 256
+        const val START_X = 100f
+        const val START_Y = 200f
+        const val DRAG_STEPS = 10
+        const val DRAG_STEP_PX = 20f
+    }
+}
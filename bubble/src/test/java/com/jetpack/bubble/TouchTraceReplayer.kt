@@ -0,0 +1,62 @@
+package com.jetpack.bubble
+
+import android.graphics.Point
+import android.os.Looper
+import android.os.SystemClock
+import android.view.MotionEvent
+import com.jetpack.bubble.core.TouchTrace
+import org.robolectric.Shadows.shadowOf
+import java.time.Duration
+
+/**
+ * Injects a [TouchTrace] into a Robolectric-hosted FloatingView and collects the window positions and layout commits.
+ * Historical samples are batched into the event that follows them, and the main looper runs in between with the recorded timing.
+ */
+class TouchTraceReplayer(private val manager: FloatingViewManager, private val floatingView: FloatingView) {
+
+    /**
+     * Window positions after each event, the position after settling and the layout commits of the replay.
+     */
+    class Result(val positions: List<Point>, val finalPosition: Point, val commitCount: Long)
+
+    fun replay(trace: TouchTrace, settleMillis: Long): Result {
+        val looper = shadowOf(Looper.getMainLooper())
+        val params = floatingView.windowLayoutParams
+        val commitStart = manager.windowLayoutCommitCount
+        val positions = ArrayList<Point>()
+
+        // A wrapped ring buffer may start in the middle of a gesture
+        val first = (0 until trace.size).firstOrNull { trace.getAction(it) == MotionEvent.ACTION_DOWN && !trace.isHistorical(it) }
+        if (first != null) {
+            val timeOffset = SystemClock.uptimeMillis() - trace.getTimeMillis(first)
+            var downTime = 0L
+            var event: MotionEvent? = null
+            for (i in first until trace.size) {
+                val time = trace.getTimeMillis(i) + timeOffset
+                val action = trace.getAction(i)
+                if (event == null) {
+                    if (action == MotionEvent.ACTION_DOWN) {
+                        downTime = time
+                    }
+                    event = MotionEvent.obtain(downTime, time, action, trace.getRawX(i), trace.getRawY(i), 0)
+                } else {
+                    event.addBatch(time, trace.getRawX(i), trace.getRawY(i), 1f, 1f, 0)
+                }
+                if (trace.isHistorical(i)) {
+                    continue
+                }
+                val wait = time - SystemClock.uptimeMillis()
+                if (wait > 0) {
+                    looper.idleFor(Duration.ofMillis(wait))
+                }
+                floatingView.dispatchTouchEvent(event)
+                event.recycle()
+                event = null
+                positions.add(Point(params.x, params.y))
+            }
+        }
+
+        looper.idleFor(Duration.ofMillis(settleMillis))
+        return Result(positions, Point(params.x, params.y), manager.windowLayoutCommitCount - commitStart)
+    }
+}
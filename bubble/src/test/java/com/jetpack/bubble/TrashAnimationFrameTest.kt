@@ -0,0 +1,150 @@
+package com.jetpack.bubble
+
+import android.content.Context
+import android.os.SystemClock
+import android.view.MotionEvent
+import android.view.ViewConfiguration
+import android.view.WindowManager
+import androidx.test.core.app.ApplicationProvider
+import com.jetpack.bubble.core.VirtualTimeline
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.LooperMode
+
+/**
+ * Verifies that the trash animations run on frame callbacks and stop requesting frames once nothing moves.
+ */
+@RunWith(RobolectricTestRunner::class)
+@LooperMode(LooperMode.Mode.PAUSED)
+class TrashAnimationFrameTest {
+
+    private lateinit var timeline: VirtualTimeline
+    private lateinit var trashView: TrashView
+    private val startedAnimations = ArrayList<Int>()
+    private val endedAnimations = ArrayList<Int>()
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        timeline = VirtualTimeline(SystemClock.uptimeMillis())
+        val windowManager = context.getSystemService(Context.WINDOW_SERVICE) as WindowManager
+        trashView = TrashView(context, WindowLayoutCommitter(windowManager, timeline, timeline))
+        trashView.setTrashViewListener(object : TrashViewListener {
+            override fun onUpdateActionTrashIcon() {}
+            override fun onTrashAnimationStarted(animationCode: Int) {
+                startedAnimations.add(animationCode)
+            }
+            override fun onTrashAnimationEnd(animationCode: Int) {
+                endedAnimations.add(animationCode)
+            }
+        })
+    }
+
+    @Test
+    fun open_stopsRequestingFramesOnceSettled() {
+        touch(MotionEvent.ACTION_MOVE, TARGET_X, TARGET_Y)
+        val openFrames = runUntilIdle()
+
+        // 200ms delay + 400ms of the icon
+        assertTrue("frames=$openFrames", openFrames in 1..OPEN_FRAMES)
+        assertTrue(trashView.isQuiescent)
+    }
+
+    @Test
+    fun heldDrag_costsNoFrame() {
+        touch(MotionEvent.ACTION_MOVE, TARGET_X, TARGET_Y)
+        runUntilIdle()
+        val frameCount = timeline.frameCount
+
+        for (i in 0 until HOLD_FRAMES) {
+            touch(MotionEvent.ACTION_MOVE, TARGET_X, TARGET_Y)
+            timeline.advanceFrame()
+        }
+
+        assertEquals(frameCount, timeline.frameCount)
+    }
+
+    @Test
+    fun movedTarget_updatesInOneFrame() {
+        touch(MotionEvent.ACTION_MOVE, TARGET_X, TARGET_Y)
+        runUntilIdle()
+
+        touch(MotionEvent.ACTION_MOVE, TARGET_X + 40f, TARGET_Y)
+
+        assertEquals(1, runUntilIdle())
+    }
+
+    @Test
+    fun close_endsAndStops() {
+        touch(MotionEvent.ACTION_MOVE, TARGET_X, TARGET_Y)
+        runUntilIdle()
+
+        touch(MotionEvent.ACTION_UP, TARGET_X, TARGET_Y)
+        val closeFrames = runUntilIdle()
+
+        assertTrue("frames=$closeFrames", closeFrames in 1..CLOSE_FRAMES)
+        assertEquals(listOf(TrashView.ANIMATION_CLOSE), endedAnimations)
+        assertTrue(trashView.isQuiescent)
+    }
+
+    @Test
+    fun dismiss_cancelsTheFrames() {
+        touch(MotionEvent.ACTION_MOVE, TARGET_X, TARGET_Y)
+        timeline.advanceFrame()
+
+        trashView.dismiss()
+        // the force close starts before the requested frame, which then runs empty and nothing follows it
+        timeline.advanceFrame()
+
+        assertTrue(trashView.isQuiescent)
+        assertTrue(timeline.isIdle)
+        assertEquals(listOf(TrashView.ANIMATION_FORCE_CLOSE), endedAnimations)
+    }
+
+    @Test
+    fun press_opensAfterTheLongPressTimeoutOfTheTimeline() {
+        val downTime = timeline.uptimeMillis()
+        touch(MotionEvent.ACTION_DOWN, TARGET_X, TARGET_Y)
+        assertFalse(trashView.isQuiescent)
+
+        while (timeline.uptimeMillis() - downTime < ViewConfiguration.getLongPressTimeout()) {
+            assertTrue(startedAnimations.isEmpty())
+            timeline.advanceFrame()
+        }
+
+        assertEquals(listOf(TrashView.ANIMATION_OPEN), startedAnimations)
+    }
+
+    private fun touch(action: Int, x: Float, y: Float) {
+        val event = MotionEvent.obtain(0L, SystemClock.uptimeMillis(), action, x, y, 0)
+        trashView.onTouchFloatingView(event, x, y)
+        event.recycle()
+    }
+
+    /**
+     * Advance frames until no frame is requested and return how many ran.
+     */
+    private fun runUntilIdle(): Int {
+        var frames = 0
+        while (!timeline.isIdle && frames < MAX_FRAMES) {
+            if (timeline.advanceFrame()) {
+                frames++
+            }
+        }
+        return frames
+    }
+
+    private companion object {
+        const val TARGET_X = 400f
+        const val TARGET_Y = 200f
+        const val HOLD_FRAMES = 30
+        const val OPEN_FRAMES = 40
+        const val CLOSE_FRAMES = 15
+        const val MAX_FRAMES = 200
+    }
+}
@@ -0,0 +1,77 @@
+package com.jetpack.bubble
+
+import android.graphics.Rect
+import android.graphics.drawable.GradientDrawable
+import androidx.test.core.app.ApplicationProvider
+import com.jetpack.bubble.core.TrashMotion
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.LooperMode
+import kotlin.math.ceil
+
+/**
+ * Verifies that the TrashView window only covers the band at the bottom of the screen.
+ */
+@RunWith(RobolectricTestRunner::class)
+@LooperMode(LooperMode.Mode.PAUSED)
+class TrashWindowTest {
+
+    private lateinit var context: RecordingWindowManager.RecordingContext
+    private lateinit var fixture: BubbleFixture
+    private lateinit var manager: FloatingViewManager
+
+    @Before
+    fun setUp() {
+        context = RecordingWindowManager.wrap(ApplicationProvider.getApplicationContext())
+        fixture = BubbleFixture(context)
+        manager = fixture.manager
+    }
+
+    @Test
+    fun withoutIcon_windowIsTheBackgroundBand() {
+        attach()
+        val params = trashView().windowLayoutParams
+
+        assertEquals(backgroundHeight(), params.height)
+    }
+
+    @Test
+    fun withIcon_windowCoversTheIconReach() {
+        manager.setFixedTrashIconImage(GradientDrawable().apply { setSize(ICON_SIZE, ICON_SIZE) })
+        attach()
+        val params = trashView().windowLayoutParams
+        val density = context.resources.displayMetrics.density
+        val reach = TrashMotion.computeIconReach(density, backgroundHeight().toFloat(), ICON_SIZE)
+
+        assertEquals(maxOf(backgroundHeight(), ceil(reach).toInt()), params.height)
+        assertTrue(params.height < context.resources.displayMetrics.heightPixels)
+    }
+
+    @Test
+    fun hitRegion_stillReachesBelowTheScreen() {
+        manager.setFixedTrashIconImage(GradientDrawable().apply { setSize(ICON_SIZE, ICON_SIZE) })
+        attach()
+        val rect = Rect()
+        trashView().getWindowDrawingRect(rect)
+
+        assertEquals(-context.resources.displayMetrics.heightPixels, rect.top)
+        assertTrue(rect.bottom > 0)
+    }
+
+    private fun attach() {
+        fixture.attach()
+    }
+
+    private fun trashView() = context.windowManager.attachedViews.filterIsInstance<TrashView>().single()
+
+    private fun backgroundHeight() = (BACKGROUND_HEIGHT_DP * context.resources.displayMetrics.density).toInt()
+
+    private companion object {
+        const val ICON_SIZE = 200
+        const val BACKGROUND_HEIGHT_DP = 164
+    }
+}
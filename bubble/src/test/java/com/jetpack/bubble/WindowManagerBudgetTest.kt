@@ -0,0 +1,258 @@
+package com.jetpack.bubble
+
+import android.os.Build
+import android.os.SystemClock
+import android.view.MotionEvent
+import android.view.View
+import androidx.test.core.app.ApplicationProvider
+import com.jetpack.bubble.BubbleFixture.Companion.FRAME_MILLIS
+import com.jetpack.bubble.BubbleFixture.Companion.SETTLE_MILLIS
+import com.jetpack.bubble.BubbleFixture.Companion.idleFor
+import com.jetpack.bubble.core.TrackingMotion
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.LooperMode
+import org.robolectric.shadows.ShadowChoreographer
+import java.time.Duration
+import kotlin.math.ceil
+
+/**
+ * Asserts how many window operations each gesture sends to the window server.<br/>
+ * A change that adds IPCs on the hot path makes one of the budgets fail.
+ */
+@RunWith(RobolectricTestRunner::class)
+@LooperMode(LooperMode.Mode.PAUSED)
+class WindowManagerBudgetTest {
+
+    private lateinit var context: RecordingWindowManager.RecordingContext
+    private lateinit var windowManager: RecordingWindowManager
+    private lateinit var fixture: BubbleFixture
+    private lateinit var manager: FloatingViewManager
+
+    /**
+     * Attach and detach the trash window around each touch like BubbleService
+     */
+    private var isServiceStyle = false
+
+    @Before
+    fun setUp() {
+        ShadowChoreographer.setFrameDelay(Duration.ofMillis(FRAME_MILLIS))
+        context = RecordingWindowManager.wrap(ApplicationProvider.getApplicationContext())
+        windowManager = context.windowManager
+        fixture = BubbleFixture(context, object : FloatingViewListener {
+            override fun onFinishFloatingView() {}
+            override fun onTouchFinished(isFinishing: Boolean, x: Int, y: Int) {
+                if (isServiceStyle) {
+                    manager.removeTrashView()
+                }
+            }
+
+            override fun onTouchStarted() {
+                if (isServiceStyle) {
+                    manager.addTrashView()
+                }
+            }
+        })
+        manager = fixture.manager
+        fixture.attach(configure = bubbleOptions)
+    }
+
+    @Test
+    fun attach_addsThreeWindows() {
+        // FloatingView, FullscreenObserverView and TrashView
+        assertEquals(3, windowManager.addViewCount)
+        assertEquals(0, windowManager.removeViewCount)
+        assertEquals(0, windowManager.sameFrameUpdateCount)
+    }
+
+    @Test
+    @Config(minSdk = Build.VERSION_CODES.R)
+    fun persistentTrash_attachAddsTwoWindows() {
+        manager.removeAllViewToWindow()
+        windowManager.reset()
+        reattach(persistentTrash = true)
+
+        // FloatingView and TrashView(the insets of the persistent TrashView window replace FullscreenObserverView)
+        assertEquals(2, windowManager.addViewCount)
+        assertEquals(0, windowManager.removeViewCount)
+        assertEquals(0, windowManager.sameFrameUpdateCount)
+    }
+
+    @Test
+    fun tap() {
+        windowManager.reset()
+        val downTime = SystemClock.uptimeMillis()
+        fixture.dispatch(downTime, MotionEvent.ACTION_DOWN, START_X, START_Y)
+        idleFor(FRAME_MILLIS)
+        fixture.dispatch(downTime, MotionEvent.ACTION_UP, START_X, START_Y)
+        idleFor(SETTLE_MILLIS)
+
+        assertBudget(adds = 0, removes = 0, updates = 0..TAP_UPDATES)
+    }
+
+    @Test
+    fun drag() {
+        windowManager.reset()
+        drag(START_X + 150f, START_Y + 200f, DRAG_STEPS)
+        idleFor(SETTLE_MILLIS)
+
+        assertBudget(adds = 0, removes = 0, updates = dragUpdates(DRAG_STEPS))
+    }
+
+    @Test
+    fun fling() {
+        windowManager.reset()
+        drag(START_X + 200f, START_Y + 60f, FLING_STEPS)
+        idleFor(SETTLE_MILLIS)
+
+        assertBudget(adds = 0, removes = 0, updates = dragUpdates(FLING_STEPS))
+    }
+
+    @Test
+    fun dragToTrash() {
+        windowManager.reset()
+        val metrics = context.resources.displayMetrics
+        drag(metrics.widthPixels / 2f, metrics.heightPixels - 10f, DRAG_STEPS, holdFrames = HOLD_FRAMES)
+        idleFor(SETTLE_MILLIS)
+
+        // the finished bubble is the only window removed, and the finger resting on the trash costs no update
+        assertBudget(adds = 0, removes = 1, updates = DRAG_STEPS / 2..DRAG_STEPS + CAPTURE_FRAMES + TRASH_WINDOW_UPDATES)
+    }
+
+    @Test
+    fun serviceStyleDrag_attachesTheTrashOncePerGesture() {
+        isServiceStyle = true
+        windowManager.reset()
+        drag(START_X + 150f, START_Y + 200f, DRAG_STEPS)
+        idleFor(SETTLE_MILLIS)
+
+        assertBudget(adds = 1, removes = 1, updates = dragUpdates(DRAG_STEPS))
+    }
+
+    @Test
+    fun persistentTrash_serviceStyleDragAttachesNothing() {
+        reattach(persistentTrash = true)
+        isServiceStyle = true
+        windowManager.reset()
+        drag(START_X + 150f, START_Y + 200f, DRAG_STEPS)
+        idleFor(SETTLE_MILLIS)
+
+        assertBudget(adds = 0, removes = 0, updates = dragUpdates(DRAG_STEPS))
+    }
+
+    @Test
+    fun persistentTrash_restacksOncePerFrame() {
+        reattach(persistentTrash = true)
+        windowManager.reset()
+        for (i in 0 until EXTRA_BUBBLES) {
+            manager.addViewToWindow(View(context), BubbleFixture.options(bubbleOptions))
+        }
+        idleFor(SETTLE_MILLIS)
+
+        // the bubbles and a single re-add of the trash on top of them
+        assertEquals(EXTRA_BUBBLES + 1, windowManager.addViewCount)
+        assertEquals(1, windowManager.removeViewCount)
+        assertTrue(windowManager.attachedViews.last() is TrashView)
+    }
+
+    @Test
+    fun rotation() {
+        windowManager.reset()
+        RuntimeEnvironment.setQualifiers("+land")
+        val configuration = context.resources.configuration
+        for (view in ArrayList(windowManager.attachedViews)) {
+            view.dispatchConfigurationChanged(configuration)
+        }
+        idleFor(SETTLE_MILLIS)
+
+        assertBudget(adds = 0, removes = 0, updates = 1..ROTATION_UPDATES)
+    }
+
+    @Test
+    fun displayModeToggles() {
+        windowManager.reset()
+        for (i in 0 until DISPLAY_MODE_TOGGLES) {
+            manager.setDisplayMode(FloatingViewManager.DISPLAY_MODE_HIDE_ALWAYS)
+            idleFor(FRAME_MILLIS)
+            manager.setDisplayMode(FloatingViewManager.DISPLAY_MODE_SHOW_ALWAYS)
+            idleFor(FRAME_MILLIS)
+        }
+        manager.setDisplayMode(FloatingViewManager.DISPLAY_MODE_HIDE_FULLSCREEN)
+        idleFor(SETTLE_MILLIS)
+
+        assertBudget(adds = 0, removes = 0, updates = 0..0)
+    }
+
+    private fun reattach(persistentTrash: Boolean) {
+        manager.removeAllViewToWindow()
+        manager.isTrashViewPersistent = persistentTrash
+        fixture.attach(configure = bubbleOptions)
+    }
+
+    /**
+     * The release is the edge snap, so the length of the animation is known.
+     */
+    private val bubbleOptions: FloatingViewManager.Options.() -> Unit = { usePhysics = false }
+
+    /**
+     * At most one update per frame of the drag, the edge snap and the trash window fitting its icon.
+     * At least half of the drag frames move the bubble.
+     */
+    private fun dragUpdates(steps: Int) = steps / 2..steps + SNAP_FRAMES + TRASH_WINDOW_UPDATES
+
+    private fun drag(toX: Float, toY: Float, steps: Int, holdFrames: Int = 0) {
+        fixture.drag(START_X, START_Y, toX, toY, steps, holdFrames)
+    }
+
+    private fun assertBudget(adds: Int, removes: Int, updates: IntRange) {
+        val report = "add=${windowManager.addViewCount} remove=${windowManager.removeViewCount} update=${windowManager.updateViewLayoutCount}"
+        assertEquals(report, adds, windowManager.addViewCount)
+        assertEquals(report, removes, windowManager.removeViewCount)
+        assertTrue(report, windowManager.updateViewLayoutCount in updates)
+        // never more than one relayout of a window per frame
+        assertEquals(report, 0, windowManager.sameFrameUpdateCount)
+    }
+
+    private companion object {
+        const val START_X = 60f
+        const val START_Y = 60f
+        const val DRAG_STEPS = 20
+        const val FLING_STEPS = 4
+        const val HOLD_FRAMES = 20
+        const val DISPLAY_MODE_TOGGLES = 3
+        const val EXTRA_BUBBLES = 3
+
+        /**
+         * A tap may only put the bubble back on its edge
+         */
+        const val TAP_UPDATES = 2
+
+        /**
+         * The bubble moves to its rescaled position and the trash window follows the new screen size
+         */
+        const val ROTATION_UPDATES = 2
+
+        /**
+         * The trash window is resized once to the reach of its icon
+         */
+        const val TRASH_WINDOW_UPDATES = 1
+
+        /**
+         * Frames of the edge snap after the release, including the frame that starts it
+         */
+        val SNAP_FRAMES = frames(FloatingView.MOVE_TO_EDGE_DURATION)
+
+        /**
+         * Frames of the capture of the bubble by the trash
+         */
+        val CAPTURE_FRAMES = frames(TrackingMotion.CAPTURE_DURATION_MILLIS)
+
+        fun frames(durationMillis: Long) = ceil(durationMillis / FRAME_MILLIS.toDouble()).toInt() + 1
+    }
+}
@@ -22,4 +22,6 @@ dependencyResolutionManagement {
 rootProject.name = "Jetpack Compose Bubble"
 include(":app")
 include(":bubble")
+include(":bubble-core")
 include(":bubblelayout")
+include(":bubble-benchmark")